@@ -138,7 +138,18 @@ public final class FormatterFr {
      * @return l'itinéraire et la destination formatés sous forme de chaîne
      */
     public static String formatRouteDestination(Journey.Leg.Transport transportLeg) {
-        return transportLeg.route() + " Direction " + transportLeg.destination();
+        return formatRouteDestination(transportLeg.route(), transportLeg.destination());
+    }
+
+    /**
+     * Formate le nom d'une ligne et la destination d'une course.
+     *
+     * @param route       le nom de la ligne
+     * @param destination la destination de la course
+     * @return la ligne et la destination formatées sous forme de chaîne
+     */
+    public static String formatRouteDestination(String route, String destination) {
+        return route + " Direction " + destination;
     }
 
 
@@ -2,6 +2,7 @@ package ch.epfl.rechor.gui;
 
 import ch.epfl.rechor.StopIndex;
 import ch.epfl.rechor.journey.*;
+import ch.epfl.rechor.timetable.CachedTimeTable;
 import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.mapped.FileTimeTable;
 import javafx.application.Application;
@@ -20,14 +21,18 @@ import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 /**
@@ -45,6 +50,8 @@ import java.util.stream.IntStream;
  *     <li>Charge les données horaires depuis le dossier "timetable".</li>
  *     <li>Crée et connecte les éléments de l'interface utilisateur.</li>
  *     <li>Maintient un cache des profils pour améliorer les performances.</li>
+ *     <li>Conserve sur disque les profils calculés si l'option
+ *         <code>--store-profiles</code> est donnée.</li>
  *     <li>Lie dynamiquement la liste des voyages à afficher à l’entrée utilisateur.</li>
  * </ul>
  *
@@ -69,9 +76,17 @@ public class Main extends Application {
      * Hauteur minimale de la fenêtre principale (en px).
      */
     private static final double MIN_WINDOW_HEIGHT = 700;
-    // Strcuture dela map (Date du voyage -> (l'indice de la station d'arrivée -> le profile))
-    private final Map<LocalDate, Map<Integer, Profile>> profileCache = new ConcurrentHashMap<>();
-    private final SimpleObjectProperty<List<Journey>> journeysO =
+    /**
+     * Taille totale maximale des profils gardés en cache (en octets).
+     */
+    private static final long PROFILE_CACHE_BYTES = 512L << 20;
+    /**
+     * Option de la ligne de commande demandant de conserver les profils calculés sur disque.
+     */
+    private static final String STORE_PROFILES_OPTION = "--store-profiles";
+    private static final Logger LOGGER = System.getLogger(Main.class.getName());
+    private final ProfileCache profileCache = new ProfileCache(PROFILE_CACHE_BYTES);
+    private final SimpleObjectProperty<List<JourneySummary>> journeysO =
             new SimpleObjectProperty<>(List.of());
     private final SimpleBooleanProperty loadingO = new SimpleBooleanProperty(false);
     /**
@@ -92,6 +107,32 @@ public class Main extends Application {
         return Files.exists(dayDir);
     }
 
+    /**
+     * Retourne les voyages de la liste donnée qui partent à l'heure donnée ou plus tard ou,
+     * en mode arrivée, qui arrivent au plus tard à cette heure.
+     * <p>
+     * N'est utilisée que pour les voyages obtenus par un parcours limité à l'heure choisie,
+     * qui ne couvre pas toute la journée ; lorsqu'un profil complet est disponible, la liste
+     * affichée contient les voyages de toute la journée.
+     * </p>
+     *
+     * @param summaries   les résumés des voyages
+     * @param date        la date du voyage
+     * @param time        l'heure choisie
+     * @param arrivalMode vrai si l'heure choisie est une heure d'arrivée
+     * @return les résumés des voyages compatibles avec l'heure choisie
+     */
+    private static List<JourneySummary> inWindow(List<JourneySummary> summaries,
+                                                 LocalDate date, LocalTime time,
+                                                 boolean arrivalMode) {
+        LocalDateTime dateTime = date.atTime(time);
+        return summaries.stream()
+                .filter(s -> arrivalMode
+                        ? !s.arrTime().isAfter(dateTime)
+                        : !s.depTime().isBefore(dateTime))
+                .toList();
+    }
+
     /**
      * Point d'entrée principal de l'application ReCHor.
      * <p>
@@ -99,7 +140,8 @@ public class Main extends Application {
      * l'application JavaFX.
      * </p>
      *
-     * @param args les arguments de la ligne de commande (non utilisés)
+     * @param args les arguments de la ligne de commande : <code>--store-profiles</code> pour
+     *             conserver les profils calculés dans le dossier de l'horaire
      */
     public static void main(String[] args) {
         launch(args);
@@ -113,9 +155,9 @@ public class Main extends Application {
      *     <li>Charge les données horaires depuis le dossier <code>timetable</code>.</li>
      *     <li>Construit et connecte les trois composants principaux de l'interface graphique :
      *         {@link QueryUI}, {@link SummaryUI} et {@link DetailUI}.</li>
-     *     <li>Crée une valeur observable contenant la liste des {@link Journey}
-     *         en fonction de l’entrée utilisateur, en mettant en cache les profils calculés
-     *         pour chaque date et station d’arrivée.</li>
+     *     <li>Crée une valeur observable contenant la liste des résumés des voyages
+     *         ({@link JourneySummary}) en fonction de l’entrée utilisateur, en mettant en
+     *         cache les profils calculés pour chaque date et station d’arrivée.</li>
      *     <li>Configure la scène principale et donne le focus au champ de recherche de départ.</li>
      * </ul>
      * </p>
@@ -124,7 +166,15 @@ public class Main extends Application {
      * @throws IOException si le chargement des données horaires échoue
      */
     public void start(Stage primaryStage) throws IOException {
-        TimeTable tt = FileTimeTable.in(Path.of("timetable"));
+        TimeTable fileTimeTable = FileTimeTable.in(Path.of("timetable"));
+        // Les liaisons du jour sont décodées une fois et partagées par tous les calculs
+        TimeTable tt = new CachedTimeTable(fileTimeTable, true);
+        // Les profils ne sont conservés sur disque, à côté de l'horaire, que sur demande
+        Path profilesDirectory =
+                getParameters().getUnnamed().contains(STORE_PROFILES_OPTION)
+                        && fileTimeTable instanceof FileTimeTable mapped
+                        ? mapped.directory()
+                        : null;
 
         List<String> stopNames = IntStream.range(0, tt.stations().size())
                 .mapToObj(i -> tt.stations().name(i))
@@ -153,9 +203,10 @@ public class Main extends Application {
         });
 
         Router router = new Router(tt);
+        ReverseRouter reverseRouter = new ReverseRouter(tt);
 
         // Recherche "asynchrone" des voyages
-        ObjectProperty<Task<List<Journey>>> currentTask = new SimpleObjectProperty<>();
+        ObjectProperty<Task<List<JourneySummary>>> currentTask = new SimpleObjectProperty<>();
         Runnable launchSearch = () -> {
             String depStop = queryUI.depStopO().getValue();
             String arrStop = queryUI.arrStopO().getValue();
@@ -174,10 +225,13 @@ public class Main extends Application {
             String arrMain = alternativeNames.getOrDefault(arrStop, arrStop);
             int depId = stopNames.indexOf(depMain);
             int arrId = stopNames.indexOf(arrMain);
-            Map<Integer, Profile> byDate = profileCache.get(date);
-            if (byDate != null && byDate.containsKey(arrId)) {
-                Profile cachedProfile = byDate.get(arrId);
-                journeysO.set(JourneyExtractor.journeys(cachedProfile, depId));
+            Set<Vehicle> excluded = EnumSet.noneOf(Vehicle.class);
+            excluded.addAll(queryUI.excludedVehiclesO());
+            boolean arrivalMode = queryUI.arrivalModeO().getValue();
+            ProfileCache.Key key = new ProfileCache.Key(date, arrId, excluded);
+            Profile cachedProfile = profileCache.getIfPresent(key);
+            if (cachedProfile != null) {
+                journeysO.set(JourneyExtractor.summaries(cachedProfile, depId));
                 loadingO.set(false);
                 return;                     // rien de long : on s'arrête ici
             }
@@ -190,15 +244,39 @@ public class Main extends Application {
             loadingO.set(true);
             progressO.set(-1);
 
-            Task<List<Journey>> task = new Task<>() {
+            Task<List<JourneySummary>> task = new Task<>() {
                 @Override
-                protected List<Journey> call() {
+                protected List<JourneySummary> call() {
                     ProgressListener listener =
                             p -> updateProgress(p, 1); // p est déjà entre 0 et 1
-                    Profile profile = profileCache
-                            .computeIfAbsent(date, d -> new ConcurrentHashMap<>())
-                            .computeIfAbsent(arrId, id -> router.profile(date, id, listener));
-                    return JourneyExtractor.journeys(profile, depId);
+
+                    // Le profil complet a pu être calculé par une recherche précédente
+                    // depuis le lancement de celle-ci
+                    Profile cached = profileCache.getIfPresent(key);
+                    if (cached != null) return JourneyExtractor.summaries(cached, depId);
+
+                    // Si le parcours limité à l'heure choisie (vers l'arrière en mode arrivée,
+                    // vers l'avant depuis la gare de départ sinon) couvre moins de la moitié
+                    // des liaisons du jour, il est préféré au calcul du profil complet, qui
+                    // n'est alors pas mis en cache ; seule la liste obtenue ainsi est limitée
+                    // aux voyages compatibles avec l'heure choisie
+                    int connectionCount = tt.connectionsFor(date).size();
+                    int before = router.connectionsDepartingBefore(date, time);
+                    int boundedScan = arrivalMode ? before : connectionCount - before;
+                    if (2 * boundedScan < connectionCount) {
+                        List<JourneySummary> bounded = arrivalMode
+                                ? JourneyExtractor.summaries(
+                                router.profileArrivingBy(date, arrId, time, excluded, listener),
+                                depId)
+                                : JourneyExtractor.summaries(
+                                reverseRouter.profile(date, depId, time, excluded, listener),
+                                arrId);
+                        return inWindow(bounded, date, time, arrivalMode);
+                    }
+
+                    Profile profile = profileCache.get(key,
+                            k -> profileFor(tt, profilesDirectory, router, k, listener));
+                    return JourneyExtractor.summaries(profile, depId);
                 }
             };
             progressO.bind(task.progressProperty());
@@ -264,4 +342,46 @@ public class Main extends Application {
 
 
     }
+
+    /**
+     * Retourne le profil correspondant à la clé donnée.
+     * <p>
+     * Si un dossier de stockage est donné, les profils calculés sans exclure de véhicules
+     * sont conservés dans les fichiers de {@link ProfileStore}, d'où ils sont relus s'ils s'y
+     * trouvent déjà et correspondent à l'horaire ; ils restent ainsi disponibles après un
+     * redémarrage. Ces fichiers ne sont jamais supprimés par l'application.
+     * </p>
+     *
+     * @param tt                l'horaire
+     * @param profilesDirectory le dossier de l'horaire dans lequel les profils sont conservés,
+     *                          ou {@code null} s'ils ne doivent pas l'être
+     * @param router            le routeur utilisé si le profil doit être calculé
+     * @param key               la date, la gare d'arrivée et les véhicules exclus
+     * @param listener          l'écouteur informé de la progression du calcul
+     * @return le profil
+     */
+    private static Profile profileFor(TimeTable tt, Path profilesDirectory, Router router,
+                                      ProfileCache.Key key, ProgressListener listener) {
+        LocalDate date = key.date();
+        if (profilesDirectory == null || !key.excludedVehicles().isEmpty()) {
+            return router.profile(date, key.arrStationId(), key.excludedVehicles(), listener);
+        }
+        Path file = ProfileStore.path(profilesDirectory, date, key.arrStationId());
+        if (Files.exists(file)) {
+            try {
+                return ProfileStore.read(tt, date, file);
+            } catch (IOException | IllegalArgumentException e) {
+                // Fichier illisible ou calculé pour un autre horaire : il est remplacé
+                LOGGER.log(Level.INFO, "Profil " + file + " illisible, recalculé", e);
+            }
+        }
+        Profile profile = router.profile(date, key.arrStationId(), listener);
+        try {
+            ProfileStore.write(profile, file);
+        } catch (IOException e) {
+            // Le profil reste utilisable même s'il n'a pas pu être conservé
+            LOGGER.log(Level.WARNING, "Impossible d'écrire le profil " + file, e);
+        }
+        return profile;
+    }
 }
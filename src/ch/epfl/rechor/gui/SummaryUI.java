@@ -1,6 +1,7 @@
 package ch.epfl.rechor.gui;
 
 import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneySummary;
 import ch.epfl.rechor.journey.Vehicle;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
@@ -43,6 +44,9 @@ import static ch.epfl.rechor.gui.VehicleIcons.iconFor;
  * <p>
  * La sélection du voyage se fait automatiquement en fonction de l'heure désirée,
  * et peut être récupérée via la valeur observable fournie.
+ * <p>
+ * Les voyages sont affichés à partir de leurs résumés ({@link JourneySummary}) ; le voyage
+ * complet n'est construit que pour le voyage sélectionné.
  *
  * @param rootNode         le nœud racine affichant la liste des voyages
  * @param selectedJourneyO observable du voyage actuellement sélectionné
@@ -53,19 +57,19 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
     /**
      * Construit l’UI de la liste de voyages.
      *
-     * @param journeyList liste observable des voyages à afficher
+     * @param journeyList liste observable des résumés des voyages à afficher
      * @param desiredTime heure désirée pour sélectionner automatiquement le voyage le plus proche
      * @param loadingO    observable indiquant si le chargement est en cours
      * @return une instance de SummaryUI
      */
-    public static SummaryUI create(ObservableValue<List<Journey>> journeyList,
+    public static SummaryUI create(ObservableValue<List<JourneySummary>> journeyList,
                                    ObservableValue<LocalTime> desiredTime,
                                    ObservableBooleanValue loadingO,
                                    ObjectProperty<Number> progressO,
                                    ObservableValue<Boolean> arrivalO,
                                    ObservableSet<Vehicle> excludedVehiclesO) {
 
-        ListView<Journey> listView = new ListView<>();
+        ListView<JourneySummary> listView = new ListView<>();
         listView.getStylesheets().add("summary.css");
         listView.setCellFactory(lv -> new JourneyCell());
 
@@ -94,9 +98,7 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
         journeyList.subscribe(newList -> {
             listView.getItems().setAll(
                     newList.stream()
-                            .filter(j -> j.legs().stream()
-                                    .filter(leg -> leg instanceof Journey.Leg.Transport)
-                                    .map(leg -> ((Journey.Leg.Transport) leg).vehicle())
+                            .filter(j -> j.vehicles().stream()
                                     .noneMatch(excludedVehiclesO::contains))
                             .collect(Collectors.toList())
             );
@@ -111,8 +113,9 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
         excludedVehiclesO.addListener((SetChangeListener<Vehicle>) change ->
                 filterJourneys(listView, journeyList, desiredTime, arrivalO, excludedVehiclesO)
         );
+        // Seul le voyage sélectionné est construit complètement
         ObservableValue<Journey> selectedJourney =
-                listView.getSelectionModel().selectedItemProperty();
+                listView.getSelectionModel().selectedItemProperty().map(JourneySummary::journey);
 
         return new SummaryUI(summaryPane, selectedJourney);
     }
@@ -127,18 +130,18 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
      * @param useArrivalTime booléen indiquant s'il faut utiliser l'heure d'arrivée pour la
      *                       sélection
      */
-    private static void updateSelection(ListView<Journey> listView,
+    private static void updateSelection(ListView<JourneySummary> listView,
                                         ObservableValue<LocalTime> desiredTimeO,
                                         boolean useArrivalTime) {
 
-        List<Journey> journeys = listView.getItems();
+        List<JourneySummary> journeys = listView.getItems();
         LocalTime target = desiredTimeO.getValue();
 
         if (journeys.isEmpty()) return;
 
         int journeyIndex = IntStream.range(0, journeys.size())
                 .filter(i -> {
-                    Journey j = journeys.get(i);
+                    JourneySummary j = journeys.get(i);
                     LocalTime time = useArrivalTime
                             ? j.arrTime().toLocalTime()
                             : j.depTime().toLocalTime();
@@ -161,18 +164,16 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
      * @param arrivalO          observable du mode arrivée/départ
      * @param excludedVehiclesO set observable des véhicules exclus
      */
-    private static void filterJourneys(ListView<Journey> listView,
-                                       ObservableValue<List<Journey>> journeyList,
+    private static void filterJourneys(ListView<JourneySummary> listView,
+                                       ObservableValue<List<JourneySummary>> journeyList,
                                        ObservableValue<LocalTime> desiredTime,
                                        ObservableValue<Boolean> arrivalO,
                                        ObservableSet<Vehicle> excludedVehiclesO) {
-        List<Journey> currentList = journeyList.getValue();
+        List<JourneySummary> currentList = journeyList.getValue();
         if (currentList != null) {
             listView.getItems().setAll(
                     currentList.stream()
-                            .filter(j -> j.legs().stream()
-                                    .filter(leg -> leg instanceof Journey.Leg.Transport)
-                                    .map(leg -> ((Journey.Leg.Transport) leg).vehicle())
+                            .filter(j -> j.vehicles().stream()
                                     .noneMatch(excludedVehiclesO::contains))
                             .collect(Collectors.toList())
             );
@@ -183,7 +184,7 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
     /**
      * Cellule "customisée" pour afficher un résumé d’un voyage dans la liste.
      */
-    private static final class JourneyCell extends ListCell<Journey> {
+    private static final class JourneyCell extends ListCell<JourneySummary> {
         private static final double HORIZONTAL_MARGIN = 5;
         private static final double VERTICAL_POSITION = 10;
         private static final double CIRCLE_RADIUS = 3;
@@ -280,11 +281,11 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
          * Affiche les heures de départ/arrivée, la durée, l’icône du véhicule,
          * et les cercles de transfert pour chaque changement.
          *
-         * @param item  le voyage à afficher dans la cellule
+         * @param item  le résumé du voyage à afficher dans la cellule
          * @param empty true si la cellule doit être vide
          */
         @Override
-        protected void updateItem(Journey item, boolean empty) {
+        protected void updateItem(JourneySummary item, boolean empty) {
             super.updateItem(item, empty);
             transferGroup.getChildren().setAll(startCircle, endCircle);
             if (empty || item == null) {
@@ -292,32 +293,22 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
             } else {
                 setGraphic(journey);
 
-                departureTime.setText(formatTime(item.legs().getFirst().depTime()));
-                arrivalTime.setText(formatTime(item.legs().getLast().arrTime()));
+                departureTime.setText(formatTime(item.depTime()));
+                arrivalTime.setText(formatTime(item.arrTime()));
                 durationTime.setText(formatDuration(item.duration()));
 
-                List<Journey.Leg> legs = item.legs();
-                Journey.Leg.Transport firstTransport = null;
-
-                for (Journey.Leg leg : legs) {
-                    if (leg instanceof Journey.Leg.Transport) {
-                        firstTransport = (Journey.Leg.Transport) leg;
-                        break;
-                    }
-                }
-
-                vehicleIcon.setImage(iconFor(firstTransport.vehicle()));
-                routeAndDestination.setText(formatRouteDestination(firstTransport));
+                vehicleIcon.setImage(iconFor(item.vehicle(0)));
+                routeAndDestination.setText(
+                        formatRouteDestination(item.route(0), item.destination(0)));
 
                 transferCircles.clear();
 
-                LocalDateTime departureTime = legs.getFirst().depTime();
+                // Un changement a lieu à l'arrivée de chaque étape en transport sauf la dernière
+                LocalDateTime departureTime = item.depTime();
                 double totalDurationMinutes = (double) item.duration().toMinutes();
 
-                IntStream.range(1, legs.size() - 1).mapToObj(legs::get)
-                        .filter(leg -> leg instanceof Journey.Leg.Foot)
-                        .map(leg -> (Journey.Leg.Foot) leg)
-                        .mapToDouble(footLeg -> Duration.between(departureTime, footLeg.depTime())
+                IntStream.range(0, item.changes())
+                        .mapToDouble(i -> Duration.between(departureTime, item.legArrTime(i))
                                 .toMinutes())
                         .map(minutesFromStart -> minutesFromStart / totalDurationMinutes)
                         .forEach(relativePosition -> {
@@ -0,0 +1,55 @@
+package ch.epfl.rechor.journey;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Écriture atomique des fichiers précalculés (profils, changements, matrices).
+ * <p>
+ * Le contenu est d'abord écrit dans un fichier temporaire du même dossier, qui remplace
+ * ensuite le fichier voulu de manière atomique, afin qu'un autre processus ne puisse jamais
+ * lire un fichier incomplet. Le fichier temporaire est supprimé si l'écriture échoue.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /**
+     * Écrit le contenu d'un fichier au moyen d'un canal ouvert en lecture et en écriture.
+     */
+    @FunctionalInterface
+    interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Écrit le fichier donné au moyen de la fonction donnée, en créant si nécessaire les
+     * dossiers qui le contiennent, et le remplace de manière atomique.
+     *
+     * @param file   le fichier à écrire
+     * @param writer la fonction écrivant le contenu du fichier dans le canal qu'elle reçoit
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    static void write(Path file, ChannelWriter writer) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                writer.write(channel);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
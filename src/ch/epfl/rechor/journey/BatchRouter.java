@@ -0,0 +1,201 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.TimeTable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Calculateur de voyages pour des lots de requêtes portant sur des gares de départ,
+ * d'arrivée, des jours et des heures quelconques.
+ * <p>
+ * Les requêtes d'un lot sont regroupées par jour et par gare d'arrivée, si bien que le profil
+ * de chaque couple n'est obtenu qu'une seule fois, quel que soit le nombre de requêtes qui le
+ * partagent : un lot coûte donc approximativement autant de profils qu'il contient de gares
+ * d'arrivée distinctes. Les profils se trouvant déjà dans le cache éventuellement donné sont
+ * réutilisés, et les autres sont calculés en parallèle par groupes (voir
+ * {@link Router#profiles(LocalDate, int[], Executor, ProgressListener,
+ * java.util.function.Consumer)}), puis ajoutés au cache. Seuls les voyages partant des gares
+ * de départ demandées sont extraits de chaque profil, une seule fois par gare de départ, dès
+ * que ce profil est disponible.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class BatchRouter {
+    private static final ProgressListener NO_OP = f -> { };
+
+    private final TimeTable timeTable;
+    private final Router router;
+    private final ProfileCache cache;
+
+    /**
+     * Une requête d'un lot : les voyages entre deux gares partant au plus tôt à une heure
+     * donnée d'un jour donné.
+     *
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @param date         le jour du voyage
+     * @param depTime      l'heure de départ la plus précoce
+     */
+    public record Request(int depStationId, int arrStationId, LocalDate date,
+                          LocalTime depTime) {
+
+        /**
+         * Construit une requête.
+         *
+         * @throws NullPointerException si le jour ou l'heure est {@code null}
+         */
+        public Request {
+            Objects.requireNonNull(date);
+            Objects.requireNonNull(depTime);
+        }
+    }
+
+    /**
+     * Construit un calculateur de voyages pour l'horaire donné, sans cache de profils.
+     *
+     * @param timeTable l'horaire
+     */
+    public BatchRouter(TimeTable timeTable) {
+        this(timeTable, null);
+    }
+
+    /**
+     * Construit un calculateur de voyages pour l'horaire donné, utilisant le cache de profils
+     * donné.
+     *
+     * @param timeTable l'horaire
+     * @param cache     le cache de profils, ou {@code null} s'il n'y en a aucun
+     */
+    public BatchRouter(TimeTable timeTable, ProfileCache cache) {
+        this.timeTable = timeTable;
+        this.router = new Router(timeTable);
+        this.cache = cache;
+    }
+
+    /**
+     * Calcule les voyages correspondant aux requêtes données, en utilisant un fil de calcul
+     * par cœur disponible.
+     *
+     * @param requests les requêtes
+     * @return les voyages de chaque requête, dans l'ordre des requêtes
+     * @throws IndexOutOfBoundsException si l'une des requêtes désigne une gare inexistante
+     * @see #journeys(List, Executor)
+     */
+    public List<List<Journey>> journeys(List<Request> requests) {
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+            return journeys(requests, pool);
+        }
+    }
+
+    /**
+     * Calcule les voyages correspondant aux requêtes données en utilisant l'exécuteur donné.
+     * <p>
+     * Les voyages d'une requête sont ceux que {@link JourneyExtractor#journeys(Profile, int)}
+     * extrait du profil de sa gare d'arrivée et de son jour, pour sa gare de départ, et qui
+     * partent au plus tôt à l'heure demandée ; ils sont triés de la même manière.
+     * </p>
+     * <p>
+     * La méthode bloque jusqu'à ce que les voyages de toutes les requêtes aient été calculés.
+     * </p>
+     *
+     * @param requests les requêtes
+     * @param executor l'exécuteur sur lequel les calculs sont lancés
+     * @return les voyages de chaque requête, dans l'ordre des requêtes
+     * @throws IndexOutOfBoundsException si l'une des requêtes désigne une gare inexistante
+     */
+    public List<List<Journey>> journeys(List<Request> requests, Executor executor) {
+        int stationCount = timeTable.stations().size();
+
+        // Index des requêtes de chaque jour et de chaque gare d'arrivée
+        Map<LocalDate, Map<Integer, List<Integer>>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); ++i) {
+            Request request = requests.get(i);
+            Objects.checkIndex(request.depStationId(), stationCount);
+            Objects.checkIndex(request.arrStationId(), stationCount);
+            groups.computeIfAbsent(request.date(), d -> new LinkedHashMap<>())
+                    .computeIfAbsent(request.arrStationId(), a -> new ArrayList<>())
+                    .add(i);
+        }
+
+        AtomicReferenceArray<List<Journey>> results = new AtomicReferenceArray<>(requests.size());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        try {
+            for (Map.Entry<LocalDate, Map<Integer, List<Integer>>> day : groups.entrySet()) {
+                LocalDate date = day.getKey();
+                Map<Integer, List<Integer>> destinations = day.getValue();
+
+                // Les profils déjà en cache sont exploités sans attendre les autres
+                List<Integer> missing = new ArrayList<>();
+                for (Map.Entry<Integer, List<Integer>> group : destinations.entrySet()) {
+                    Profile cached = cache == null ? null : cache.getIfPresent(key(date,
+                            group.getKey()));
+                    if (cached == null) {
+                        missing.add(group.getKey());
+                    } else {
+                        tasks.add(CompletableFuture.runAsync(
+                                () -> extract(cached, requests, group.getValue(), results),
+                                executor));
+                    }
+                }
+
+                // Les profils manquants sont calculés par groupes, et exploités dès qu'ils
+                // sont terminés
+                if (missing.isEmpty()) continue;
+                router.profiles(date, missing.stream().mapToInt(Integer::intValue).toArray(),
+                        executor, NO_OP, profile -> {
+                            if (cache != null) {
+                                cache.get(key(date, profile.arrStationId()), k -> profile);
+                            }
+                            extract(profile, requests,
+                                    destinations.get(profile.arrStationId()), results);
+                        });
+            }
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+
+        List<List<Journey>> journeys = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); ++i) journeys.add(results.get(i));
+        return journeys;
+    }
+
+    /**
+     * Extrait du profil donné les voyages des requêtes d'index donnés, en n'extrayant qu'une
+     * seule fois les voyages de chaque gare de départ.
+     */
+    private static void extract(Profile profile, List<Request> requests, List<Integer> indices,
+                                AtomicReferenceArray<List<Journey>> results) {
+        Map<Integer, List<JourneySummary>> summaries = new HashMap<>();
+        for (int i : indices) {
+            Request request = requests.get(i);
+            LocalDateTime depTime = request.date().atTime(request.depTime());
+            List<Journey> journeys = new ArrayList<>();
+            for (JourneySummary summary : summaries.computeIfAbsent(request.depStationId(),
+                    depStationId -> JourneyExtractor.summaries(profile, depStationId))) {
+                if (!summary.depTime().isBefore(depTime)) journeys.add(summary.journey());
+            }
+            results.set(i, List.copyOf(journeys));
+        }
+    }
+
+    private static ProfileCache.Key key(LocalDate date, int arrStationId) {
+        return new ProfileCache.Key(date, arrStationId, Set.of());
+    }
+}
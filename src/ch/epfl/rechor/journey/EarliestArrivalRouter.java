@@ -0,0 +1,208 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+import ch.epfl.rechor.timetable.Trips;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Représente un routeur calculant, pour une gare de départ, une gare d'arrivée et une heure
+ * de départ données, le voyage arrivant au plus tôt à destination.
+ * <p>
+ * Contrairement à {@link Router}, qui calcule le profil complet de tous les voyages optimaux
+ * vers une destination, ce routeur parcourt les liaisons vers l'avant, par ordre croissant
+ * d'heure de départ, en partant de la première liaison partant après l'heure donnée. Il
+ * s'arrête dès qu'aucune des liaisons restantes ne part avant l'heure d'arrivée la plus
+ * précoce connue, si bien qu'il ne parcourt en général qu'une petite partie des liaisons
+ * du jour.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public record EarliestArrivalRouter(TimeTable timeTable) {
+
+    /** Valeur représentant une gare non encore atteinte. */
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    /**
+     * Calcule le voyage arrivant au plus tôt à la gare d'arrivée donnée, en partant de la gare
+     * de départ donnée au plus tôt à l'heure donnée.
+     * <p>
+     * Le parcours maintient, pour chaque gare, l'heure d'arrivée la plus précoce en véhicule
+     * et, pour chaque course, un bit indiquant si elle a déjà pu être empruntée. Une liaison
+     * peut être empruntée si sa course l'a déjà été, ou si l'une des gares depuis lesquelles
+     * on peut rejoindre sa gare de départ à pied a été atteinte suffisamment tôt (en tenant
+     * compte du temps de changement).
+     * </p>
+     *
+     * @param date         la date du voyage
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @param depTime      l'heure de départ au plus tôt
+     * @return le voyage arrivant au plus tôt, ou {@link Optional#empty()} s'il n'y en a aucun
+     */
+    public Optional<Journey> journey(LocalDate date, int depStationId, int arrStationId,
+                                     LocalTime depTime) {
+        int depMins = depTime.toSecondOfDay() / 60;
+        Transfers transfers = timeTable.transfers();
+        Connections connections = timeTable.connectionsFor(date);
+        Trips trips = timeTable.tripsFor(date);
+        int stationCount = timeTable.stations().size();
+
+        // Temps de marche depuis chaque gare vers la destination
+        int[] walkToDest = new int[stationCount];
+        Arrays.fill(walkToDest, -1);
+        int destRange = transfers.arrivingAt(arrStationId);
+        for (int j = PackedRange.startInclusive(destRange);
+             j < PackedRange.endExclusive(destRange); ++j) {
+            walkToDest[transfers.depStationId(j)] = transfers.minutes(j);
+        }
+        walkToDest[arrStationId] = 0;
+
+        // Heure d'arrivée la plus précoce en véhicule à chaque gare, et dernière liaison
+        // empruntée pour l'atteindre
+        int[] arrMins = new int[stationCount];
+        Arrays.fill(arrMins, UNREACHED);
+        int[] arrConnection = new int[stationCount];
+
+        // Courses déjà empruntées, liaison par laquelle elles l'ont été et gare depuis
+        // laquelle leur arrêt d'embarquement a été rejoint
+        long[] tripReached = new long[(trips.size() + Long.SIZE - 1) / Long.SIZE];
+        int[] boardConnection = new int[trips.size()];
+        int[] boardFrom = new int[trips.size()];
+
+        int bestArrMins = UNREACHED;
+        int bestStationId = -1;
+
+        int first = Router.firstDepartingAtOrBefore(connections, depMins - 1) - 1;
+        for (int i = first; i >= 0; --i) {
+            if (connections.depMins(i) >= bestArrMins) break;
+
+            int tripId = connections.tripId(i);
+            long tripBit = 1L << tripId;
+            if (connections.isCancelled(i)) {
+                // La course ne peut pas être poursuivie au-delà d'une liaison supprimée
+                tripReached[tripId >>> 6] &= ~tripBit;
+                continue;
+            }
+            if ((tripReached[tripId >>> 6] & tripBit) == 0) {
+                int boardStationId = timeTable.stationId(connections.depStopId(i));
+                int from = reachedFrom(transfers, boardStationId, depStationId, depMins,
+                        arrMins, connections.depMins(i));
+                if (from == -1) continue;
+                tripReached[tripId >>> 6] |= tripBit;
+                boardConnection[tripId] = i;
+                boardFrom[tripId] = from;
+            }
+
+            int arrStation = timeTable.stationId(connections.arrStopId(i));
+            int connArrMins = connections.arrMins(i);
+            if (connArrMins < arrMins[arrStation]) {
+                arrMins[arrStation] = connArrMins;
+                arrConnection[arrStation] = i;
+                int walk = walkToDest[arrStation];
+                if (walk != -1 && connArrMins + walk < bestArrMins) {
+                    bestArrMins = connArrMins + walk;
+                    bestStationId = arrStation;
+                }
+            }
+        }
+
+        if (bestStationId == -1) return Optional.empty();
+        return Optional.of(buildJourney(date, connections, trips, transfers, depStationId,
+                arrStationId, bestStationId, arrConnection, boardConnection, boardFrom));
+    }
+
+    /**
+     * Retourne la gare depuis laquelle il est possible de rejoindre à temps la gare de départ
+     * d'une liaison, ou -1 s'il n'y en a aucune.
+     * <p>
+     * La gare de départ du voyage est considérée comme atteinte à l'heure de départ, et il
+     * est possible d'y embarquer sans temps de changement.
+     * </p>
+     */
+    private static int reachedFrom(Transfers transfers, int stationId, int originId,
+                                   int originMins, int[] arrMins, int connDepMins) {
+        if (stationId == originId && originMins <= connDepMins) return originId;
+        int range = transfers.arrivingAt(stationId);
+        for (int j = PackedRange.startInclusive(range);
+             j < PackedRange.endExclusive(range); ++j) {
+            int from = transfers.depStationId(j);
+            int fromMins = from == originId ? originMins : arrMins[from];
+            if (fromMins == UNREACHED || from == originId && from == stationId) continue;
+            if (fromMins + transfers.minutes(j) <= connDepMins) return from;
+        }
+        return -1;
+    }
+
+    /**
+     * Reconstruit le voyage en remontant, depuis la dernière gare atteinte en véhicule, les
+     * courses empruntées et les changements effectués.
+     */
+    private Journey buildJourney(LocalDate date, Connections connections, Trips trips,
+                                 Transfers transfers, int originId, int destinationId,
+                                 int lastStationId, int[] arrConnection, int[] boardConnection,
+                                 int[] boardFrom) {
+        List<Journey.Leg> legs = new ArrayList<>();
+        StopTable stops = StopTable.of(timeTable);
+
+        int stationId = lastStationId;
+        while (true) {
+            int tripId = connections.tripId(arrConnection[stationId]);
+            Journey.Leg.Transport leg = transportLeg(stops, date, connections, trips,
+                    boardConnection, arrConnection[stationId]);
+
+            // Étape à pied finale, depuis la gare d'arrivée de la dernière course
+            if (stationId == lastStationId && stationId != destinationId) {
+                legs.add(JourneyExtractor.createFootLeg(stops, stationId, destinationId,
+                        leg.arrTime(), transfers));
+            }
+            legs.add(leg);
+
+            int boardStationId = timeTable.stationId(
+                    connections.depStopId(boardConnection[tripId]));
+            int from = boardFrom[tripId];
+            if (from == originId) {
+                // Étape à pied initiale, arrivant juste à temps pour le départ
+                if (from != boardStationId) {
+                    int walk = transfers.minutesBetween(from, boardStationId);
+                    legs.add(JourneyExtractor.createFootLeg(stops, from, boardStationId,
+                            leg.depTime().minusMinutes(walk), transfers));
+                }
+                break;
+            }
+
+            // Changement entre la course précédente et la course courante
+            LocalDateTime previousArrTime = JourneyExtractor.createTime(
+                    connections.arrMins(arrConnection[from]), date);
+            legs.add(JourneyExtractor.createFootLeg(stops, from, boardStationId,
+                    previousArrTime, transfers));
+            stationId = from;
+        }
+
+        Collections.reverse(legs);
+        return new Journey(legs);
+    }
+
+    /**
+     * Crée l'étape en transport public se terminant par la liaison donnée, depuis la liaison
+     * par laquelle sa course a été empruntée.
+     */
+    private Journey.Leg.Transport transportLeg(StopTable stops, LocalDate date,
+                                               Connections connections, Trips trips,
+                                               int[] boardConnection, int alightId) {
+        int boardId = boardConnection[connections.tripId(alightId)];
+        return JourneyExtractor.createTransportLeg(timeTable, stops, date, connections, trips,
+                boardId, connections.tripPos(alightId) - connections.tripPos(boardId));
+    }
+}
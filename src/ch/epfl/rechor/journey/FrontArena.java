@@ -0,0 +1,211 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Arène réutilisable stockant les frontières des gares et des courses d'un profil en
+ * construction.
+ * <p>
+ * Les tuples de toutes les frontières sont placés dans de grands tableaux de type
+ * {@code long[]} (les « plaques »), dans lesquels chaque frontière occupe un segment défini
+ * par sa position et sa capacité. Un segment devenu trop petit est abandonné au profit d'un
+ * nouveau, pris à la suite des segments déjà alloués ; l'espace abandonné n'est récupéré que
+ * lors de la réinitialisation de l'arène.
+ * </p>
+ * <p>
+ * La réinitialisation ne parcourt ni les plaques ni les frontières : elle incrémente une
+ * époque, et chaque frontière n'est vidée qu'au moment où elle est utilisée pour la première
+ * fois depuis, si son époque diffère de celle de l'arène. Les plaques et les bâtisseurs sont
+ * conservés d'un calcul à l'autre, si bien qu'un calcul réutilisant une arène n'alloue
+ * pratiquement plus rien une fois celle-ci à la bonne taille.
+ * </p>
+ * <p>
+ * Une arène ne peut être utilisée que par un fil de calcul et un profil à la fois. Les
+ * routeurs conservent leurs arènes libres dans un {@link Pool}, d'où chaque calcul en
+ * emprunte une, quel que soit le fil qui l'effectue.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+final class FrontArena {
+    /** Taille, en nombre de tuples, d'une plaque. */
+    static final int SLAB_SIZE = 1 << 16;
+
+    private final List<long[]> slabs = new ArrayList<>();
+    private int slabIndex;
+    private int position;
+
+    private ParetoFront.Builder[] stationFronts = new ParetoFront.Builder[0];
+    private ParetoFront.Builder[] tripFronts = new ParetoFront.Builder[0];
+    private int[] stationEpochs = new int[0];
+    private int[] tripEpochs = new int[0];
+    private int epoch;
+
+    /**
+     * Réserve d'arènes libres, de taille bornée, partagée par les calculs d'un routeur.
+     * <p>
+     * Une arène empruntée au moyen de {@link #acquire()} doit être rendue au moyen de
+     * {@link #release(FrontArena)} une fois le profil construit ; elle peut alors être
+     * réutilisée par n'importe quel calcul, sur n'importe quel fil. Au plus {@code capacity}
+     * arènes sont conservées : celles rendues au-delà sont abandonnées au ramasse-miettes.
+     * </p>
+     */
+    static final class Pool {
+        private final BlockingQueue<FrontArena> free;
+
+        /**
+         * Construit une réserve conservant au plus une arène par cœur disponible.
+         */
+        Pool() {
+            this(Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * Construit une réserve conservant au plus le nombre d'arènes donné.
+         *
+         * @param capacity le nombre maximal d'arènes conservées
+         * @throws IllegalArgumentException si la capacité n'est pas strictement positive
+         */
+        Pool(int capacity) {
+            Preconditions.checkArgument(capacity > 0);
+            this.free = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Retourne une arène libre, retirée de la réserve jusqu'à ce qu'elle y soit rendue.
+         * Si la réserve est vide, une nouvelle arène est créée.
+         *
+         * @return une arène libre
+         */
+        FrontArena acquire() {
+            FrontArena arena = free.poll();
+            return arena != null ? arena : new FrontArena();
+        }
+
+        /**
+         * Rend à la réserve l'arène donnée, qui ne doit plus être utilisée par l'appelant.
+         * L'arène est abandonnée si la réserve est pleine.
+         *
+         * @param arena l'arène rendue
+         */
+        void release(FrontArena arena) {
+            free.offer(arena);
+        }
+    }
+
+    /**
+     * Retourne la plaque d'index donné.
+     */
+    long[] slab(int index) {
+        return slabs.get(index);
+    }
+
+    /**
+     * Réinitialise l'arène pour un nouveau profil, dont toutes les frontières sont vides.
+     *
+     * @param stationCount le nombre de gares
+     * @param tripCount    le nombre de courses
+     */
+    void reset(int stationCount, int tripCount) {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stationEpochs, 0);
+            Arrays.fill(tripEpochs, 0);
+            epoch = 0;
+        }
+        ++epoch;
+        slabIndex = 0;
+        position = 0;
+        if (stationFronts.length < stationCount) {
+            stationFronts = Arrays.copyOf(stationFronts, stationCount);
+            stationEpochs = Arrays.copyOf(stationEpochs, stationCount);
+        }
+        if (tripFronts.length < tripCount) {
+            tripFronts = Arrays.copyOf(tripFronts, tripCount);
+            tripEpochs = Arrays.copyOf(tripEpochs, tripCount);
+        }
+    }
+
+    /**
+     * Retourne la frontière de la gare d'index donné, vidée si elle ne l'a pas encore été
+     * depuis la dernière réinitialisation.
+     */
+    ParetoFront.Builder station(int stationId) {
+        return current(stationFronts, stationEpochs, stationId);
+    }
+
+    /**
+     * Retourne la frontière de la course d'index donné, vidée si elle ne l'a pas encore été
+     * depuis la dernière réinitialisation.
+     */
+    ParetoFront.Builder trip(int tripId) {
+        return current(tripFronts, tripEpochs, tripId);
+    }
+
+    /**
+     * Remplace la frontière de la gare d'index donné.
+     */
+    void setStation(int stationId, ParetoFront.Builder builder) {
+        stationFronts[stationId] = builder;
+        stationEpochs[stationId] = epoch;
+    }
+
+    /**
+     * Remplace la frontière de la course d'index donné.
+     */
+    void setTrip(int tripId, ParetoFront.Builder builder) {
+        tripFronts[tripId] = builder;
+        tripEpochs[tripId] = epoch;
+    }
+
+    private ParetoFront.Builder current(ParetoFront.Builder[] fronts, int[] epochs, int i) {
+        ParetoFront.Builder front = fronts[i];
+        if (epochs[i] != epoch) {
+            if (front == null) {
+                front = new ParetoFront.Builder(this);
+                fronts[i] = front;
+            } else {
+                front.release();
+            }
+            epochs[i] = epoch;
+        }
+        return front;
+    }
+
+    /**
+     * Attribue au bâtisseur donné un segment de la capacité donnée, dans lequel ses tuples
+     * sont copiés. Si le segment actuel du bâtisseur est le dernier alloué, il est agrandi
+     * sur place lorsque la plaque le permet.
+     *
+     * @param builder     le bâtisseur dont la frontière doit être agrandie
+     * @param storage     le tableau contenant le segment actuel du bâtisseur
+     * @param offset      la position du segment actuel
+     * @param oldCapacity la capacité du segment actuel
+     * @param capacity    la capacité requise
+     */
+    void allocate(ParetoFront.Builder builder, long[] storage, int offset, int oldCapacity,
+                  int capacity) {
+        if (capacity > SLAB_SIZE) {
+            builder.relocate(new long[capacity], 0, capacity);
+            return;
+        }
+        if (slabIndex < slabs.size() && storage == slabs.get(slabIndex)
+                && offset + oldCapacity == position && offset + capacity <= SLAB_SIZE) {
+            builder.relocate(storage, offset, capacity);
+            position = offset + capacity;
+            return;
+        }
+        if (position + capacity > SLAB_SIZE) {
+            ++slabIndex;
+            position = 0;
+        }
+        if (slabIndex == slabs.size()) slabs.add(new long[SLAB_SIZE]);
+        builder.relocate(slabs.get(slabIndex), position, capacity);
+        position += capacity;
+    }
+}
@@ -5,9 +5,19 @@ import ch.epfl.rechor.timetable.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
 
 import static ch.epfl.rechor.Bits32_24_8.unpack24;
 import static ch.epfl.rechor.Bits32_24_8.unpack8;
@@ -22,6 +32,13 @@ import static ch.epfl.rechor.journey.PackedCriteria.*;
  */
 public class JourneyExtractor {
 
+    // Ordre des voyages : par heure de départ, puis par heure d'arrivée
+    private static final Comparator<JourneySummary> SUMMARY_ORDER =
+            Comparator.comparing(JourneySummary::depTime).thenComparing(JourneySummary::arrTime);
+
+    // Nombre de groupes de stations de départ par cœur lors d'une extraction en parallèle
+    private static final int BULK_GROUPS_PER_CORE = 4;
+
     private JourneyExtractor() {
     }
 
@@ -33,217 +50,416 @@ public class JourneyExtractor {
      * @return Une liste de voyages possibles entre la station de départ et la destination du profil
      */
     public static List<Journey> journeys(Profile profile, int depStationId) {
-        // Liste pour stocker les voyages extraits
-        List<Journey> journeys = new ArrayList<>();
+        return toJourneys(summaries(profile, depStationId));
+    }
 
-        // Récupération des informations du profil
-        int arrStationId = profile.arrStationId();
-        ParetoFront initialPf = profile.forStation(depStationId);
+    /**
+     * Extrait les résumés des voyages d'un profil partant de la station de départ donnée,
+     * sans construire leurs étapes (voir {@link JourneySummary}).
+     *
+     * @param profile      Le profil contenant les données de voyage optimales
+     * @param depStationId L'identifiant de la station de départ
+     * @return Les résumés des voyages possibles entre la station de départ et la destination
+     * du profil, triés par heure de départ, puis par heure d'arrivée
+     */
+    public static List<JourneySummary> summaries(Profile profile, int depStationId) {
         TimeTable tt = profile.timeTable();
         LocalDate date = profile.date();
 
-        // Récupération des composants nécessaires de l'horaire
+        // Frontières des stations déjà consultées, conservées avec leur index
+        Map<Integer, ParetoFront> fronts = new HashMap<>();
+        return summaries(profile, depStationId, tt.connectionsFor(date), tt.tripsFor(date),
+                StopTable.of(tt),
+                stationId -> fronts.computeIfAbsent(stationId, profile::forStation));
+    }
+
+    /**
+     * Extrait en parallèle les voyages d'un profil partant de chacune des stations de départ
+     * données, en utilisant un fil de calcul par cœur disponible.
+     *
+     * @param profile       Le profil contenant les données de voyage optimales
+     * @param depStationIds Les identifiants des stations de départ
+     * @param consumer      Le consommateur recevant les voyages partant de chaque station,
+     *                      avec l'identifiant de celle-ci
+     * @see #journeys(Profile, int[], Executor, ObjIntConsumer)
+     */
+    public static void journeys(Profile profile, int[] depStationIds,
+                                ObjIntConsumer<List<Journey>> consumer) {
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+            journeys(profile, depStationIds, pool, consumer);
+        }
+    }
+
+    /**
+     * Extrait les voyages d'un profil partant de chacune des stations de départ données en
+     * utilisant l'exécuteur donné, et les transmet au consommateur au fur et à mesure.
+     * <p>
+     * Le résultat transmis pour chaque station est identique à celui de
+     * {@link #journeys(Profile, int)}. Voir {@link #summaries(Profile, int[], Executor,
+     * ObjIntConsumer)} pour les données partagées par les extractions et les appels du
+     * consommateur.
+     * </p>
+     *
+     * @param profile       Le profil contenant les données de voyage optimales
+     * @param depStationIds Les identifiants des stations de départ
+     * @param executor      L'exécuteur sur lequel les extractions sont lancées
+     * @param consumer      Le consommateur recevant les voyages partant de chaque station,
+     *                      avec l'identifiant de celle-ci
+     */
+    public static void journeys(Profile profile, int[] depStationIds, Executor executor,
+                                ObjIntConsumer<List<Journey>> consumer) {
+        summaries(profile, depStationIds, executor,
+                (summaries, depStationId) -> consumer.accept(toJourneys(summaries), depStationId));
+    }
+
+    /**
+     * Extrait les résumés des voyages d'un profil partant de chacune des stations de départ
+     * données en utilisant l'exécuteur donné, et les transmet au consommateur au fur et à
+     * mesure.
+     * <p>
+     * Le résultat transmis pour chaque station est identique à celui de
+     * {@link #summaries(Profile, int)}. Les liaisons et les courses du jour ne sont obtenues
+     * qu'une seule fois, chaque frontière du profil n'est obtenue (et indexée) qu'une
+     * seule fois pour toutes les extractions, et les arrêts des voyages sont partagés par
+     * toutes les extractions. Les stations sont traitées par groupes afin de
+     * limiter le nombre de tâches, tout en gardant assez de groupes pour occuper chaque cœur.
+     * Le consommateur est appelé depuis les fils de l'exécuteur et doit donc pouvoir l'être de
+     * manière concurrente.
+     * </p>
+     * <p>
+     * La méthode bloque jusqu'à ce que toutes les extractions soient terminées.
+     * </p>
+     *
+     * @param profile       Le profil contenant les données de voyage optimales
+     * @param depStationIds Les identifiants des stations de départ
+     * @param executor      L'exécuteur sur lequel les extractions sont lancées
+     * @param consumer      Le consommateur recevant les résumés des voyages partant de chaque
+     *                      station, avec l'identifiant de celle-ci
+     * @throws IndexOutOfBoundsException si l'un des identifiants est invalide
+     */
+    public static void summaries(Profile profile, int[] depStationIds, Executor executor,
+                                 ObjIntConsumer<List<JourneySummary>> consumer) {
+        TimeTable tt = profile.timeTable();
+        LocalDate date = profile.date();
         Connections connections = tt.connectionsFor(date);
         Trips trips = tt.tripsFor(date);
-        Routes routes = tt.routes();
-        Stations stations = tt.stations();
-        Platforms platforms = tt.platforms();
-        Transfers transfers = tt.transfers();
+        StopTable stops = StopTable.of(tt);
+        int stationCount = profile.stationFront().size();
+        for (int depStationId : depStationIds) Objects.checkIndex(depStationId, stationCount);
+
+        // Frontières partagées par toutes les extractions
+        AtomicReferenceArray<ParetoFront> fronts = new AtomicReferenceArray<>(stationCount);
+        IntFunction<ParetoFront> frontOf = stationId -> {
+            ParetoFront front = fronts.getAcquire(stationId);
+            if (front == null) {
+                front = profile.forStation(stationId);
+                fronts.setRelease(stationId, front);
+            }
+            return front;
+        };
+
+        int groupCount = Math.min(depStationIds.length,
+                BULK_GROUPS_PER_CORE * Runtime.getRuntime().availableProcessors());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; ++g) {
+            int from = (int) ((long) depStationIds.length * g / groupCount);
+            int to = (int) ((long) depStationIds.length * (g + 1) / groupCount);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; ++i) {
+                    int depStationId = depStationIds[i];
+                    consumer.accept(
+                            summaries(profile, depStationId, connections, trips, stops, frontOf),
+                            depStationId);
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Extrait les résumés des voyages d'un profil partant de la station de départ donnée, en
+     * obtenant les frontières des stations au moyen de la fonction donnée et les arrêts des
+     * voyages au moyen de la table donnée.
+     */
+    private static List<JourneySummary> summaries(Profile profile, int depStationId,
+                                                  Connections connections, Trips trips,
+                                                  StopTable stops,
+                                                  IntFunction<ParetoFront> fronts) {
+        // Liste pour stocker les résumés extraits
+        List<JourneySummary> summaries = new ArrayList<>();
+
+        // Récupération des informations du profil
+        int arrStationId = profile.arrStationId();
+        ParetoFront initialPf = fronts.apply(depStationId);
+        TimeTable tt = profile.timeTable();
+        LocalDate date = profile.date();
 
         // Traitement de chaque critère dans la frontière de Pareto
         initialPf.forEach((long criteria) -> {
-            // Pour chaque critère, on crée un nouveau voyage avec une liste d'étapes vide
-            List<Journey.Leg> legs = new ArrayList<>();
-
-            // Extraction des informations du critère
-            int depTime = depMins(criteria);              // Heure de départ en minutes
-            int targetArrTime = arrMins(criteria);        // Heure d'arrivée cible en minutes
-            int remainingChanges = changes(criteria);     // Nombre de changements restants
-
-            // Extraction et validation des données de la charge utile (payload)
-            int payload = payload(criteria);
-
-            // Extraction de l'ID de connexion (24 bits) et validation
-            int connectionID = unpack24(payload);
-
-            // Extraction du nombre d'arrêts intermédiaires (8 bits) et validation
-            int nbOfIntermediateStops = unpack8(payload);
-
-            // Configuration initiale pour la création du voyage
-            int firstStopId = connections.depStopId(connectionID);
-            int currentStationId = depStationId;
-            int firstStationID = tt.stationId(firstStopId);
-
-            // Détermination si un transfert à pied initial est nécessaire
-            // Deux cas possibles:
-            // 1. La station de départ n'est pas la même que la station de la première connexion
-            // 2. Le premier arrêt est un quai (et non une station)
-            boolean needsInitialFootTransfer = currentStationId != firstStationID;
-
-            // Ajout d'une étape à pied initiale si nécessaire
-            if (needsInitialFootTransfer) {
-                legs.add(createFootLeg(profile, currentStationId, firstStationID,
-                        createTime(depTime, date), transfers));
-                currentStationId = firstStationID; // Mise à jour de la station courante
-            }
+            // Étapes en transport du voyage, empaquetées comme la charge utile des critères
+            int[] legs = new int[changes(criteria) + 1];
+            int legCount = transportLegs(tt, arrStationId, connections, fronts, criteria, legs);
 
-            // Boucle principale: traitement de chaque connexion
-            while (remainingChanges >= 0) {
-                // Récupération des détails de la connexion
-                int depStopId = connections.depStopId(connectionID);
-                int arrStopId = connections.arrStopId(connectionID);
-                int tripId = connections.tripId(connectionID);
-                int routeId = trips.routeId(tripId);
-
-                // Récupération des informations sur la route, le véhicule et la destination
-                String route = routes.name(routeId);
-                Vehicle vehicle = routes.vehicle(routeId);
-                String destination = trips.destination(tripId);
-
-                // Traitement des arrêts intermédiaires
-                List<Journey.Leg.IntermediateStop> intermediateStops = new ArrayList<>();
-                int nextConnectionId = connectionID;
-
-                // Création exactement du nombre d'arrêts intermédiaires spécifié dans le payload
-                for (int j = 0; j < nbOfIntermediateStops; j++) {
-                    // Récupération des informations sur l'arrêt intermédiaire
-                    int interStopId = connections.arrStopId(nextConnectionId);
-
-                    LocalDateTime interArrTime = createTime(connections.arrMins(nextConnectionId)
-                            , date);
-
-                    int tempNextConnectionId = connections.nextConnectionId(nextConnectionId);
-                    if (tempNextConnectionId != -1) {
-                        nextConnectionId = tempNextConnectionId;
-                    } else {
-                        // Si pas de connexion suivante, on sort de la boucle
-                        break;
-                    }
-
-                    LocalDateTime interDepTime = createTime(connections.depMins(nextConnectionId)
-                            , date);
-
-                    // Création d'un objet Stop pour la station intermédiaire
-                    int stationId = tt.stationId(interStopId);
-                    String stationName = tt.stations().name(stationId);
-                    String platformName = tt.platformName(interStopId);
-                    double longitude = tt.stations().longitude(stationId);
-                    double latitude = tt.stations().latitude(stationId);
-
-                    Stop intermediateStop = new Stop(stationName, platformName, longitude,
-                            latitude);
-
-                    // Gestion des heures d'arrivée/départ pour respecter la contrainte:
-                    // l'heure d'arrivée doit être avant l'heure de départ
-                    if (interArrTime.isAfter(interDepTime)) {
-                        // Échange des heures pour éviter une exception lors de la création de
-                        // IntermediateStop
-                        LocalDateTime temp = interArrTime;
-                        interArrTime = interDepTime;
-                        interDepTime = temp;
-                    }
-
-                    // Ajout de l'arrêt intermédiaire à la liste
-                    intermediateStops.add(new Journey.Leg.IntermediateStop(
-                            intermediateStop,
-                            interArrTime,
-                            interDepTime
-                    ));
-
-                    // Mise à jour de l'arrêt d'arrivée pour la connexion suivante
-                    arrStopId = connections.arrStopId(nextConnectionId);
-                }
+            summaries.add(new JourneySummary(tt, date, connections, trips, stops,
+                    depStationId, arrStationId, depMins(criteria),
+                    Arrays.copyOf(legs, legCount)));
+        });
 
-                // Création des heures de départ et d'arrivée pour l'étape de transport
-                LocalDateTime tripDepTime = createTime(connections.depMins(connectionID), date);
-                LocalDateTime tripArrTime = createTime(connections.arrMins(nextConnectionId), date);
+        // Tri des voyages par heure de départ, puis par heure d'arrivée
+        summaries.sort(SUMMARY_ORDER);
+        return summaries;
+    }
 
-                // Création des objets Stop pour le départ et l'arrivée
-                Stop depStop = createStop(tt, stations, platforms, depStopId);
-                Stop arrStop = createStop(tt, stations, platforms, arrStopId);
+    /**
+     * Reconstitue les étapes en transport du voyage optimal d'un profil correspondant aux
+     * critères donnés, en suivant les frontières des stations où il change de véhicule.
+     *
+     * @param tt           l'horaire
+     * @param arrStationId l'identifiant de la station d'arrivée du profil
+     * @param connections  les liaisons du jour
+     * @param fronts       la fonction donnant la frontière de chaque station
+     * @param criteria     les critères du voyage, dans la frontière de sa station de départ
+     * @param legs         le tableau recevant les charges utiles des étapes, d'au moins
+     *                     {@code changes(criteria) + 1} éléments
+     * @return le nombre d'étapes en transport du voyage
+     */
+    static int transportLegs(TimeTable tt, int arrStationId, Connections connections,
+                             IntFunction<ParetoFront> fronts, long criteria, int[] legs) {
+        int legCount = 0;
+        int targetArrTime = arrMins(criteria);        // Heure d'arrivée cible en minutes
+        int remainingChanges = changes(criteria);     // Nombre de changements restants
+        int payload = payload(criteria);
+
+        // Boucle principale: traitement de chaque connexion
+        while (true) {
+            legs[legCount++] = payload;
+            int currentStationId = tt.stationId(connections.arrStopId(
+                    lastConnectionId(connections, unpack24(payload), unpack8(payload))));
+
+            // Arrivée directe à la station de destination
+            if (currentStationId == arrStationId) break;
+
+            // Recherche du critère de la prochaine connexion dans l'index de la
+            // frontière de la station courante ; son absence signifie que le voyage
+            // se termine à pied
+            remainingChanges--;
+            if (remainingChanges < 0) break;
+            ParetoFront nextStationFront = fronts.apply(currentStationId);
+            int nextIndex = nextStationFront.indexOf(targetArrTime, remainingChanges);
+            if (nextIndex < 0) break;
+            payload = payload(nextStationFront.tupleAt(nextIndex));
+        }
+        return legCount;
+    }
 
-                // Création et ajout de l'étape de transport
-                Journey.Leg leg = new Journey.Leg.Transport(depStop, tripDepTime, arrStop,
-                        tripArrTime, intermediateStops, vehicle, route, destination);
-                legs.add(leg);
+    /**
+     * Extrait une liste de voyages à partir d'un profil inverse et d'un identifiant de
+     * station d'arrivée.
+     * <p>
+     * Les voyages sont reconstruits depuis la fin : chaque tuple désigne la dernière étape en
+     * transport public, et l'étape précédente est retrouvée dans la frontière de la station
+     * d'embarquement grâce à l'heure de départ, identique tout au long du voyage.
+     * </p>
+     *
+     * @param profile      Le profil inverse contenant les données de voyage optimales
+     * @param arrStationId L'identifiant de la station d'arrivée
+     * @return Une liste de voyages possibles entre la station de départ du profil et la
+     * station d'arrivée
+     */
+    public static List<Journey> journeys(ReverseProfile profile, int arrStationId) {
+        return toJourneys(summaries(profile, arrStationId));
+    }
 
-                // Mise à jour de la station courante
-                currentStationId = tt.stationId(arrStopId);
+    /**
+     * Extrait les résumés des voyages d'un profil inverse arrivant à la station d'arrivée
+     * donnée, sans construire leurs étapes (voir {@link JourneySummary}).
+     *
+     * @param profile      Le profil inverse contenant les données de voyage optimales
+     * @param arrStationId L'identifiant de la station d'arrivée
+     * @return Les résumés des voyages possibles entre la station de départ du profil et la
+     * station d'arrivée, triés par heure de départ, puis par heure d'arrivée
+     */
+    public static List<JourneySummary> summaries(ReverseProfile profile, int arrStationId) {
+        List<JourneySummary> summaries = new ArrayList<>();
 
+        int depStationId = profile.depStationId();
+        TimeTable tt = profile.timeTable();
+        LocalDate date = profile.date();
 
-                // Traitement de l'arrivée et des transferts
-                if (currentStationId != arrStationId) {
-                    remainingChanges--;
+        Connections connections = tt.connectionsFor(date);
+        Trips trips = tt.tripsFor(date);
+        StopTable stops = StopTable.of(tt);
+
+        profile.forStation(arrStationId).forEach((long criteria) -> {
+            // Étapes en transport du voyage, de la dernière à la première
+            int[] legs = new int[changes(criteria) + 1];
+            int legCount = 0;
+
+            int depTime = depMins(criteria);
+            long currentCriteria = criteria;
+            while (true) {
+                legs[legCount++] = payload(currentCriteria);
+                int remainingChanges = changes(currentCriteria);
+                if (remainingChanges == 0) break;
+
+                int boardStationId = tt.stationId(
+                        connections.depStopId(unpack24(payload(currentCriteria))));
+                currentCriteria = profile.forStation(boardStationId)
+                        .getByDepMins(depTime, remainingChanges - 1);
+            }
 
-                    // Préparation pour la prochaine connexion
-                    ParetoFront nextStationFront = profile.forStation(currentStationId);
+            int[] orderedLegs = new int[legCount];
+            for (int i = 0; i < legCount; i++) orderedLegs[i] = legs[legCount - 1 - i];
+            summaries.add(new JourneySummary(tt, date, connections, trips, stops,
+                    depStationId, arrStationId, depTime, orderedLegs));
+        });
 
+        // Tri des voyages par heure de départ, puis par heure d'arrivée
+        summaries.sort(SUMMARY_ORDER);
+        return summaries;
+    }
 
-                    // Protection contre les potentielles exceptions NoSuchElementException
-                    // nécéssaire ??? 
-                    try {
-                        long nextCriteria;
+    /**
+     * Construit les voyages complets correspondant aux résumés donnés, dans le même ordre.
+     */
+    private static List<Journey> toJourneys(List<JourneySummary> summaries) {
+        List<Journey> journeys = new ArrayList<>(summaries.size());
+        for (JourneySummary summary : summaries) journeys.add(summary.journey());
+        return journeys;
+    }
 
-                        nextCriteria = nextStationFront.get(targetArrTime, remainingChanges);
-                        // Mise à jour des données pour la prochaine connexion
-                        depTime = depMins(nextCriteria);
-                        connectionID = unpack24(payload(nextCriteria));
-                        nbOfIntermediateStops = unpack8(payload(nextCriteria));
+    /**
+     * Crée une étape en transport public commençant par la liaison donnée et comportant le
+     * nombre d'arrêts intermédiaires donné.
+     *
+     * @param tt                    Horaire contenant les données des lignes
+     * @param stops                 Table des arrêts de l'horaire
+     * @param date                  Date du voyage
+     * @param connections           Liaisons du jour
+     * @param trips                 Courses du jour
+     * @param firstConnectionId     ID de la première liaison de l'étape
+     * @param nbOfIntermediateStops Nombre d'arrêts intermédiaires de l'étape
+     * @return Une étape en transport public (Transport leg)
+     */
+    static Journey.Leg.Transport createTransportLeg(TimeTable tt, StopTable stops,
+                                                    LocalDate date,
+                                                    Connections connections, Trips trips,
+                                                    int firstConnectionId,
+                                                    int nbOfIntermediateStops) {
+        Routes routes = tt.routes();
 
-                        int nextDepStopId = connections.depStopId(connectionID);
-                        int nextDepStationId = tt.stationId(nextDepStopId);
+        // Récupération des détails de la connexion
+        int depStopId = connections.depStopId(firstConnectionId);
+        int arrStopId = connections.arrStopId(firstConnectionId);
+        int tripId = connections.tripId(firstConnectionId);
+        int routeId = trips.routeId(tripId);
+
+        // Récupération des informations sur la route, le véhicule et la destination
+        String route = routes.name(routeId);
+        Vehicle vehicle = routes.vehicle(routeId);
+        String destination = trips.destination(tripId);
+
+        // Traitement des arrêts intermédiaires
+        List<Journey.Leg.IntermediateStop> intermediateStops = new ArrayList<>();
+        int nextConnectionId = firstConnectionId;
+
+        // Création exactement du nombre d'arrêts intermédiaires spécifié dans le payload
+        for (int j = 0; j < nbOfIntermediateStops; j++) {
+            // Récupération des informations sur l'arrêt intermédiaire
+            int interStopId = connections.arrStopId(nextConnectionId);
+
+            LocalDateTime interArrTime = createTime(connections.arrMins(nextConnectionId), date);
+
+            int tempNextConnectionId = connections.nextConnectionId(nextConnectionId);
+            if (tempNextConnectionId != -1) {
+                nextConnectionId = tempNextConnectionId;
+            } else {
+                // Si pas de connexion suivante, on sort de la boucle
+                break;
+            }
 
-                        // Ajout d'une étape à pied vers la destination finale
-                        legs.add(createFootLeg(profile, currentStationId, nextDepStationId,
-                                tripArrTime, transfers));
+            LocalDateTime interDepTime = createTime(connections.depMins(nextConnectionId), date);
 
+            // Obtention de l'objet Stop de la station intermédiaire
+            Stop intermediateStop = stops.stop(interStopId);
 
-                        // Conversion de l'ID d'arrêt en ID de station
-                        currentStationId = nextDepStationId;
+            // Gestion des heures d'arrivée/départ pour respecter la contrainte:
+            // l'heure d'arrivée doit être avant l'heure de départ
+            if (interArrTime.isAfter(interDepTime)) {
+                // Échange des heures pour éviter une exception lors de la création de
+                // IntermediateStop
+                LocalDateTime temp = interArrTime;
+                interArrTime = interDepTime;
+                interDepTime = temp;
+            }
 
-                    } catch (NoSuchElementException e) {
-                        // Si aucun critère n'est trouvé, on termine ce voyage
-                        legs.add(createFootLeg(profile, currentStationId, arrStationId,
-                                tripArrTime, transfers));
-                        journeys.add(new Journey(legs));
-                        break;
-                    }
+            // Ajout de l'arrêt intermédiaire à la liste
+            intermediateStops.add(new Journey.Leg.IntermediateStop(
+                    intermediateStop,
+                    interArrTime,
+                    interDepTime
+            ));
 
-                } else {
-                    // Si nous sommes directement à la station de destination
-                    journeys.add(new Journey(legs));
-                    break;
-                }
-            }
+            // Mise à jour de l'arrêt d'arrivée pour la connexion suivante
+            arrStopId = connections.arrStopId(nextConnectionId);
+        }
 
+        // Création des heures de départ et d'arrivée pour l'étape de transport
+        LocalDateTime tripDepTime = createTime(connections.depMins(firstConnectionId), date);
+        LocalDateTime tripArrTime = createTime(connections.arrMins(nextConnectionId), date);
 
-        });
+        // Obtention des objets Stop pour le départ et l'arrivée
+        Stop depStop = stops.stop(depStopId);
+        Stop arrStop = stops.stop(arrStopId);
 
-        // Tri des voyages par heure de départ, puis par heure d'arrivée
-        journeys.sort(Comparator.comparing(Journey::depTime).thenComparing(Journey::arrTime));
+        return new Journey.Leg.Transport(depStop, tripDepTime, arrStop, tripArrTime,
+                intermediateStops, vehicle, route, destination);
+    }
 
-        return journeys;
+    /**
+     * Retourne l'ID de la dernière liaison d'une étape commençant par la liaison donnée et
+     * comportant le nombre d'arrêts intermédiaires donné.
+     *
+     * @param connections           Liaisons du jour
+     * @param firstConnectionId     ID de la première liaison de l'étape
+     * @param nbOfIntermediateStops Nombre d'arrêts intermédiaires de l'étape
+     * @return L'ID de la dernière liaison de l'étape
+     */
+    static int lastConnectionId(Connections connections, int firstConnectionId,
+                                int nbOfIntermediateStops) {
+        // Les liaisons décodées disposent d'un index des liaisons de chaque course
+        if (connections instanceof DecodedConnections decoded) {
+            return decoded.connectionAfter(firstConnectionId, nbOfIntermediateStops);
+        }
+        int connectionId = firstConnectionId;
+        for (int j = 0; j < nbOfIntermediateStops; j++) {
+            connectionId = connections.nextConnectionId(connectionId);
+        }
+        return connectionId;
     }
 
     /**
      * Crée une étape à pied entre deux stations.
      *
-     * @param profile       Profil contenant les données de l'horaire
+     * @param stops         Table des arrêts de l'horaire
      * @param fromStationId ID de la station de départ
      * @param toStationId   ID de la station d'arrivée
      * @param depTime       Heure de départ
      * @param transfers     Données sur les transferts entre stations
      * @return Une étape à pied (Foot leg)
      */
-    private static Journey.Leg.Foot createFootLeg(Profile profile, int fromStationId,
-                                                  int toStationId, LocalDateTime depTime,
-                                                  Transfers transfers) {
-        Stations stations = profile.timeTable().stations();
-        Platforms platforms = profile.timeTable().platforms();
-
-        // Création des objets Stop pour le départ et l'arrivée
-        Stop depStop = createStop(profile.timeTable(), stations, platforms, fromStationId);
-        Stop arrStop = createStop(profile.timeTable(), stations, platforms, toStationId);
+    static Journey.Leg.Foot createFootLeg(StopTable stops, int fromStationId,
+                                          int toStationId, LocalDateTime depTime,
+                                          Transfers transfers) {
+        // Obtention des objets Stop pour le départ et l'arrivée
+        Stop depStop = stops.stop(fromStationId);
+        Stop arrStop = stops.stop(toStationId);
 
         // Récupération du temps de marche entre stations
         int walkingMinutes;
@@ -256,30 +472,6 @@ public class JourneyExtractor {
         return new Journey.Leg.Foot(depStop, depTime, arrStop, arrTime);
     }
 
-    /**
-     * Crée un objet Stop à partir d'un ID d'arrêt.
-     *
-     * @param tt        Horaire contenant les données des stations et plateformes
-     * @param stations  Stations indexées
-     * @param platforms Plateformes indexées
-     * @param stopId    ID de l'arrêt
-     * @return Un objet Stop représentant l'arrêt
-     */
-    private static Stop createStop(TimeTable tt, Stations stations, Platforms platforms,
-                                   int stopId) {
-        // Utilisation des méthodes de l'interface TimeTable pour gérer les stopIds
-        int stationId = tt.stationId(stopId);
-        String platformName = tt.platformName(stopId);
-
-        // Création et retour de l'objet Stop
-        return new Stop(
-                stations.name(stationId),
-                platformName,
-                stations.longitude(stationId),
-                stations.latitude(stationId)
-        );
-    }
-
     /**
      * Convertit un temps en minutes après minuit en LocalDateTime.
      *
@@ -287,7 +479,7 @@ public class JourneyExtractor {
      * @param date              Date de référence
      * @return LocalDateTime représentant le temps spécifié
      */
-    private static LocalDateTime createTime(int timeAfterMidnight, LocalDate date) {
+    static LocalDateTime createTime(int timeAfterMidnight, LocalDate date) {
         return date.atStartOfDay().plusMinutes(timeAfterMidnight);
     }
 }
@@ -0,0 +1,241 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+import ch.epfl.rechor.timetable.Trips;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static ch.epfl.rechor.Bits32_24_8.unpack24;
+import static ch.epfl.rechor.Bits32_24_8.unpack8;
+import static ch.epfl.rechor.journey.JourneyExtractor.*;
+
+/**
+ * Résumé d'un voyage, ne contenant que ses étapes en transport public sous forme empaquetée,
+ * et dont le voyage complet n'est construit qu'à la demande.
+ * <p>
+ * Chaque étape en transport public est représentée, comme dans la charge utile des tuples
+ * d'un profil, par l'identifiant de sa première liaison (24 bits) et son nombre d'arrêts
+ * intermédiaires (8 bits). Les informations nécessaires à l'affichage d'une liste de voyages
+ * (heures de départ et d'arrivée, véhicules, lignes, changements) sont obtenues directement
+ * depuis l'horaire, sans créer les étapes, les arrêts et les heures de tous les arrêts
+ * intermédiaires. Le voyage complet, identique à celui construit par
+ * {@link JourneyExtractor}, est construit lors du premier appel à {@link #journey()}, puis
+ * conservé.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class JourneySummary {
+    private final TimeTable timeTable;
+    private final LocalDate date;
+    private final Connections connections;
+    private final Trips trips;
+    private final StopTable stops;
+    private final int depStationId;
+    private final int arrStationId;
+    private final int walkDepMins;
+    private final int[] legs;
+    private final int depMins;
+    private final int arrMins;
+    private volatile Journey journey;
+
+    /**
+     * Construit le résumé d'un voyage.
+     *
+     * @param timeTable    l'horaire
+     * @param date         la date du voyage
+     * @param connections  les liaisons du jour
+     * @param trips        les courses du jour
+     * @param stops        la table des arrêts de l'horaire
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @param walkDepMins  l'heure de départ de l'éventuelle étape à pied initiale, en minutes
+     *                     après minuit
+     * @param legs         les étapes en transport public, empaquetées comme la charge utile
+     *                     d'un tuple (non copiées)
+     * @throws IllegalArgumentException si le voyage ne comporte aucune étape en transport
+     */
+    JourneySummary(TimeTable timeTable, LocalDate date, Connections connections, Trips trips,
+                   StopTable stops, int depStationId, int arrStationId, int walkDepMins,
+                   int[] legs) {
+        Preconditions.checkArgument(legs.length > 0);
+        this.timeTable = timeTable;
+        this.date = date;
+        this.connections = connections;
+        this.trips = trips;
+        this.stops = stops;
+        this.depStationId = depStationId;
+        this.arrStationId = arrStationId;
+        this.walkDepMins = walkDepMins;
+        this.legs = legs;
+
+        int first = unpack24(legs[0]);
+        this.depMins = depStationId != timeTable.stationId(connections.depStopId(first))
+                ? walkDepMins
+                : connections.depMins(first);
+        int last = lastConnectionId(connections, unpack24(legs[legs.length - 1]),
+                unpack8(legs[legs.length - 1]));
+        int alightStationId = timeTable.stationId(connections.arrStopId(last));
+        this.arrMins = connections.arrMins(last) + (alightStationId != arrStationId
+                ? timeTable.transfers().minutesBetween(alightStationId, arrStationId)
+                : 0);
+    }
+
+    /**
+     * Retourne l'heure de départ du voyage.
+     *
+     * @return l'heure de départ
+     */
+    public LocalDateTime depTime() {
+        return createTime(depMins, date);
+    }
+
+    /**
+     * Retourne l'heure d'arrivée du voyage.
+     *
+     * @return l'heure d'arrivée
+     */
+    public LocalDateTime arrTime() {
+        return createTime(arrMins, date);
+    }
+
+    /**
+     * Retourne la durée du voyage.
+     *
+     * @return la durée
+     */
+    public Duration duration() {
+        return Duration.ofMinutes(arrMins - depMins);
+    }
+
+    /**
+     * Retourne le nombre de changements du voyage, c.-à-d. son nombre d'étapes en transport
+     * public moins un.
+     *
+     * @return le nombre de changements
+     */
+    public int changes() {
+        return legs.length - 1;
+    }
+
+    /**
+     * Retourne le véhicule de l'étape en transport public d'index donné.
+     *
+     * @param index l'index de l'étape parmi les étapes en transport public
+     * @return le véhicule
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public Vehicle vehicle(int index) {
+        return timeTable.routes().vehicle(routeId(index));
+    }
+
+    /**
+     * Retourne les véhicules des étapes en transport public, dans l'ordre du voyage.
+     *
+     * @return les véhicules
+     */
+    public List<Vehicle> vehicles() {
+        List<Vehicle> vehicles = new ArrayList<>(legs.length);
+        for (int i = 0; i < legs.length; i++) vehicles.add(vehicle(i));
+        return vehicles;
+    }
+
+    /**
+     * Retourne le nom de la ligne de l'étape en transport public d'index donné.
+     *
+     * @param index l'index de l'étape parmi les étapes en transport public
+     * @return le nom de la ligne
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public String route(int index) {
+        return timeTable.routes().name(routeId(index));
+    }
+
+    /**
+     * Retourne la destination de la course de l'étape en transport public d'index donné.
+     *
+     * @param index l'index de l'étape parmi les étapes en transport public
+     * @return la destination
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public String destination(int index) {
+        return trips.destination(tripId(index));
+    }
+
+    /**
+     * Retourne l'heure d'arrivée de l'étape en transport public d'index donné.
+     *
+     * @param index l'index de l'étape parmi les étapes en transport public
+     * @return l'heure d'arrivée de l'étape
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public LocalDateTime legArrTime(int index) {
+        Objects.checkIndex(index, legs.length);
+        int last = lastConnectionId(connections, unpack24(legs[index]), unpack8(legs[index]));
+        return createTime(connections.arrMins(last), date);
+    }
+
+    /**
+     * Retourne le voyage complet, construit lors du premier appel.
+     *
+     * @return le voyage
+     */
+    public Journey journey() {
+        Journey j = journey;
+        if (j == null) {
+            j = buildJourney();
+            journey = j;
+        }
+        return j;
+    }
+
+    /**
+     * Construit les étapes du voyage de la même manière que {@link JourneyExtractor} : une
+     * étape à pied initiale si la première course ne part pas de la gare de départ, une
+     * étape à pied entre deux courses, et une étape à pied finale si la dernière course
+     * n'arrive pas à la gare d'arrivée.
+     */
+    private Journey buildJourney() {
+        Transfers transfers = timeTable.transfers();
+
+        List<Journey.Leg> journeyLegs = new ArrayList<>(2 * legs.length + 1);
+        int stationId = depStationId;
+        LocalDateTime time = createTime(walkDepMins, date);
+        for (int i = 0; i < legs.length; i++) {
+            int connectionId = unpack24(legs[i]);
+            int intermediateStops = unpack8(legs[i]);
+            int boardStationId = timeTable.stationId(connections.depStopId(connectionId));
+            if (i > 0 || stationId != boardStationId) {
+                journeyLegs.add(createFootLeg(stops, stationId, boardStationId, time,
+                        transfers));
+            }
+            Journey.Leg.Transport leg = createTransportLeg(timeTable, stops, date, connections,
+                    trips, connectionId, intermediateStops);
+            journeyLegs.add(leg);
+            stationId = timeTable.stationId(connections.arrStopId(
+                    lastConnectionId(connections, connectionId, intermediateStops)));
+            time = leg.arrTime();
+        }
+        if (stationId != arrStationId) {
+            journeyLegs.add(createFootLeg(stops, stationId, arrStationId, time, transfers));
+        }
+        return new Journey(journeyLegs);
+    }
+
+    private int tripId(int index) {
+        Objects.checkIndex(index, legs.length);
+        return connections.tripId(unpack24(legs[index]));
+    }
+
+    private int routeId(int index) {
+        return trips.routeId(tripId(index));
+    }
+}
@@ -0,0 +1,138 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Trips;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lignes d'un jour : courses regroupées selon leur itinéraire et la suite des gares
+ * qu'elles desservent, de telle manière qu'aucune course d'une ligne n'en dépasse une
+ * autre, triées par heure de départ, et index des arrêts de chaque gare.
+ *
+ * @param stations          pour chaque ligne, la suite de ses gares
+ * @param tripConnections   pour chaque ligne, les liaisons de ses courses, course après
+ *                          course ; la liaison {@code j} de la course {@code t} relie les
+ *                          arrêts {@code j} et {@code j + 1} de la ligne
+ * @param stopStart         pour chaque gare, la position de ses arrêts dans les deux
+ *                          tableaux suivants
+ * @param stopLines         la ligne de chaque arrêt
+ * @param stopPositions     la position de chaque arrêt dans sa ligne
+ * @param connectionLines   pour chaque liaison, sa ligne
+ * @param connectionTrips   pour chaque liaison, l'index de sa course dans sa ligne
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+record Lines(int[][] stations, int[][] tripConnections, int[] stopStart, int[] stopLines,
+             int[] stopPositions, int[] connectionLines, int[] connectionTrips) {
+
+    /**
+     * Regroupe en lignes les courses des liaisons données.
+     *
+     * @param timeTable   l'horaire
+     * @param connections les liaisons du jour
+     * @param trips       les courses du jour
+     * @return les lignes du jour
+     */
+    static Lines of(TimeTable timeTable, Connections connections, Trips trips) {
+        int stationCount = timeTable.stations().size();
+        // Itinéraire suivi de la suite des gares -> premières liaisons des courses
+        Map<List<Integer>, List<Integer>> byStations = new HashMap<>();
+        for (int c = connections.size() - 1; c >= 0; --c) {
+            if (connections.tripPos(c) != 0) continue;
+            List<Integer> key = new ArrayList<>();
+            key.add(trips.routeId(connections.tripId(c)));
+            key.add(Router.depStationId(timeTable, connections, c));
+            int last = c;
+            do {
+                key.add(Router.arrStationId(timeTable, connections, last));
+                last = connections.nextConnectionId(last);
+            } while (connections.tripPos(last) != 0);
+            // Les liaisons étant parcourues par heure de départ croissante, les courses
+            // de chaque ligne le sont aussi
+            byStations.computeIfAbsent(key, k -> new ArrayList<>()).add(c);
+        }
+
+        // Les courses d'une même suite de gares sont réparties en lignes dont aucune
+        // course n'en dépasse une autre
+        List<int[]> lineStations = new ArrayList<>();
+        List<List<Integer>> lineTrips = new ArrayList<>();
+        for (Map.Entry<List<Integer>, List<Integer>> e : byStations.entrySet()) {
+            List<Integer> key = e.getKey();
+            int[] keyStations = new int[key.size() - 1];
+            for (int p = 0; p < keyStations.length; ++p) keyStations[p] = key.get(p + 1);
+            int firstLine = lineTrips.size();
+            for (int c : e.getValue()) {
+                int l = firstLine;
+                while (l < lineTrips.size()
+                        && !follows(connections, lineTrips.get(l).getLast(), c)) {
+                    l += 1;
+                }
+                if (l == lineTrips.size()) {
+                    lineStations.add(keyStations);
+                    lineTrips.add(new ArrayList<>());
+                }
+                lineTrips.get(l).add(c);
+            }
+        }
+
+        int lineCount = lineTrips.size();
+        int[][] stations = lineStations.toArray(int[][]::new);
+        int[][] tripConnections = new int[lineCount][];
+        int[] stopStart = new int[stationCount + 1];
+        int[] connectionLines = new int[connections.size()];
+        int[] connectionTrips = new int[connections.size()];
+        for (int l = 0; l < lineCount; ++l) {
+            for (int s : stations[l]) stopStart[s + 1] += 1;
+            int connectionCount = stations[l].length - 1;
+            List<Integer> firsts = lineTrips.get(l);
+            tripConnections[l] = new int[firsts.size() * connectionCount];
+            for (int t = 0; t < firsts.size(); ++t) {
+                int c = firsts.get(t);
+                for (int j = 0; j < connectionCount; ++j) {
+                    tripConnections[l][t * connectionCount + j] = c;
+                    connectionLines[c] = l;
+                    connectionTrips[c] = t;
+                    c = connections.nextConnectionId(c);
+                }
+            }
+        }
+
+        for (int s = 0; s < stationCount; ++s) stopStart[s + 1] += stopStart[s];
+        int[] stopLines = new int[stopStart[stationCount]];
+        int[] stopPositions = new int[stopLines.length];
+        int[] next = Arrays.copyOf(stopStart, stationCount);
+        for (int l = 0; l < lineCount; ++l) {
+            for (int p = 0; p < stations[l].length; ++p) {
+                int i = next[stations[l][p]]++;
+                stopLines[i] = l;
+                stopPositions[i] = p;
+            }
+        }
+        return new Lines(stations, tripConnections, stopStart, stopLines, stopPositions,
+                connectionLines, connectionTrips);
+    }
+
+    /**
+     * Vérifie si la course dont la première liaison est la seconde donnée part et arrive
+     * à chaque arrêt au plus tôt en même temps que celle dont la première liaison est la
+     * première donnée, les deux courses desservant la même suite de gares.
+     */
+    private static boolean follows(Connections connections, int first, int second) {
+        int c1 = first;
+        int c2 = second;
+        do {
+            if (connections.depMins(c2) < connections.depMins(c1)
+                    || connections.arrMins(c2) < connections.arrMins(c1)) {
+                return false;
+            }
+            c1 = connections.nextConnectionId(c1);
+            c2 = connections.nextConnectionId(c2);
+        } while (connections.tripPos(c1) != 0);
+        return true;
+    }
+}
@@ -0,0 +1,189 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Bits32_24_8;
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Variante de l'algorithme CSA de {@link Router} calculant en un seul parcours des liaisons
+ * les profils d'un groupe d'au plus 64 gares d'arrivée.
+ * <p>
+ * Chaque liaison n'est décodée qu'une seule fois et ses changements ne sont consultés
+ * qu'une seule fois pour tout le groupe. Pour chaque gare et chaque course, un masque de
+ * 64 bits indique les destinations du groupe pour lesquelles la frontière correspondante
+ * n'est pas vide, ce qui permet d'ignorer en une seule opération les destinations pour
+ * lesquelles une liaison n'apporte rien. Les frontières ne sont créées qu'au moment où
+ * elles reçoivent leur premier tuple.
+ * </p>
+ * <p>
+ * Les profils obtenus sont identiques à ceux que calculerait {@link Router#profile} pour
+ * chacune des destinations.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+final class MultiTargetScan {
+    /** Nombre maximal de destinations traitées en un seul parcours. */
+    static final int MAX_GROUP_SIZE = Long.SIZE;
+
+    private MultiTargetScan() {
+    }
+
+    /**
+     * Calcule les profils des gares d'arrivée données en un seul parcours des liaisons.
+     *
+     * @param timeTable      l'horaire
+     * @param date           la date pour laquelle les voyages sont calculés
+     * @param connections    les liaisons du jour
+     * @param tripCount      le nombre de courses du jour
+     * @param destinationIds les identifiants des gares d'arrivée, au plus 64
+     * @return les profils, dans l'ordre des identifiants donnés
+     * @throws IllegalArgumentException s'il y a plus de 64 destinations
+     */
+    static List<Profile> profiles(TimeTable timeTable, LocalDate date, Connections connections,
+                                  int tripCount, int[] destinationIds) {
+        Preconditions.checkArgument(destinationIds.length <= MAX_GROUP_SIZE);
+
+        int groupSize = destinationIds.length;
+        int stationCount = timeTable.stations().size();
+        Transfers transfers = timeTable.transfers();
+
+        // Temps de marche vers chaque destination, et masque des destinations atteignables
+        // à pied depuis chaque gare
+        int[][] walkTab = new int[groupSize][stationCount];
+        long[] walkMask = new long[stationCount];
+        for (int k = 0; k < groupSize; ++k) {
+            int range = transfers.arrivingAt(destinationIds[k]);
+            for (int i = PackedRange.startInclusive(range);
+                 i < PackedRange.endExclusive(range); ++i) {
+                walkTab[k][transfers.depStationId(i)] = transfers.minutes(i);
+                walkMask[transfers.depStationId(i)] |= 1L << k;
+            }
+        }
+
+        Profile.Builder[] profiles = new Profile.Builder[groupSize];
+        for (int k = 0; k < groupSize; ++k) {
+            profiles[k] = new Profile.Builder(timeTable, date, destinationIds[k]);
+        }
+        long[] stationMask = new long[stationCount];
+        long[] tripMask = new long[tripCount];
+
+        ParetoFront.Builder f = new ParetoFront.Builder();
+
+        for (int i = 0; i < connections.size(); ++i) {
+            int liaisonId = i;
+            int arrStationId = Router.arrStationId(timeTable, connections, liaisonId);
+            int tripId = connections.tripId(liaisonId);
+
+            if (connections.isCancelled(liaisonId)) {
+                // La course ne peut pas être poursuivie au-delà d'une liaison supprimée
+                tripMask[tripId] = 0;
+                continue;
+            }
+
+            long candidates = walkMask[arrStationId]
+                    | tripMask[tripId]
+                    | stationMask[arrStationId];
+            if (candidates == 0) continue;
+
+            int depStationId = Router.depStationId(timeTable, connections, liaisonId);
+            int arrMins = connections.arrMins(liaisonId);
+            int depMins = connections.depMins(liaisonId);
+            int tripPos = connections.tripPos(liaisonId);
+            int transfersRange = transfers.arrivingAt(depStationId);
+            int transfersStart = PackedRange.startInclusive(transfersRange);
+            int transfersEnd = PackedRange.endExclusive(transfersRange);
+
+            for (long m = candidates; m != 0; m &= m - 1) {
+                int k = Long.numberOfTrailingZeros(m);
+                long bit = 1L << k;
+                Profile.Builder profile = profiles[k];
+                f.clear();
+
+                // option 1 : marcher à pied
+                if ((walkMask[arrStationId] & bit) != 0) {
+                    f.add(arrMins + walkTab[k][arrStationId], 0, liaisonId);
+                }
+
+                // option 2 : continuer avec la course courante
+                if ((tripMask[tripId] & bit) != 0) {
+                    f.addAll(profile.forTrip(tripId));
+                }
+
+                // option 3 : changer de véhicule à l'arrivée de la liaison
+                if ((stationMask[arrStationId] & bit) != 0) {
+                    profile.forStation(arrStationId).forEachDepartingAtOrAfter(arrMins, (long t) ->
+                            f.add(PackedCriteria.withAdditionalChange(
+                                    PackedCriteria.withoutDepMins(
+                                            PackedCriteria.withPayload(t, liaisonId)))));
+                }
+
+                if (f.isEmpty()) continue;
+
+                if ((tripMask[tripId] & bit) == 0) {
+                    profile.setForTrip(tripId, new ParetoFront.Builder());
+                    tripMask[tripId] |= bit;
+                }
+                profile.forTrip(tripId).addAll(f);
+
+                for (int j = transfersStart; j < transfersEnd; ++j) {
+                    int newDepMins = depMins - transfers.minutes(j);
+                    int depTransferStationId = transfers.depStationId(j);
+
+                    if ((stationMask[depStationId] & bit) != 0
+                            && profile.forStation(depStationId).fullyDominates(f, depMins)) {
+                        continue;
+                    }
+                    if ((stationMask[depTransferStationId] & bit) == 0) {
+                        profile.setForStation(depTransferStationId, new ParetoFront.Builder());
+                        stationMask[depTransferStationId] |= bit;
+                    }
+                    ParetoFront.Builder target = profile.forStation(depTransferStationId);
+                    f.forEach((long t) -> {
+                        int tLiaisonId = PackedCriteria.payload(t);
+                        int nbInterStops = connections.tripPos(tLiaisonId) - tripPos;
+                        target.add(PackedCriteria.withDepMins(
+                                PackedCriteria.withPayload(t,
+                                        Bits32_24_8.pack(liaisonId, nbInterStops)),
+                                newDepMins));
+                    });
+                }
+            }
+        }
+
+        List<Profile> result = new ArrayList<>(groupSize);
+        for (Profile.Builder profile : profiles) {
+            result.add(profile.build());
+        }
+        return result;
+    }
+
+    /**
+     * Découpe les destinations données en groupes d'au plus 64 éléments, de taille aussi
+     * égale que possible, en visant au moins le nombre de groupes donné.
+     *
+     * @param destinationIds les identifiants des gares d'arrivée
+     * @param minGroupCount  le nombre minimal de groupes souhaité
+     * @return les groupes de destinations
+     */
+    static List<int[]> groups(int[] destinationIds, int minGroupCount) {
+        int n = destinationIds.length;
+        int groupCount = Math.max(Math.min(minGroupCount, n),
+                (n + MAX_GROUP_SIZE - 1) / MAX_GROUP_SIZE);
+        List<int[]> groups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; ++g) {
+            int from = (int) ((long) n * g / groupCount);
+            int to = (int) ((long) n * (g + 1) / groupCount);
+            groups.add(Arrays.copyOfRange(destinationIds, from, to));
+        }
+        return groups;
+    }
+}
@@ -13,17 +13,17 @@ import ch.epfl.rechor.Preconditions;
 public final class PackedCriteria {
 
     public static final int MAXIMUM_MINS = 2880;
-    private static final int DEPMINS_SHIFT = 51;
-    private static final int ARRMINS_SHIFT = 39;
-    private static final int CHANGES_SHIFT = 32;
+    static final int DEPMINS_SHIFT = 51;
+    static final int ARRMINS_SHIFT = 39;
+    static final int CHANGES_SHIFT = 32;
     private static final int ARRMINS_MASK_BITS = 12;
     private static final int CHANGES_MASK_BITS = 7;
     private static final int PAYLOAD_MASK_BITS = 32;
     private static final int MINUTES_OFFSET = 240;
 
     // Constantes pour les masques
-    private static final long ARRMINS_MASK = (1L << ARRMINS_MASK_BITS) - 1;
-    private static final long CHANGES_MASK = (1L << CHANGES_MASK_BITS) - 1;
+    static final long ARRMINS_MASK = (1L << ARRMINS_MASK_BITS) - 1;
+    static final long CHANGES_MASK = (1L << CHANGES_MASK_BITS) - 1;
     private static final long PAYLOAD_MASK = (1L << PAYLOAD_MASK_BITS) - 1;
     private static final long DEPMINS_MASK = (1L << DEPMINS_SHIFT) - 1;
 
@@ -142,6 +142,50 @@ public final class PackedCriteria {
         } else return (a1 <= a2) && (c1 <= c2);
     }
 
+    /**
+     * Vérifie si un ensemble de critères domine ou est égal à un autre, sans vérifier la
+     * validité des arguments.
+     * <p>
+     * Les champs sont comparés directement dans les valeurs empaquetées : la différence de
+     * chaque champ est négative si et seulement si le premier ensemble est moins bon pour ce
+     * critère, si bien qu'il suffit de tester le signe de la disjonction des trois
+     * différences. L'heure de départ étant stockée inversée, la comparaison de ses bits (avec
+     * extension du signe) est renversée. Si aucun des critères ne possède d'heure de départ,
+     * ses bits valent 0 et ne jouent aucun rôle.
+     * </p>
+     *
+     * @param criteria1 Premier ensemble de critères empaquetés.
+     * @param criteria2 Deuxième ensemble de critères empaquetés.
+     * @return true si criteria1 est dominant ou égal à criteria2, sinon false ; le résultat
+     * n'est pas spécifié si seul criteria2 possède des minutes de départ.
+     */
+    public static boolean dominatesOrIsEqualUnchecked(long criteria1, long criteria2) {
+        long depDiff = (criteria2 >> DEPMINS_SHIFT) - (criteria1 >> DEPMINS_SHIFT);
+        long arrDiff = (criteria2 >>> ARRMINS_SHIFT & ARRMINS_MASK)
+                - (criteria1 >>> ARRMINS_SHIFT & ARRMINS_MASK);
+        long changesDiff = (criteria2 >>> CHANGES_SHIFT & CHANGES_MASK)
+                - (criteria1 >>> CHANGES_SHIFT & CHANGES_MASK);
+        return (depDiff | arrDiff | changesDiff) >= 0;
+    }
+
+    /**
+     * Vérifie si l'un des ensembles de critères du tableau donné, entre les index donnés,
+     * domine ou est égal à l'ensemble donné, sans vérifier la validité des arguments.
+     *
+     * @param tuples   Tableau d'ensembles de critères empaquetés.
+     * @param from     Index du premier ensemble à comparer (inclus).
+     * @param to       Index du dernier ensemble à comparer (exclus).
+     * @param criteria Ensemble de critères empaquetés à comparer.
+     * @return true si l'un des ensembles du tableau domine ou est égal à criteria.
+     */
+    public static boolean anyDominatesOrIsEqualUnchecked(long[] tuples, int from, int to,
+                                                         long criteria) {
+        for (int i = from; i < to; i++) {
+            if (dominatesOrIsEqualUnchecked(tuples[i], criteria)) return true;
+        }
+        return false;
+    }
+
     /**
      * Supprime les minutes de départ des critères.
      *
@@ -2,6 +2,7 @@ package ch.epfl.rechor.journey;
 
 import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.function.LongConsumer;
 
 import static ch.epfl.rechor.journey.PackedCriteria.*;
@@ -19,16 +20,39 @@ import static ch.epfl.rechor.journey.PackedCriteria.*;
  */
 public class ParetoFront {
     public static final ParetoFront EMPTY = new ParetoFront(new long[0]);
+    // Taille à partir de laquelle les recherches par heure d'arrivée utilisent un index
+    private static final int INDEX_THRESHOLD = 16;
+    private static final int ARR_MINS_OFFSET = 240;
     private final long[] front;
+    private final int from;
+    private final int to;
+    // Clé (heure d'arrivée, changements) de chaque tuple dans les 32 bits de poids fort et
+    // position du tuple dans les 32 bits de poids faible, triés ; calculé à la demande
+    private volatile long[] arrChangesIndex;
 
     /**
-     * Constructeur privé qui permet de créer une instance de ParetoFront.
+     * Constructeur qui permet de créer une instance de ParetoFront.
      *
      * @param front Tableau de critères d'optimisation empaquetés (stocké sans être copié
      *              pour garantir l'immuabilité.
      */
-    private ParetoFront(long[] front) {
+    ParetoFront(long[] front) {
+        this(front, 0, front.length);
+    }
+
+    /**
+     * Constructeur qui permet de créer une instance de ParetoFront constituée d'une partie
+     * d'un tableau, typiquement partagé par toutes les frontières d'un profil.
+     *
+     * @param front Tableau de critères d'optimisation empaquetés (stocké sans être copié,
+     *              et qui ne doit plus être modifié).
+     * @param from  Index du premier tuple de la frontière (inclus).
+     * @param to    Index du dernier tuple de la frontière (exclus).
+     */
+    ParetoFront(long[] front, int from, int to) {
         this.front = front;
+        this.from = from;
+        this.to = to;
     }
 
     /**
@@ -38,7 +62,7 @@ public class ParetoFront {
      * @return Le nombre de tuples dans la frontière de Pareto.
      */
     public int size() {
-        return front.length;
+        return to - from;
     }
 
     /**
@@ -51,8 +75,98 @@ public class ParetoFront {
      * @throws NoSuchElementException Si aucun tuple ne correspond aux critères.
      */
     public long get(int arrMins, int changes) {
-        for (long frontMember : front) {
-            if (arrMins(frontMember) == arrMins && changes(frontMember) == changes) {
+        int index = indexOf(arrMins, changes);
+        if (index < 0) throw new NoSuchElementException();
+        return front[from + index];
+    }
+
+    /**
+     * Retourne la position dans la frontière du premier tuple correspondant aux critères
+     * donnés (heure d'arrivée et nombre de changements), ou -1 s'il n'y en a aucun.
+     * <p>
+     * Pour les grandes frontières, la recherche se fait au moyen d'un index trié par heure
+     * d'arrivée et nombre de changements, construit lors de la première recherche et
+     * conservé ensuite ; elle ne nécessite alors qu'une recherche dichotomique.
+     * </p>
+     *
+     * @param arrMins L'heure d'arrivée recherchée.
+     * @param changes Le nombre de changements recherchés.
+     * @return La position du tuple, comprise entre 0 (inclus) et {@link #size()} (exclus),
+     * ou -1 si aucun tuple ne correspond aux critères.
+     */
+    public int indexOf(int arrMins, int changes) {
+        if (size() <= INDEX_THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                long frontMember = front[i];
+                if (arrMins(frontMember) == arrMins && changes(frontMember) == changes) {
+                    return i - from;
+                }
+            }
+            return -1;
+        }
+
+        if ((changes & ~PackedCriteria.CHANGES_MASK) != 0) return -1;
+        long[] index = arrChangesIndex;
+        if (index == null) {
+            index = new long[size()];
+            for (int i = 0; i < index.length; i++) {
+                long frontMember = front[from + i];
+                index[i] = (long) arrChangesKey(arrMins(frontMember), changes(frontMember))
+                        << Integer.SIZE | i;
+            }
+            Arrays.sort(index);
+            arrChangesIndex = index;
+        }
+
+        long key = (long) arrChangesKey(arrMins, changes) << Integer.SIZE;
+        int low = 0;
+        int high = index.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low < index.length && (index[low] >>> Integer.SIZE) == (key >>> Integer.SIZE)
+                ? (int) index[low]
+                : -1;
+    }
+
+    /**
+     * Retourne le tuple se trouvant à la position donnée de la frontière.
+     *
+     * @param index La position du tuple.
+     * @return Le tuple empaqueté se trouvant à cette position.
+     * @throws IndexOutOfBoundsException Si la position n'est pas comprise entre 0 (inclus)
+     *                                   et {@link #size()} (exclus).
+     */
+    public long tupleAt(int index) {
+        Objects.checkIndex(index, size());
+        return front[from + index];
+    }
+
+    /**
+     * Retourne la clé d'index correspondant aux critères donnés, qui est positive pour
+     * toutes les heures d'arrivée représentables dans un tuple (supérieures ou égales à
+     * -240) et tous les nombres de changements inférieurs à 128.
+     */
+    private static int arrChangesKey(int arrMins, int changes) {
+        return (arrMins + ARR_MINS_OFFSET) << 7 | changes;
+    }
+
+    /**
+     * Recherche un tuple dans la frontière de Pareto correspondant aux critères
+     * donnés (heure de départ et nombre de changements).
+     *
+     * @param depMins L'heure de départ recherchée.
+     * @param changes Le nombre de changements recherchés.
+     * @return Le tuple empaqueté correspondant aux critères.
+     * @throws NoSuchElementException Si aucun tuple ne correspond aux critères.
+     */
+    public long getByDepMins(int depMins, int changes) {
+        for (int i = from; i < to; i++) {
+            long frontMember = front[i];
+            if (hasDepMins(frontMember) && depMins(frontMember) == depMins
+                    && changes(frontMember) == changes) {
                 return frontMember;
             }
         }
@@ -65,8 +179,8 @@ public class ParetoFront {
      * @param action L'action à appliquer à chaque tuple.
      */
     public void forEach(LongConsumer action) {
-        for (long l : front) {
-            action.accept(l);
+        for (int i = from; i < to; i++) {
+            action.accept(front[i]);
         }
     }
 
@@ -74,7 +188,7 @@ public class ParetoFront {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("{");
-        for (int i = 0; i < front.length; i++) {
+        for (int i = from; i < to; i++) {
             if (front[i] != 0) {
                 if (sb.length() > 1) {
                     sb.append(", ");
@@ -102,22 +216,47 @@ public class ParetoFront {
      * Le bâtisseur de la frontière de Pareto.
      * <p>
      * Cette classe permet de construire une frontière de Pareto de manière progressive.
+     * <p>
+     * Les tuples sont gardés triés par ordre croissant de leur valeur empaquetée. L'heure de
+     * départ étant stockée inversée dans les bits de poids fort, ils sont donc triés par heure
+     * de départ décroissante, puis par heure d'arrivée et nombre de changements croissants.
      */
     public static class Builder {
         private static final double CAPACITY_FACTOR = 1.5;
-        private int effectiveLength;
+        private static final long[] NO_STORAGE = new long[0];
+        private static final int CHANGES_BUCKETS = 1 << 7;
+        // Arène fournissant les segments de la frontière, null si elle a son propre tableau
+        private final FrontArena arena;
         private long[] front;
+        private int offset;
+        private int capacity;
+        private int effectiveLength;
+        // Tableau de travail de fullyDominates, alloué lors de la première utilisation
+        private int[] bestArrMins;
 
 
         /**
          * Constructeur qui initialise un bâtisseur avec une frontière vide.
          */
         public Builder() {
+            this.arena = null;
             this.front = new long[2];
+            this.capacity = front.length;
             effectiveLength = 0;
 
         }
 
+        /**
+         * Constructeur qui initialise un bâtisseur avec une frontière vide, dont les tuples
+         * sont stockés dans l'arène donnée.
+         *
+         * @param arena l'arène fournissant les segments de la frontière
+         */
+        Builder(FrontArena arena) {
+            this.arena = arena;
+            this.front = NO_STORAGE;
+        }
+
         /**
          * Constructeur de copie qui crée un nouveau bâtisseur avec les mêmes attributs
          * que le bâtisseur passé en argument.
@@ -125,7 +264,9 @@ public class ParetoFront {
          * @param that Le bâtisseur à copier.
          */
         public Builder(Builder that) {
-            this.front = that.front.clone();
+            this.arena = null;
+            this.front = Arrays.copyOfRange(that.front, that.offset, that.offset + that.capacity);
+            this.capacity = that.capacity;
             effectiveLength = that.effectiveLength;
         }
 
@@ -149,6 +290,35 @@ public class ParetoFront {
             return this;
         }
 
+        /**
+         * Vide la frontière et, si elle est stockée dans une arène, abandonne son segment,
+         * qui peut avoir été réattribué depuis la réinitialisation de l'arène.
+         */
+        void release() {
+            effectiveLength = 0;
+            if (arena != null) {
+                front = NO_STORAGE;
+                offset = 0;
+                capacity = 0;
+            }
+        }
+
+        /**
+         * Déplace les tuples de la frontière dans le segment donné.
+         *
+         * @param storage     le tableau contenant le nouveau segment
+         * @param newOffset   la position du nouveau segment
+         * @param newCapacity la capacité du nouveau segment
+         */
+        void relocate(long[] storage, int newOffset, int newCapacity) {
+            if (storage != front || newOffset != offset) {
+                System.arraycopy(front, offset, storage, newOffset, effectiveLength);
+            }
+            front = storage;
+            offset = newOffset;
+            capacity = newCapacity;
+        }
+
         /**
          * Ajoute un tuple empaqueté à la frontière en construction, s'il n'est pas dominé
          * ou égal à un tuple existant, tout en respectant l'ordre lexicographisuqe.
@@ -159,43 +329,55 @@ public class ParetoFront {
          */
 
         public Builder add(long packedTuple) {
-            // 1) filtre / copie en une seule passe
-            int dst = 0;
-            boolean dominatesExisting = false;
-
-            for (int i = 0; i < effectiveLength; i++) {
+            long[] front = this.front;
+            int offset = this.offset;
+            int end = offset + effectiveLength;
+
+            // 1) les tuples plus petits partent plus tard ou arrivent plus tôt : ils peuvent
+            //    dominer le nouveau tuple mais pas être dominés par lui
+            int pos = Arrays.binarySearch(front, offset, end, packedTuple);
+            if (pos >= 0) return this;
+            pos = -(pos + 1);
+            if (anyDominatesOrIsEqualUnchecked(front, offset, pos, packedTuple)) return this;
+
+            // 2) filtre / copie des tuples suivants en une seule passe
+            int dst = pos;
+            for (int i = pos; i < end; i++) {
                 long current = front[i];
 
-                // si égal → rien à faire
-                if (current == packedTuple) return this;
-
-                // si cur domine packed → on n'insère rien
-                if (dominatesOrIsEqual(current, packedTuple)) return this;
+                // si égal ou si cur domine packed → on n'insère rien
+                if (dominatesOrIsEqualUnchecked(current, packedTuple)) return this;
 
                 // si packed domine cur, on ne recopie pas cur
-                if (!dominatesOrIsEqual(packedTuple, current)) {
+                if (!dominatesOrIsEqualUnchecked(packedTuple, current)) {
                     front[dst++] = current;
                 }
             }
+            effectiveLength = dst - offset;
 
-            // 2) agrandir si nécessaire
-            ensureCapacity(dst + 1);
-
-            // 3) trouver la position d'insertion dans la partie conservée
-            int pos = 0;
-            while (pos < dst && front[pos] < packedTuple) pos++;
+            // 3) agrandir si nécessaire
+            ensureCapacity(effectiveLength + 1);
+            int shift = this.offset - offset;
+            front = this.front;
+            pos += shift;
+            dst += shift;
 
             // 4) décaler pour faire de la place et insérer
             System.arraycopy(front, pos, front, pos + 1, dst - pos);
             front[pos] = packedTuple;
-            effectiveLength = dst + 1;
+            effectiveLength += 1;
             return this;
         }
 
         private void ensureCapacity(int minCapacity) {
-            if (front.length < minCapacity) {
-                int newLength = Math.max((int) (front.length * CAPACITY_FACTOR) + 1, minCapacity);
-                front = Arrays.copyOf(front, newLength);
+            if (capacity < minCapacity) {
+                int newCapacity = Math.max((int) (capacity * CAPACITY_FACTOR) + 1, minCapacity);
+                if (arena != null) {
+                    arena.allocate(this, front, offset, capacity, newCapacity);
+                } else {
+                    front = Arrays.copyOf(front, newCapacity);
+                    capacity = newCapacity;
+                }
             }
         }
 
@@ -221,7 +403,7 @@ public class ParetoFront {
          */
         public Builder addAll(Builder that) {
             for (int i = 0; i < that.effectiveLength; i++) {
-                add(that.front[i]);
+                add(that.front[that.offset + i]);
             }
             return this;
         }
@@ -231,6 +413,14 @@ public class ParetoFront {
          * valeur donné,
          * est dominée entièrement par la frontière à laquelle on applique l'appel de cette
          * méthode .
+         * <p>
+         * Seuls les tuples de cette frontière partant au plus tôt à l'heure donnée, qui en
+         * forment le début, peuvent dominer ceux de l'autre frontière. Ils sont parcourus une
+         * seule fois pour déterminer, pour chaque nombre de changements, l'heure d'arrivée la
+         * plus précoce atteignable avec au plus ce nombre de changements ; chaque tuple de
+         * l'autre frontière est ensuite comparé à la valeur correspondant à son nombre de
+         * changements.
+         * </p>
          *
          * @param that    Le bâtisseur de la frontière à tester.
          * @param depMins L'heure de départ à fixer.
@@ -239,20 +429,37 @@ public class ParetoFront {
          * sinon {@code false}.
          */
         public boolean fullyDominates(Builder that, int depMins) {
-            for (int i = 0; i < that.effectiveLength; i++) {
-                long thatTuple = withDepMins(that.front[i], depMins);
-                boolean isDominated = false;
-
-                for (int j = 0; j < this.effectiveLength; j++) {
-                    if (dominatesOrIsEqual(this.front[j], thatTuple)) {
-                        isDominated = true;
-                        break;
-                    }
-                }
-                if (!isDominated) {
-                    return false;
+            long[] thatFront = that.front;
+            int thatStart = that.offset;
+            int thatEnd = thatStart + that.effectiveLength;
+            if (thatStart == thatEnd) return true;
+
+            int maxChanges = 0;
+            for (int i = thatStart; i < thatEnd; i++) {
+                maxChanges = Math.max(maxChanges, changes(thatFront[i]));
+            }
+            // Le tableau de travail est celui de ce bâtisseur, l'autre n'étant que consulté
+            if (this.bestArrMins == null) this.bestArrMins = new int[CHANGES_BUCKETS];
+            int[] bestArrMins = this.bestArrMins;
+            Arrays.fill(bestArrMins, 0, maxChanges + 1, Integer.MAX_VALUE);
+
+            long bound = departingAtOrAfter(depMins);
+            for (int j = offset, end = offset + effectiveLength; j < end; j++) {
+                long tuple = front[j];
+                if (tuple > bound) break;
+                int changes = changes(tuple);
+                if (changes <= maxChanges && arrMins(tuple) < bestArrMins[changes]) {
+                    bestArrMins[changes] = arrMins(tuple);
                 }
             }
+            for (int c = 1; c <= maxChanges; c++) {
+                bestArrMins[c] = Math.min(bestArrMins[c], bestArrMins[c - 1]);
+            }
+
+            for (int i = thatStart; i < thatEnd; i++) {
+                long thatTuple = thatFront[i];
+                if (bestArrMins[changes(thatTuple)] > arrMins(thatTuple)) return false;
+            }
             return true;
         }
 
@@ -263,10 +470,53 @@ public class ParetoFront {
          */
         public void forEach(LongConsumer action) {
             for (int i = 0; i < effectiveLength; i++) {
-                action.accept(front[i]);
+                action.accept(front[offset + i]);
             }
         }
 
+        /**
+         * Applique l'action donnée à chaque tuple de la frontière en construction dont l'heure
+         * de départ est supérieure ou égale à celle donnée. Les tuples étant triés par heure de
+         * départ décroissante, le parcours s'arrête au premier tuple partant plus tôt.
+         *
+         * @param depMins L'heure de départ minimale.
+         * @param action  L'action à appliquer à chacun de ces tuples.
+         */
+        public void forEachDepartingAtOrAfter(int depMins, LongConsumer action) {
+            long bound = departingAtOrAfter(depMins);
+            for (int i = offset, end = offset + effectiveLength; i < end; i++) {
+                long tuple = front[i];
+                if (tuple > bound) break;
+                action.accept(tuple);
+            }
+        }
+
+        /**
+         * Retourne le plus grand tuple empaqueté partant à l'heure donnée : les tuples partant
+         * au plus tôt à cette heure sont exactement ceux qui lui sont inférieurs ou égaux.
+         */
+        private static long departingAtOrAfter(int depMins) {
+            return withDepMins(withoutDepMins(-1L), depMins);
+        }
+
+        /**
+         * Copie les tuples de la frontière en construction dans le tableau donné, à partir de
+         * la position donnée.
+         *
+         * @param destination Le tableau dans lequel copier les tuples.
+         * @param position    La position du premier tuple copié.
+         */
+        void copyTo(long[] destination, int position) {
+            System.arraycopy(front, offset, destination, position, effectiveLength);
+        }
+
+        /**
+         * Retourne le nombre de tuples de la frontière en construction.
+         */
+        int size() {
+            return effectiveLength;
+        }
+
         /**
          * Construit une instance de {@link ParetoFront} à partir des tuples actuellement
          * présents dans la frontière en construction.
@@ -276,7 +526,7 @@ public class ParetoFront {
          */
         public ParetoFront build() {
             long[] paretoFront = new long[effectiveLength];
-            System.arraycopy(front, 0, paretoFront, 0, effectiveLength);
+            System.arraycopy(front, offset, paretoFront, 0, effectiveLength);
             return new ParetoFront(paretoFront);
         }
 
@@ -5,12 +5,17 @@ import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.Trips;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * La classe Profile représente un profil de voyage pour une date et une station d'arrivée données.
  * Elle contient les informations sur les connexions et les trajets pour cette date.
+ * <p>
+ * Les profils construits au moyen de {@link Builder} stockent leurs frontières sous forme
+ * compacte : un seul tableau contient les tuples de toutes les gares, et un second la
+ * position de la frontière de chacune d'elles dans le premier.
+ * </p>
  *
  * @author Sarra Zghal, Elyes Ben Abid
  */
@@ -26,7 +31,8 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
      * @param stationFront la liste des frontières de Pareto pour chaque station
      */
     public Profile {
-        stationFront = List.copyOf(stationFront);
+        // Les frontières stockées sous forme compacte sont immuables et ne sont pas décodées
+        if (!(stationFront instanceof StationFronts)) stationFront = List.copyOf(stationFront);
     }
 
     public Connections connections() {
@@ -53,6 +59,12 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
 
     /**
      * La classe Builder permet de construire une instance de Profile.
+     * <p>
+     * Par défaut, les frontières sont des bâtisseurs indépendants, absents tant qu'ils n'ont
+     * pas été définis. Un bâtisseur peut aussi stocker ses frontières dans une
+     * {@link FrontArena}, auquel cas elles existent toutes d'emblée, vides, et ne restent
+     * valables que jusqu'à la prochaine utilisation de l'arène.
+     * </p>
      */
     public final static class Builder {
         TimeTable timeTable;
@@ -60,13 +72,50 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
         int arrStationId;
         ParetoFront.Builder[] stationFrontBuilders;
         ParetoFront.Builder[] tripsFrontBuilders;
+        private final int stationCount;
+        private final int tripCount;
+        private final FrontArena arena;
 
         public Builder(TimeTable timeTable, LocalDate date, int arrStationId) {
+            this(timeTable, date, arrStationId, null);
+        }
+
+        /**
+         * Construit un bâtisseur dont les frontières sont stockées dans l'arène donnée, qui
+         * est réinitialisée, ou dans des tableaux propres au bâtisseur si elle est nulle.
+         *
+         * @param timeTable    l'horaire des trajets
+         * @param date         la date du profil
+         * @param arrStationId l'identifiant de la station d'arrivée
+         * @param arena        l'arène stockant les frontières, ou {@code null}
+         */
+        Builder(TimeTable timeTable, LocalDate date, int arrStationId, FrontArena arena) {
             this.timeTable = timeTable;
             this.date = date;
             this.arrStationId = arrStationId;
-            stationFrontBuilders = new ParetoFront.Builder[timeTable.stations().size()];
-            tripsFrontBuilders = new ParetoFront.Builder[timeTable.tripsFor(date).size()];
+            this.stationCount = timeTable.stations().size();
+            this.tripCount = timeTable.tripsFor(date).size();
+            this.arena = arena;
+            if (arena == null) {
+                stationFrontBuilders = new ParetoFront.Builder[stationCount];
+                tripsFrontBuilders = new ParetoFront.Builder[tripCount];
+            } else {
+                arena.reset(stationCount, tripCount);
+            }
+        }
+
+        /**
+         * Retourne le nombre de gares du profil.
+         */
+        int stationCount() {
+            return stationCount;
+        }
+
+        /**
+         * Retourne le nombre de courses du profil.
+         */
+        int tripCount() {
+            return tripCount;
         }
 
         /**
@@ -77,10 +126,10 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
          * @throws IndexOutOfBoundsException si l'identifiant de la station est invalide
          */
         public ParetoFront.Builder forStation(int stationId) {
-            if (stationId < 0 || stationId >= stationFrontBuilders.length) {
+            if (stationId < 0 || stationId >= stationCount) {
                 throw new IndexOutOfBoundsException();
             }
-            return stationFrontBuilders[stationId];
+            return arena == null ? stationFrontBuilders[stationId] : arena.station(stationId);
         }
 
         /**
@@ -90,7 +139,12 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
          * @param builder   le Builder de la frontière de Pareto
          */
         public void setForStation(int stationId, ParetoFront.Builder builder) {
-            stationFrontBuilders[stationId] = builder;
+            if (arena == null) {
+                stationFrontBuilders[stationId] = builder;
+            } else {
+                Objects.checkIndex(stationId, stationCount);
+                arena.setStation(stationId, builder);
+            }
         }
 
         /**
@@ -101,10 +155,10 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
          * @throws IndexOutOfBoundsException si l'identifiant du trajet est invalide
          */
         public ParetoFront.Builder forTrip(int tripId) {
-            if (tripId < 0 || tripId >= tripsFrontBuilders.length) {
+            if (tripId < 0 || tripId >= tripCount) {
                 throw new IndexOutOfBoundsException();
             }
-            return tripsFrontBuilders[tripId];
+            return arena == null ? tripsFrontBuilders[tripId] : arena.trip(tripId);
         }
 
         /**
@@ -114,19 +168,33 @@ public record Profile(TimeTable timeTable, LocalDate date, int arrStationId,
          * @param builder le Builder de la frontière de Pareto
          */
         public void setForTrip(int tripId, ParetoFront.Builder builder) {
-            tripsFrontBuilders[tripId] = builder;
+            if (arena == null) {
+                tripsFrontBuilders[tripId] = builder;
+            } else {
+                Objects.checkIndex(tripId, tripCount);
+                arena.setTrip(tripId, builder);
+            }
         }
 
+        /**
+         * Construit le profil. Ses frontières sont stockées sous forme compacte, dans deux
+         * tableaux communs à toutes les gares (voir {@link StationFronts}).
+         *
+         * @return le profil
+         */
         public Profile build() {
-            List<ParetoFront> stationFront = new ArrayList<>();
-            for (ParetoFront.Builder builder : stationFrontBuilders) {
-                if (builder != null) {
-                    stationFront.add(builder.build());
-                } else {
-                    stationFront.add(ParetoFront.EMPTY);
-                }
+            int[] offsets = new int[stationCount + 1];
+            for (int s = 0; s < stationCount; ++s) {
+                ParetoFront.Builder builder = forStation(s);
+                offsets[s + 1] = offsets[s] + (builder != null ? builder.size() : 0);
+            }
+            long[] tuples = new long[offsets[stationCount]];
+            for (int s = 0; s < stationCount; ++s) {
+                ParetoFront.Builder builder = forStation(s);
+                if (builder != null) builder.copyTo(tuples, offsets[s]);
             }
-            return new Profile(timeTable, date, arrStationId, stationFront);
+            return new Profile(timeTable, date, arrStationId,
+                    new StationFronts.InMemory(offsets, tuples));
         }
     }
 }
\ No newline at end of file
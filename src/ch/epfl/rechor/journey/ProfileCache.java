@@ -0,0 +1,231 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Cache de profils de taille bornée, dont les entrées les moins récemment utilisées sont
+ * évincées lorsque la taille totale des profils dépasse un budget donné.
+ * <p>
+ * La taille d'un profil est estimée à partir du nombre de tuples de ses frontières et de son
+ * nombre de gares (voir {@link #weight(Profile)}).
+ * </p>
+ * <p>
+ * Le cache peut être utilisé par plusieurs fils de calcul à la fois. Lorsque plusieurs d'entre
+ * eux demandent simultanément un profil absent, un seul le calcule et les autres attendent
+ * son résultat ; le calcul a lieu sans que le cache ne soit verrouillé, si bien que les
+ * demandes portant sur d'autres profils ne sont pas retardées.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class ProfileCache {
+    private final long maxBytes;
+    // Entrées par ordre d'utilisation, de la moins récente à la plus récente
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Construit un cache vide dont la taille totale des profils est bornée par la valeur
+     * donnée.
+     *
+     * @param maxBytes la taille totale maximale des profils, en octets
+     * @throws IllegalArgumentException si la taille maximale n'est pas strictement positive
+     */
+    public ProfileCache(long maxBytes) {
+        Preconditions.checkArgument(maxBytes > 0);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Retourne la taille estimée, en octets, du profil donné, c.-à-d. celle du tableau de ses
+     * tuples et de celui des positions des frontières de ses gares.
+     *
+     * @param profile le profil
+     * @return la taille estimée du profil, en octets
+     */
+    public static long weight(Profile profile) {
+        int stationCount = profile.stationFront().size();
+        long tupleCount;
+        if (profile.stationFront() instanceof StationFronts fronts) {
+            tupleCount = fronts.offsets().get(stationCount);
+        } else {
+            tupleCount = 0;
+            for (ParetoFront front : profile.stationFront()) tupleCount += front.size();
+        }
+        return tupleCount * Long.BYTES + (stationCount + 1L) * Integer.BYTES;
+    }
+
+    /**
+     * Retourne le profil correspondant à la clé donnée s'il se trouve dans le cache, ou le
+     * calcule au moyen de la fonction donnée et l'y ajoute sinon.
+     * <p>
+     * Si le profil est en cours de calcul par un autre fil, son résultat est attendu. Si le
+     * calcul lève une exception, elle est propagée à tous les fils qui l'attendent et rien
+     * n'est ajouté au cache.
+     * </p>
+     *
+     * @param key    la clé du profil
+     * @param loader la fonction calculant le profil correspondant à une clé
+     * @return le profil correspondant à la clé
+     */
+    public Profile get(Key key, Function<Key, Profile> loader) {
+        Entry entry;
+        boolean computes;
+        synchronized (this) {
+            entry = entries.get(key);
+            computes = entry == null;
+            if (computes) {
+                missCount += 1;
+                entry = new Entry();
+                entries.put(key, entry);
+            } else {
+                hitCount += 1;
+            }
+        }
+
+        if (computes) {
+            Profile profile;
+            try {
+                profile = loader.apply(key);
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                entry.profile.completeExceptionally(e);
+                throw e;
+            }
+            synchronized (this) {
+                entry.weight = weight(profile);
+                totalBytes += entry.weight;
+                entry.profile.complete(profile);
+                evict();
+            }
+            return profile;
+        }
+
+        try {
+            return entry.profile.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Retourne le profil correspondant à la clé donnée s'il se trouve dans le cache et que son
+     * calcul est terminé, ou {@code null} sinon. Seuls les profils trouvés sont comptés, comme
+     * succès.
+     *
+     * @param key la clé du profil
+     * @return le profil correspondant à la clé, ou {@code null}
+     */
+    public synchronized Profile getIfPresent(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.isLoaded()) return null;
+        hitCount += 1;
+        return entry.profile.join();
+    }
+
+    /**
+     * Évince les entrées les moins récemment utilisées, dont le calcul est terminé, jusqu'à
+     * ce que la taille totale des profils ne dépasse plus le budget.
+     */
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry entry = it.next();
+            if (!entry.isLoaded()) continue;
+            it.remove();
+            totalBytes -= entry.weight;
+            evictionCount += 1;
+        }
+    }
+
+    /**
+     * Retourne le nombre de profils du cache, y compris ceux en cours de calcul.
+     *
+     * @return le nombre de profils
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retourne la taille totale estimée des profils du cache, en octets.
+     *
+     * @return la taille totale des profils
+     */
+    public synchronized long weightedSize() {
+        return totalBytes;
+    }
+
+    /**
+     * Retourne le nombre de demandes pour lesquelles le profil se trouvait dans le cache
+     * (éventuellement en cours de calcul).
+     *
+     * @return le nombre de succès
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Retourne le nombre de demandes ayant nécessité le calcul du profil.
+     *
+     * @return le nombre d'échecs
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Retourne le nombre de profils évincés du cache.
+     *
+     * @return le nombre d'évictions
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Clé d'un profil du cache.
+     *
+     * @param date             la date du profil
+     * @param arrStationId     l'identifiant de la gare d'arrivée
+     * @param excludedVehicles les types de véhicules exclus lors du calcul
+     */
+    public record Key(LocalDate date, int arrStationId, Set<Vehicle> excludedVehicles) {
+
+        /**
+         * Construit une clé, en copiant l'ensemble des véhicules exclus.
+         */
+        public Key {
+            excludedVehicles = Set.copyOf(excludedVehicles);
+        }
+    }
+
+    /**
+     * Entrée du cache : le profil, éventuellement en cours de calcul, et sa taille estimée une
+     * fois calculé.
+     */
+    private static final class Entry {
+        private final CompletableFuture<Profile> profile = new CompletableFuture<>();
+        private long weight;
+
+        private boolean isLoaded() {
+            return profile.isDone() && !profile.isCompletedExceptionally();
+        }
+    }
+}
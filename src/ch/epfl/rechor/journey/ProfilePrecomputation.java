@@ -0,0 +1,176 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Calcul hors ligne des profils de toutes les gares d'arrivée, pour un ou plusieurs jours.
+ * <p>
+ * Les profils calculés sont écrits au moyen de {@link ProfileStore} dans le dossier de
+ * l'horaire, où ils sont ensuite relus au lieu d'être calculés au moment de la requête.
+ * Chaque profil est écrit dès qu'il est calculé, et de manière atomique : si le calcul est
+ * interrompu, il peut être relancé et seuls les profils manquants (ou ne correspondant pas à
+ * l'horaire) sont alors calculés.
+ * </p>
+ * <p>
+ * Utilisation en ligne de commande :
+ * <pre>
+ * ProfilePrecomputation &lt;dossier&gt; &lt;premier jour&gt; [&lt;dernier jour&gt; [&lt;fils&gt;]]
+ * </pre>
+ * les jours étant donnés au format ISO (p. ex. {@code 2025-03-18}) et le nombre de fils de
+ * calcul valant par défaut le nombre de cœurs disponibles.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class ProfilePrecomputation {
+
+    private ProfilePrecomputation() {
+    }
+
+    /**
+     * Statistiques du calcul des profils d'un jour.
+     *
+     * @param computed    le nombre de profils calculés
+     * @param skipped     le nombre de profils déjà présents, qui n'ont pas été recalculés
+     * @param connections le nombre total de liaisons parcourues, chaque liaison étant comptée
+     *                    une fois par parcours, un seul parcours calculant les profils de
+     *                    tout un groupe de destinations (voir
+     *                    {@link Router#profileGroup(LocalDate, int[])})
+     * @param elapsed     la durée du calcul
+     */
+    public record Statistics(int computed, int skipped, long connections, Duration elapsed) {
+
+        /**
+         * Retourne le nombre de profils calculés par seconde.
+         *
+         * @return le nombre de profils calculés par seconde
+         */
+        public double destinationsPerSecond() {
+            return perSecond(computed);
+        }
+
+        /**
+         * Retourne le nombre de liaisons parcourues par seconde.
+         *
+         * @return le nombre de liaisons parcourues par seconde
+         */
+        public double connectionsPerSecond() {
+            return perSecond(connections);
+        }
+
+        private double perSecond(long count) {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : count * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Calcule les profils de toutes les gares d'arrivée pour le jour donné qui ne se trouvent
+     * pas déjà dans le dossier donné, et les y écrit au fur et à mesure.
+     * <p>
+     * Un profil est considéré comme déjà présent si son fichier existe et peut être lu pour
+     * l'horaire donné ; dans le cas contraire, il est recalculé et son fichier remplacé.
+     * </p>
+     *
+     * @param timeTable        l'horaire
+     * @param directory        le dossier dans lequel les profils sont écrits
+     * @param date             le jour pour lequel les profils sont calculés
+     * @param executor         l'exécuteur sur lequel les calculs sont lancés
+     * @param progressListener l'écouteur informé de la fraction des profils à calculer qui
+     *                         sont terminés
+     * @return les statistiques du calcul
+     * @throws UncheckedIOException en cas d'erreur lors de l'écriture d'un profil
+     */
+    public static Statistics precompute(TimeTable timeTable, Path directory, LocalDate date,
+                                        Executor executor, ProgressListener progressListener) {
+        long start = System.nanoTime();
+        int stationCount = timeTable.stations().size();
+        int[] pending = IntStream.range(0, stationCount)
+                .filter(s -> !isStored(timeTable, directory, date, s))
+                .toArray();
+
+        if (pending.length > 0) {
+            new Router(timeTable).profiles(date, pending, executor, progressListener, p -> {
+                try {
+                    ProfileStore.write(p, ProfileStore.path(directory, date, p.arrStationId()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        // Chaque groupe de destinations donne lieu à un seul parcours des liaisons
+        long connections = (long) timeTable.connectionsFor(date).size()
+                * Router.groups(pending).size();
+        return new Statistics(pending.length, stationCount - pending.length, connections,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Vérifie si le profil de la gare d'arrivée donnée se trouve déjà dans le dossier donné
+     * et correspond à l'horaire.
+     */
+    private static boolean isStored(TimeTable timeTable, Path directory, LocalDate date,
+                                    int arrStationId) {
+        Path file = ProfileStore.path(directory, date, arrStationId);
+        if (!Files.exists(file)) return false;
+        try {
+            ProfileStore.read(timeTable, date, file);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Calcule les profils de toutes les gares pour les jours donnés en ligne de commande, en
+     * affichant la progression et le débit obtenu pour chaque jour.
+     *
+     * @param args le dossier de l'horaire, le premier jour, et optionnellement le dernier
+     *             jour et le nombre de fils de calcul
+     * @throws IOException en cas d'erreur lors de la lecture de l'horaire
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Utilisation : ProfilePrecomputation <dossier> <premier jour>"
+                    + " [<dernier jour> [<fils>]]");
+            System.exit(1);
+        }
+        Path directory = Path.of(args[0]);
+        LocalDate first = LocalDate.parse(args[1]);
+        LocalDate last = args.length > 2 ? LocalDate.parse(args[2]) : first;
+        int threads = args.length > 3
+                ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+
+        TimeTable timeTable = FileTimeTable.in(directory);
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            for (LocalDate date : first.datesUntil(last.plusDays(1)).toList()) {
+                AtomicInteger printedTenths = new AtomicInteger();
+                Statistics statistics = precompute(timeTable, directory, date, pool, p -> {
+                    int tenths = (int) (p * 10);
+                    if (tenths > printedTenths.getAndAccumulate(tenths, Math::max)) {
+                        System.out.printf("%s : %d %%%n", date, tenths * 10);
+                    }
+                });
+                System.out.printf("%s : %d profils calculés, %d déjà présents, en %.1f s"
+                                + " (%.1f profils/s, %.3g liaisons/s)%n",
+                        date, statistics.computed(), statistics.skipped(),
+                        statistics.elapsed().toMillis() / 1e3,
+                        statistics.destinationsPerSecond(), statistics.connectionsPerSecond());
+            }
+        }
+    }
+}
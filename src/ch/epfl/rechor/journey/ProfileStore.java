@@ -0,0 +1,185 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Stockage des profils dans des fichiers binaires, qui peuvent être projetés en mémoire.
+ * <p>
+ * Le profil d'une gare d'arrivée pour un jour donné est stocké dans le fichier
+ * {@code profiles/<identifiant de la gare>.bin} du dossier de ce jour, à côté des fichiers des
+ * courses et des liaisons lus par {@code FileTimeTable}. Ce fichier contient :
+ * <ul>
+ *   <li>un en-tête de 8 entiers de 32 bits : un nombre magique, la version du format,
+ *   l'identifiant de la gare d'arrivée, le nombre de gares, de courses et de liaisons de
+ *   l'horaire du jour pour lequel le profil a été calculé, le nombre total de tuples et
+ *   l'empreinte des liaisons de ce jour (voir {@link #fingerprint(Connections)}) ;</li>
+ *   <li>la position du premier tuple de chaque gare, suivie du nombre total de tuples
+ *   (entiers de 32 bits), complétée si nécessaire par 4 octets nuls ;</li>
+ *   <li>les tuples de toutes les gares, encodés par différence (entiers de 64 bits).</li>
+ * </ul>
+ * Cette représentation est décrite plus en détail dans {@link StationFronts}.
+ * </p>
+ * <p>
+ * Les profils lus ne sont pas décodés : le fichier est projeté en mémoire et les frontières
+ * ne sont décodées qu'à la demande. Plusieurs processus lisant le même fichier partagent
+ * ainsi les mêmes pages en mémoire.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class ProfileStore {
+    private static final int MAGIC = 0x52435046; // "RCPF"
+    private static final int VERSION = 2;
+    private static final int HEADER_INTS = 8;
+
+    private ProfileStore() {
+    }
+
+    /**
+     * Retourne le chemin du fichier du profil de la gare d'arrivée et du jour donnés.
+     *
+     * @param directory    le dossier contenant les données de l'horaire
+     * @param date         la date du profil
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return le chemin du fichier du profil
+     */
+    public static Path path(Path directory, LocalDate date, int arrStationId) {
+        return directory.resolve(date.toString())
+                .resolve("profiles")
+                .resolve(arrStationId + ".bin");
+    }
+
+    /**
+     * Écrit le profil donné dans le fichier donné, en créant si nécessaire les dossiers qui le
+     * contiennent.
+     * <p>
+     * Le fichier est remplacé de manière atomique (voir {@link AtomicFiles}), afin qu'un
+     * autre processus ne puisse jamais lire un fichier incomplet.
+     * </p>
+     *
+     * @param profile le profil à écrire
+     * @param file    le fichier dans lequel l'écrire
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void write(Profile profile, Path file) throws IOException {
+        StationFronts fronts = profile.stationFront() instanceof StationFronts compact
+                ? compact
+                : StationFronts.of(profile.stationFront());
+        IntBuffer offsets = fronts.offsets();
+        LongBuffer tuples = fronts.deltaEncodedTuples();
+        int stationCount = offsets.remaining() - 1;
+        int tupleCount = tuples.remaining();
+
+        ByteBuffer buffer = ByteBuffer.allocate(tuplesPosition(stationCount)
+                + tupleCount * Long.BYTES);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(profile.arrStationId())
+                .putInt(stationCount)
+                .putInt(profile.trips().size())
+                .putInt(profile.connections().size())
+                .putInt(tupleCount)
+                .putInt(fingerprint(profile.connections()));
+        buffer.asIntBuffer().put(offsets);
+        buffer.position(tuplesPosition(stationCount));
+        buffer.asLongBuffer().put(tuples);
+        buffer.rewind();
+
+        AtomicFiles.write(file, channel -> {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        });
+    }
+
+    /**
+     * Lit le profil stocké dans le fichier donné, en projetant ce dernier en mémoire.
+     *
+     * @param timeTable l'horaire pour lequel le profil a été calculé
+     * @param date      la date du profil
+     * @param file      le fichier contenant le profil
+     * @return le profil lu
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si le fichier n'est pas un profil valide, notamment si
+     *                                  les positions des tuples des gares ne sont pas
+     *                                  croissantes à partir de 0, ou s'il a été calculé pour
+     *                                  un horaire ayant un nombre de gares, de courses ou de
+     *                                  liaisons, ou une empreinte des liaisons, différent de
+     *                                  celui donné
+     */
+    public static Profile read(TimeTable timeTable, LocalDate date, Path file)
+            throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Preconditions.checkArgument(buffer.capacity() >= HEADER_INTS * Integer.BYTES
+                && buffer.getInt(0) == MAGIC
+                && buffer.getInt(4) == VERSION);
+        int arrStationId = buffer.getInt(8);
+        int stationCount = buffer.getInt(12);
+        int tupleCount = buffer.getInt(24);
+        Connections connections = timeTable.connectionsFor(date);
+        Preconditions.checkArgument(stationCount == timeTable.stations().size()
+                && buffer.getInt(16) == timeTable.tripsFor(date).size()
+                && buffer.getInt(20) == connections.size()
+                && buffer.getInt(28) == fingerprint(connections)
+                && buffer.capacity()
+                == tuplesPosition(stationCount) + (long) tupleCount * Long.BYTES);
+
+        IntBuffer offsets = buffer
+                .slice(HEADER_INTS * Integer.BYTES, (stationCount + 1) * Integer.BYTES)
+                .asIntBuffer();
+        Preconditions.checkArgument(offsets.get(0) == 0
+                && offsets.get(stationCount) == tupleCount);
+        for (int s = 0; s < stationCount; ++s) {
+            Preconditions.checkArgument(offsets.get(s) <= offsets.get(s + 1));
+        }
+        LongBuffer tuples = buffer
+                .slice(tuplesPosition(stationCount), tupleCount * Long.BYTES)
+                .asLongBuffer();
+        return new Profile(timeTable, date, arrStationId, new StationFronts.Mapped(offsets, tuples));
+    }
+
+    /**
+     * Retourne l'empreinte des liaisons données, calculée à partir de tous les champs de la
+     * première et de la dernière d'entre elles.
+     * <p>
+     * Cette empreinte, très rapide à calculer, permet de détecter la plupart des profils
+     * calculés pour un autre horaire ayant le même nombre de gares, de courses et de
+     * liaisons.
+     * </p>
+     *
+     * @param connections les liaisons d'un jour
+     * @return l'empreinte des liaisons
+     */
+    static int fingerprint(Connections connections) {
+        int size = connections.size();
+        if (size == 0) return 0;
+        return 31 * connectionHash(connections, 0) + connectionHash(connections, size - 1);
+    }
+
+    private static int connectionHash(Connections connections, int id) {
+        return Objects.hash(connections.depStopId(id), connections.depMins(id),
+                connections.arrStopId(id), connections.arrMins(id), connections.tripId(id),
+                connections.tripPos(id), connections.isCancelled(id));
+    }
+
+    /**
+     * Retourne la position, en octets, du premier tuple dans un fichier de profil ayant le
+     * nombre de gares donné, alignée sur 8 octets.
+     */
+    private static int tuplesPosition(int stationCount) {
+        int offsetsEnd = (HEADER_INTS + stationCount + 1) * Integer.BYTES;
+        return (offsetsEnd + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
@@ -0,0 +1,361 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Bits32_24_8;
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Moteur de recherche d'itinéraires utilisant une variante de l'algorithme RAPTOR
+ * (<i>Round-bAsed Public Transit Optimized Router</i>) couvrant une plage d'heures
+ * (<i>range RAPTOR</i>).
+ * <p>
+ * Les courses sont d'abord regroupées en lignes : deux courses appartiennent à la même ligne
+ * si elles ont le même itinéraire, desservent la même suite de gares, obtenue en suivant
+ * leurs liaisons au moyen de {@code nextConnectionId}, et ne se dépassent pas. Le calcul procède ensuite par
+ * tours : au tour {@code k}, chaque ligne desservant une gare dont l'étiquette a changé au
+ * tour précédent est parcourue une seule fois, de son dernier arrêt vers son premier, ce qui
+ * donne l'heure de départ la plus tardive de chaque gare permettant d'atteindre la
+ * destination à l'heure voulue en au plus {@code k} courses.
+ * </p>
+ * <p>
+ * Le profil étant calculé vers une destination, les heures d'arrivée possibles à celle-ci
+ * sont parcourues par ordre croissant, et les étiquettes conservées d'une heure à la suivante,
+ * si bien que seules les améliorations sont propagées. Chaque amélioration d'une étiquette
+ * donne un tuple de la frontière de la gare correspondante, de même nature que ceux calculés
+ * par {@link Router} : les voyages des profils obtenus peuvent donc être extraits au moyen de
+ * {@link JourneyExtractor}.
+ * </p>
+ * <p>
+ * Le nombre de tours étant égal au nombre maximal de courses d'un voyage, cet algorithme est
+ * particulièrement rapide lorsque le nombre de changements est limité.
+ * </p>
+ *
+ * @param timeTable  l'horaire
+ * @param maxChanges le nombre maximal de changements des voyages calculés
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public record RaptorRouter(TimeTable timeTable, int maxChanges) implements RoutingEngine {
+    /** Nombre maximal de changements pouvant être représenté dans un tuple. */
+    public static final int MAX_CHANGES = 127;
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    /**
+     * Construit un routeur ne limitant pas le nombre de changements des voyages, autrement
+     * que par le nombre maximal représentable dans un tuple.
+     *
+     * @param timeTable l'horaire
+     */
+    public RaptorRouter(TimeTable timeTable) {
+        this(timeTable, MAX_CHANGES);
+    }
+
+    /**
+     * Vérifie que le nombre maximal de changements est valide.
+     *
+     * @throws IllegalArgumentException si le nombre maximal de changements n'est pas compris
+     *                                  entre 0 et {@link #MAX_CHANGES}
+     */
+    public RaptorRouter {
+        Preconditions.checkArgument(0 <= maxChanges && maxChanges <= MAX_CHANGES);
+    }
+
+    @Override
+    public Profile profile(LocalDate date, int destinationId) {
+        Connections connections = timeTable.connectionsFor(date);
+        Lines lines = Lines.of(timeTable, connections, timeTable.tripsFor(date));
+        return new Scan(timeTable, date, destinationId, connections, lines, maxChanges + 1)
+                .run();
+    }
+
+    /**
+     * État du calcul d'un profil.
+     * <p>
+     * Pour chaque tour {@code k} (de 1 au nombre maximal de courses), {@code board[k][s]} est
+     * l'heure de départ la plus tardive d'une course depuis la gare {@code s} permettant
+     * d'arriver à l'heure voulue en au plus {@code k} courses, et {@code station[k][s]}
+     * l'heure la plus tardive à laquelle il faut se trouver à la gare {@code s}, c.-à-d. la
+     * précédente diminuée de la durée du changement jusqu'à la gare de la course. La première
+     * liaison de la course et son nombre d'arrêts intermédiaires sont conservés, empaquetés
+     * comme dans les tuples de {@link Router}.
+     * </p>
+     */
+    private static final class Scan {
+        private final TimeTable timeTable;
+        private final int destinationId;
+        private final Connections connections;
+        private final Lines lines;
+        private final Transfers transfers;
+        private final int rounds;
+        private final int stationCount;
+        private final Profile.Builder profile;
+
+        private final int[] walkTab;
+        private final int[][] board;
+        private final int[][] boardPayloads;
+        private final int[][] station;
+        private final int[][] stationPayloads;
+
+        // Gares marquées au tour courant, et plus haute position marquée de chaque ligne
+        private final boolean[] marked;
+        private final int[] markedList;
+        private int markedCount;
+        private final int[] lineMaxPosition;
+        private final int[] touchedLines;
+
+        // Gares dont l'étiquette a changé pendant le parcours de l'heure d'arrivée courante
+        private final boolean[] changed;
+        private final int[] changedList;
+        private int changedCount;
+
+        Scan(TimeTable timeTable, LocalDate date, int destinationId,
+             Connections connections, Lines lines, int rounds) {
+            this.timeTable = timeTable;
+            this.destinationId = destinationId;
+            this.connections = connections;
+            this.lines = lines;
+            this.transfers = timeTable.transfers();
+            this.rounds = rounds;
+            this.stationCount = timeTable.stations().size();
+            this.profile = new Profile.Builder(timeTable, date, destinationId);
+
+            walkTab = new int[stationCount];
+            Arrays.fill(walkTab, -1);
+            int range = transfers.arrivingAt(destinationId);
+            for (int j = PackedRange.startInclusive(range);
+                 j < PackedRange.endExclusive(range); ++j) {
+                walkTab[transfers.depStationId(j)] = transfers.minutes(j);
+            }
+
+            board = new int[rounds + 1][stationCount];
+            boardPayloads = new int[rounds + 1][stationCount];
+            station = new int[rounds + 1][stationCount];
+            stationPayloads = new int[rounds + 1][stationCount];
+            for (int k = 0; k <= rounds; ++k) {
+                Arrays.fill(board[k], NONE);
+                Arrays.fill(station[k], NONE);
+            }
+            marked = new boolean[stationCount];
+            markedList = new int[stationCount];
+            lineMaxPosition = new int[lines.stations().length];
+            Arrays.fill(lineMaxPosition, -1);
+            touchedLines = new int[lines.stations().length];
+            changed = new boolean[stationCount];
+            changedList = new int[stationCount];
+        }
+
+        /**
+         * Calcule le profil en parcourant par ordre croissant les heures d'arrivée possibles
+         * à la destination.
+         */
+        Profile run() {
+            // Heure d'arrivée à la destination (32 bits de poids fort) en descendant de
+            // chaque liaison à une gare d'où la destination est accessible à pied
+            long[] arrivals = new long[connections.size()];
+            int arrivalCount = 0;
+            for (int c = 0; c < connections.size(); ++c) {
+                int s = Router.arrStationId(timeTable, connections, c);
+                if (walkTab[s] >= 0 && !connections.isCancelled(c)) {
+                    arrivals[arrivalCount++] =
+                            (long) (connections.arrMins(c) + walkTab[s]) << Integer.SIZE | s;
+                }
+            }
+            Arrays.sort(arrivals, 0, arrivalCount);
+
+            int i = 0;
+            while (i < arrivalCount) {
+                int arrMins = (int) (arrivals[i] >> Integer.SIZE);
+                markedCount = 0;
+                for (; i < arrivalCount && (int) (arrivals[i] >> Integer.SIZE) == arrMins; ++i) {
+                    mark((int) arrivals[i]);
+                }
+                runRounds(arrMins);
+            }
+            return profile.build();
+        }
+
+        /**
+         * Effectue les tours de l'algorithme pour l'heure d'arrivée donnée, les gares dont
+         * la destination est accessible à pied étant marquées.
+         */
+        private void runRounds(int arrMins) {
+            changedCount = 0;
+            int k = 1;
+            for (; k <= rounds && markedCount > 0; ++k) {
+                if (k > 1) propagate(k);
+
+                int touchedCount = collectLines();
+                markedCount = 0;
+                for (int t = 0; t < touchedCount; ++t) {
+                    int l = touchedLines[t];
+                    scanLine(l, lineMaxPosition[l], k, arrMins);
+                    lineMaxPosition[l] = -1;
+                }
+
+                // Changements depuis les gares des courses améliorées
+                int boardedCount = markedCount;
+                int[] boarded = Arrays.copyOf(markedList, boardedCount);
+                for (int b = 0; b < boardedCount; ++b) marked[boarded[b]] = false;
+                markedCount = 0;
+                for (int d : boarded) {
+                    int range = transfers.arrivingAt(d);
+                    for (int j = PackedRange.startInclusive(range);
+                         j < PackedRange.endExclusive(range); ++j) {
+                        int s = transfers.depStationId(j);
+                        int depMins = board[k][d] - transfers.minutes(j);
+                        if (depMins > station[k][s]) {
+                            station[k][s] = depMins;
+                            stationPayloads[k][s] = boardPayloads[k][d];
+                            mark(s);
+                        }
+                    }
+                }
+
+                // Chaque étiquette améliorée donne un tuple
+                for (int m = 0; m < markedCount; ++m) {
+                    int s = markedList[m];
+                    ParetoFront.Builder front = profile.forStation(s);
+                    if (front == null) {
+                        front = new ParetoFront.Builder();
+                        profile.setForStation(s, front);
+                    }
+                    front.add(PackedCriteria.withDepMins(
+                            PackedCriteria.pack(arrMins, k - 1, stationPayloads[k][s]),
+                            station[k][s]));
+                    if (!changed[s]) {
+                        changed[s] = true;
+                        changedList[changedCount++] = s;
+                    }
+                }
+            }
+            for (int m = 0; m < markedCount; ++m) marked[markedList[m]] = false;
+            markedCount = 0;
+            // Les tours suivants doivent aussi tenir compte des améliorations
+            for (k = Math.max(k, 2); k <= rounds; ++k) propagate(k);
+            for (int c = 0; c < changedCount; ++c) changed[changedList[c]] = false;
+        }
+
+        /**
+         * Reporte sur le tour donné les étiquettes du tour précédent des gares modifiées
+         * pendant le parcours de l'heure d'arrivée courante, un voyage en au plus
+         * {@code k - 1} courses l'étant aussi en au plus {@code k} courses.
+         */
+        private void propagate(int k) {
+            for (int c = 0; c < changedCount; ++c) {
+                int s = changedList[c];
+                if (station[k - 1][s] > station[k][s]) {
+                    station[k][s] = station[k - 1][s];
+                    stationPayloads[k][s] = stationPayloads[k - 1][s];
+                }
+            }
+        }
+
+        private void mark(int stationId) {
+            if (!marked[stationId]) {
+                marked[stationId] = true;
+                markedList[markedCount++] = stationId;
+            }
+        }
+
+        /**
+         * Détermine les lignes desservant les gares marquées et la plus haute position de
+         * chacune d'elles à laquelle se trouve une gare marquée, puis efface les marques.
+         *
+         * @return le nombre de lignes concernées, placées au début de {@code touchedLines}
+         */
+        private int collectLines() {
+            int touchedCount = 0;
+            for (int m = 0; m < markedCount; ++m) {
+                int s = markedList[m];
+                marked[s] = false;
+                for (int i = lines.stopStart()[s]; i < lines.stopStart()[s + 1]; ++i) {
+                    int l = lines.stopLines()[i];
+                    int p = lines.stopPositions()[i];
+                    if (lineMaxPosition[l] < 0) touchedLines[touchedCount++] = l;
+                    lineMaxPosition[l] = Math.max(lineMaxPosition[l], p);
+                }
+            }
+            return touchedCount;
+        }
+
+        /**
+         * Parcourt la ligne donnée de la position donnée vers son premier arrêt, en montant
+         * à chaque arrêt dans la course la plus tardive permettant de descendre à un arrêt
+         * suivant dont l'étiquette du tour précédent le permet.
+         */
+        private void scanLine(int line, int maxPosition, int k, int arrMins) {
+            int[] stations = lines.stations()[line];
+            int[] tripConnections = lines.tripConnections()[line];
+            int connectionCount = stations.length - 1;
+            if (connectionCount == 0) return;
+            int tripCount = tripConnections.length / connectionCount;
+
+            int trip = -1;
+            int alightPosition = -1;
+            for (int j = Math.min(maxPosition, connectionCount) - 1; j >= 0; --j) {
+                // Descente à l'arrêt j + 1, au moyen de la liaison j
+                int latest = latestAlight(stations[j + 1], k, arrMins);
+                if (latest != NONE) {
+                    int t = latestTrip(tripConnections, connectionCount, tripCount, j, latest);
+                    if (t > trip) {
+                        trip = t;
+                        alightPosition = j;
+                    }
+                }
+                if (trip < 0) continue;
+
+                int c = tripConnections[trip * connectionCount + j];
+                if (connections.isCancelled(c)) {
+                    // La course ne peut pas être poursuivie au-delà d'une liaison supprimée
+                    trip = -1;
+                    continue;
+                }
+
+                // Montée à l'arrêt j
+                int d = stations[j];
+                int depMins = connections.depMins(c);
+                if (depMins > board[k][d]) {
+                    board[k][d] = depMins;
+                    boardPayloads[k][d] = Bits32_24_8.pack(c, alightPosition - j);
+                    mark(d);
+                }
+            }
+        }
+
+        /**
+         * Retourne l'heure d'arrivée la plus tardive à la gare donnée permettant d'atteindre
+         * la destination à l'heure donnée au moyen d'au plus {@code k - 1} courses
+         * supplémentaires, ou {@link #NONE} s'il n'y en a aucune.
+         */
+        private int latestAlight(int stationId, int k, int arrMins) {
+            if (k == 1) return walkTab[stationId] >= 0 ? arrMins - walkTab[stationId] : NONE;
+            return station[k - 1][stationId];
+        }
+
+        /**
+         * Retourne l'index de la course la plus tardive de la ligne dont la liaison {@code j}
+         * arrive au plus tard à l'heure donnée, ou -1 s'il n'y en a aucune.
+         */
+        private int latestTrip(int[] tripConnections, int connectionCount, int tripCount,
+                               int j, int latestArrMins) {
+            int low = 0;
+            int high = tripCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (connections.arrMins(tripConnections[mid * connectionCount + j])
+                        <= latestArrMins) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low - 1;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ch.epfl.rechor.journey;
+
+import java.util.List;
+
+/**
+ * Profil accompagné d'états sauvegardés de son calcul, permettant de le mettre à jour sans le
+ * recalculer entièrement lorsque les liaisons du jour changent (retards, suppressions).
+ * <p>
+ * Chaque état sauvegardé contient une copie des frontières de toutes les gares et des courses
+ * en cours, c.-à-d. de celles dont une liaison au moins reste à parcourir, telles qu'elles
+ * étaient juste avant le parcours d'une liaison donnée. Ces copies ne sont jamais modifiées,
+ * si bien qu'un état peut être partagé par plusieurs profils réparables successifs.
+ * </p>
+ * <p>
+ * Un état occupe donc au plus autant de mémoire que les frontières du profil en
+ * construction, et un profil réparable en conserve un par intervalle entre les sauvegardes
+ * (24 avec l'intervalle par défaut d'une heure, voir {@link Router#CHECKPOINT_MINUTES}) :
+ * sa taille est de l'ordre de ce nombre d'états multiplié par celle des frontières d'un
+ * profil complet, soit 8 octets par tuple (capacité libre des frontières comprise) et une
+ * soixantaine d'octets par frontière non vide, plus un tableau d'une référence par gare
+ * pour chaque état.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ * @see Router#repairableProfile(java.time.LocalDate, int, int)
+ * @see Router#repair(RepairableProfile)
+ */
+public final class RepairableProfile {
+    private final Profile profile;
+    private final int checkpointMinutes;
+    private final List<Checkpoint> checkpoints;
+
+    /**
+     * Construit un profil réparable.
+     *
+     * @param profile           le profil
+     * @param checkpointMinutes l'intervalle, en minutes d'heure de départ, entre deux états
+     * @param checkpoints       les états sauvegardés, par index de liaison croissant
+     */
+    RepairableProfile(Profile profile, int checkpointMinutes, List<Checkpoint> checkpoints) {
+        this.profile = profile;
+        this.checkpointMinutes = checkpointMinutes;
+        this.checkpoints = List.copyOf(checkpoints);
+    }
+
+    /**
+     * Retourne le profil.
+     *
+     * @return le profil
+     */
+    public Profile profile() {
+        return profile;
+    }
+
+    /**
+     * Retourne l'intervalle, en minutes d'heure de départ, entre deux états sauvegardés.
+     *
+     * @return l'intervalle entre deux états sauvegardés
+     */
+    public int checkpointMinutes() {
+        return checkpointMinutes;
+    }
+
+    /**
+     * Retourne les états sauvegardés, par index de liaison croissant.
+     */
+    List<Checkpoint> checkpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * État du calcul d'un profil juste avant le parcours d'une liaison.
+     *
+     * @param connectionId  l'index de la prochaine liaison à parcourir
+     * @param stationFronts les frontières des gares, {@code null} si vides
+     * @param tripIds       les identifiants des courses en cours dont la frontière n'est pas
+     *                      vide
+     * @param tripFronts    les frontières de ces courses, dans le même ordre
+     */
+    record Checkpoint(int connectionId, ParetoFront.Builder[] stationFronts, int[] tripIds,
+                      ParetoFront.Builder[] tripFronts) {
+
+        /**
+         * Sauvegarde l'état du profil en construction donné.
+         *
+         * @param profile              le profil en construction
+         * @param connectionId         l'index de la prochaine liaison à parcourir
+         * @param remainingConnections le nombre de liaisons restant à parcourir de chaque
+         *                             course
+         * @return l'état sauvegardé
+         */
+        static Checkpoint of(Profile.Builder profile, int connectionId,
+                             int[] remainingConnections) {
+            ParetoFront.Builder[] stations = new ParetoFront.Builder[profile.stationCount()];
+            for (int s = 0; s < stations.length; ++s) {
+                stations[s] = copy(profile.forStation(s));
+            }
+            int tripCount = 0;
+            for (int t = 0; t < profile.tripCount(); ++t) {
+                if (isSaved(profile, t, remainingConnections)) tripCount += 1;
+            }
+            int[] tripIds = new int[tripCount];
+            ParetoFront.Builder[] trips = new ParetoFront.Builder[tripCount];
+            int k = 0;
+            for (int t = 0; t < profile.tripCount(); ++t) {
+                if (isSaved(profile, t, remainingConnections)) {
+                    tripIds[k] = t;
+                    trips[k++] = new ParetoFront.Builder(profile.forTrip(t));
+                }
+            }
+            return new Checkpoint(connectionId, stations, tripIds, trips);
+        }
+
+        /**
+         * Remplace les frontières du profil en construction donné par des copies de celles
+         * de cet état ; les frontières des courses non sauvegardées sont vidées.
+         *
+         * @param profile le profil en construction
+         */
+        void restore(Profile.Builder profile) {
+            for (int s = 0; s < stationFronts.length; ++s) {
+                ParetoFront.Builder target = profile.forStation(s);
+                if (target == null) {
+                    target = new ParetoFront.Builder();
+                    profile.setForStation(s, target);
+                }
+                target.clear();
+                if (stationFronts[s] != null) target.addAll(stationFronts[s]);
+            }
+            for (int t = 0; t < profile.tripCount(); ++t) {
+                ParetoFront.Builder target = profile.forTrip(t);
+                if (target != null) target.clear();
+            }
+            for (int k = 0; k < tripIds.length; ++k) {
+                ParetoFront.Builder target = profile.forTrip(tripIds[k]);
+                if (target == null) {
+                    target = new ParetoFront.Builder();
+                    profile.setForTrip(tripIds[k], target);
+                }
+                target.addAll(tripFronts[k]);
+            }
+        }
+
+        // Vrai si la frontière de la course donnée doit être sauvegardée : elle n'est pas
+        // vide et au moins une liaison de la course reste à parcourir
+        private static boolean isSaved(Profile.Builder profile, int tripId,
+                                       int[] remainingConnections) {
+            ParetoFront.Builder builder = profile.forTrip(tripId);
+            return remainingConnections[tripId] > 0 && builder != null && !builder.isEmpty();
+        }
+
+        private static ParetoFront.Builder copy(ParetoFront.Builder builder) {
+            return builder != null && !builder.isEmpty() ? new ParetoFront.Builder(builder) : null;
+        }
+    }
+}
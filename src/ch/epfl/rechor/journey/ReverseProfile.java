@@ -0,0 +1,60 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Trips;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Représente un profil inverse, c'est-à-dire l'ensemble des voyages optimaux partant d'une
+ * gare de départ donnée, à une date donnée, vers toutes les autres gares.
+ * <p>
+ * La frontière de Pareto de chaque gare contient des tuples dont l'heure de départ est
+ * l'heure de départ de la gare de départ du profil, et l'heure d'arrivée celle à la gare
+ * en question, temps de changement compris. La charge utile d'un tuple contient
+ * l'identifiant de la première liaison de la dernière étape en transport public, ainsi que
+ * le nombre d'arrêts intermédiaires de cette étape.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public record ReverseProfile(TimeTable timeTable, LocalDate date, int depStationId,
+                             List<ParetoFront> stationFront) {
+
+    /**
+     * Construit une instance de ReverseProfile avec les paramètres spécifiés.
+     *
+     * @param timeTable    l'horaire des trajets
+     * @param date         la date du profil
+     * @param depStationId l'identifiant de la station de départ
+     * @param stationFront la liste des frontières de Pareto pour chaque station
+     */
+    public ReverseProfile {
+        // Les frontières stockées sous forme compacte sont immuables
+        if (!(stationFront instanceof StationFronts)) stationFront = List.copyOf(stationFront);
+    }
+
+    public Connections connections() {
+        return timeTable.connectionsFor(date);
+    }
+
+    public Trips trips() {
+        return timeTable.tripsFor(date);
+    }
+
+    /**
+     * Retourne la frontière de Pareto pour une station donnée.
+     *
+     * @param stationId l'identifiant de la station
+     * @return la frontière de Pareto pour la station donnée
+     * @throws IndexOutOfBoundsException si l'identifiant de la station est invalide
+     */
+    public ParetoFront forStation(int stationId) {
+        if (stationId >= stationFront.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return stationFront.get(stationId);
+    }
+}
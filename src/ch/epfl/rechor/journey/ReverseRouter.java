@@ -0,0 +1,236 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Bits32_24_8;
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Set;
+
+import static ch.epfl.rechor.journey.PackedCriteria.*;
+
+/**
+ * Représente un routeur calculant, pour une date et une gare de départ données, le profil
+ * inverse de tous les voyages optimaux partant de cette gare.
+ * <p>
+ * Il s'agit de l'algorithme CSA de {@link Router} appliqué dans l'autre sens : les liaisons
+ * sont parcourues par ordre croissant d'heure de départ et, pour chacune d'elles, la
+ * frontière de Pareto des critères (heure de départ de la gare de départ, heure d'arrivée,
+ * nombre de changements) est construite à partir des options suivantes :
+ * <ul>
+ *   <li>Option 1 : rejoindre la liaison à pied depuis la gare de départ</li>
+ *   <li>Option 2 : être déjà dans le véhicule de la course</li>
+ *   <li>Option 3 : changer de véhicule au début de la liaison</li>
+ * </ul>
+ * Les frontières des gares atteignables à pied depuis la gare d'arrivée de la liaison sont
+ * ensuite mises à jour.
+ * </p>
+ * <p>
+ * Un tel profil permet de répondre à toutes les requêtes partant d'une même gare, et son
+ * calcul peut être limité aux liaisons partant après une heure donnée.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class ReverseRouter {
+
+    /** Heure de départ la plus précoce utilisée lorsque le calcul n'est pas limité. */
+    private static final int NO_DEPARTURE_LIMIT = Integer.MIN_VALUE;
+
+    private final TimeTable timeTable;
+    /** Arènes libres dans lesquelles sont construits les profils inverses. */
+    private final FrontArena.Pool arenas = new FrontArena.Pool();
+
+    /**
+     * Construit un routeur inverse pour l'horaire donné.
+     *
+     * @param timeTable l'horaire
+     */
+    public ReverseRouter(TimeTable timeTable) {
+        this.timeTable = timeTable;
+    }
+
+    /**
+     * Retourne l'horaire utilisé.
+     *
+     * @return l'horaire
+     */
+    public TimeTable timeTable() {
+        return timeTable;
+    }
+
+    /**
+     * Calcule le profil inverse des voyages optimaux partant de la gare donnée.
+     *
+     * @param date         la date pour laquelle les voyages sont calculés
+     * @param depStationId l'identifiant de la gare de départ
+     * @return un {@link ReverseProfile} immuable contenant les frontières de toutes les gares
+     */
+    public ReverseProfile profile(LocalDate date, int depStationId) {
+        return profile(date, depStationId, f -> { });
+    }
+
+    /**
+     * Calcule le profil inverse des voyages optimaux partant de la gare donnée, en informant
+     * l'écouteur donné de la progression du calcul.
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param depStationId     l'identifiant de la gare de départ
+     * @param progressListener l'écouteur informé de la progression
+     * @return un {@link ReverseProfile} immuable contenant les frontières de toutes les gares
+     */
+    public ReverseProfile profile(LocalDate date, int depStationId,
+                                  ProgressListener progressListener) {
+        Connections connections = timeTable.connectionsFor(date);
+        return profile(date, depStationId, connections.size(), NO_DEPARTURE_LIMIT, null,
+                progressListener);
+    }
+
+    /**
+     * Calcule le profil inverse des voyages optimaux partant de la gare donnée au plus tôt à
+     * l'heure donnée, sans emprunter les types de véhicules donnés.
+     * <p>
+     * Seules les liaisons partant au plus tôt à cette heure et n'appartenant pas à une course
+     * effectuée par un véhicule exclu sont parcourues. Sans exclusion, les frontières
+     * obtenues sont celles du profil complet, privées des tuples partant avant l'heure
+     * donnée.
+     * </p>
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param depStationId     l'identifiant de la gare de départ
+     * @param depTime          l'heure de départ au plus tôt
+     * @param excludedVehicles les types de véhicules à ne pas emprunter
+     * @param progressListener l'écouteur informé de la progression
+     * @return un {@link ReverseProfile} immuable contenant les frontières de toutes les gares
+     */
+    public ReverseProfile profile(LocalDate date, int depStationId, LocalTime depTime,
+                                  Set<Vehicle> excludedVehicles,
+                                  ProgressListener progressListener) {
+        int depMins = depTime.toSecondOfDay() / 60;
+        Connections connections = timeTable.connectionsFor(date);
+        int end = Router.firstDepartingAtOrBefore(connections, depMins - 1);
+        return profile(date, depStationId, end, depMins,
+                Router.excludedTrips(timeTable, date, excludedVehicles), progressListener);
+    }
+
+    /**
+     * Calcule le profil inverse en parcourant, par ordre croissant d'heure de départ, les
+     * liaisons dont l'index est inférieur à la borne donnée.
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param depStationId     l'identifiant de la gare de départ
+     * @param end              l'index de la dernière liaison parcourue (exclus)
+     * @param earliestDepMins  l'heure de départ la plus précoce utile
+     * @param excludedTrips    l'ensemble des courses à ignorer, ou {@code null}
+     * @param progressListener l'écouteur informé de la progression
+     * @return le profil inverse calculé
+     */
+    private ReverseProfile profile(LocalDate date, int depStationId, int end,
+                                   int earliestDepMins, long[] excludedTrips,
+                                   ProgressListener progressListener) {
+
+        progressListener.progress(0d);
+
+        int stationCount = timeTable.stations().size();
+        Transfers transfers = timeTable.transfers();
+        Connections connections = timeTable.connectionsFor(date);
+
+        // Temps de marche depuis la gare de départ vers chaque gare
+        int[] walkTab = new int[stationCount];
+        Arrays.fill(walkTab, -1);
+        // Changements groupés par gare de départ : gare d'arrivée et durée de chacun
+        int[] outgoingTo = new int[transfers.size()];
+        int[] outgoingMinutes = new int[transfers.size()];
+        int[] outgoingStart = new int[stationCount + 1];
+        for (int j = 0; j < transfers.size(); ++j) {
+            outgoingStart[transfers.depStationId(j) + 1] += 1;
+        }
+        for (int s = 0; s < stationCount; ++s) {
+            outgoingStart[s + 1] += outgoingStart[s];
+        }
+        int[] next = Arrays.copyOf(outgoingStart, stationCount);
+        for (int s = 0; s < stationCount; ++s) {
+            int range = transfers.arrivingAt(s);
+            for (int j = PackedRange.startInclusive(range);
+                 j < PackedRange.endExclusive(range); ++j) {
+                int k = next[transfers.depStationId(j)]++;
+                outgoingTo[k] = s;
+                outgoingMinutes[k] = transfers.minutes(j);
+                if (transfers.depStationId(j) == depStationId) {
+                    walkTab[s] = transfers.minutes(j);
+                }
+            }
+        }
+
+        // Les frontières sont stockées dans une arène réutilisée d'un calcul à l'autre
+        FrontArena arena = arenas.acquire();
+        try {
+            Profile.Builder profile = new Profile.Builder(timeTable, date, depStationId, arena);
+
+            ParetoFront.Builder f = new ParetoFront.Builder();
+
+            for (int i = end - 1; i >= 0; --i) {
+                progressListener.progress((end - 1 - i) / (double) end);
+                f.clear();
+
+                int liaisonId = i;
+                int connDepStationId = Router.depStationId(timeTable, connections, liaisonId);
+                int arrStationId = Router.arrStationId(timeTable, connections, liaisonId);
+                int tripId = connections.tripId(liaisonId);
+                int depMins = connections.depMins(liaisonId);
+                int arrMins = connections.arrMins(liaisonId);
+
+                if (connections.isCancelled(liaisonId)) {
+                    // La course ne peut pas être poursuivie au-delà d'une liaison supprimée
+                    profile.forTrip(tripId).clear();
+                    continue;
+                }
+                if (excludedTrips != null && Router.isExcluded(excludedTrips, tripId)) continue;
+
+                // option 1 : rejoindre la liaison à pied depuis la gare de départ
+                int walkMin = walkTab[connDepStationId];
+                if (walkMin != -1 && depMins - walkMin >= earliestDepMins) {
+                    f.add(withDepMins(pack(arrMins, 0, liaisonId), depMins - walkMin));
+                }
+
+                // option 2 : être déjà dans le véhicule de la course courante
+                profile.forTrip(tripId).forEach((long t) ->
+                        f.add(withDepMins(pack(arrMins, changes(t), payload(t)), depMins(t))));
+
+                // option 3 : changer de véhicule au début de la liaison
+                profile.forStation(connDepStationId).forEach((long t) -> {
+                    if (PackedCriteria.arrMins(t) <= depMins) {
+                        f.add(withAdditionalChange(
+                                withDepMins(pack(arrMins, changes(t), liaisonId), depMins(t))));
+                    }
+                });
+
+                if (f.isEmpty()) continue;
+
+                profile.forTrip(tripId).addAll(f);
+
+                int tripPos = connections.tripPos(liaisonId);
+                int outgoingEnd = outgoingStart[arrStationId + 1];
+                for (int k = outgoingStart[arrStationId]; k < outgoingEnd; ++k) {
+                    int newArrMins = arrMins + outgoingMinutes[k];
+                    ParetoFront.Builder target = profile.forStation(outgoingTo[k]);
+                    f.forEach((long t) -> {
+                        int boardId = payload(t);
+                        int nbInterStops = tripPos - connections.tripPos(boardId);
+                        target.add(withDepMins(pack(newArrMins, changes(t),
+                                Bits32_24_8.pack(boardId, nbInterStops)), depMins(t)));
+                    });
+                }
+            }
+            progressListener.progress(1d);
+            return new ReverseProfile(timeTable, date, depStationId,
+                    profile.build().stationFront());
+        } finally {
+            arenas.release(arena);
+        }
+    }
+}
@@ -2,13 +2,29 @@ package ch.epfl.rechor.journey;
 
 import ch.epfl.rechor.Bits32_24_8;
 import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.CachedTimeTable;
 import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.DecodedConnections;
+import ch.epfl.rechor.timetable.Routes;
 import ch.epfl.rechor.timetable.Stations;
 import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.Transfers;
+import ch.epfl.rechor.timetable.Trips;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Représente un routeur capable de calculer, pour une date et une station d'arrivée données,
@@ -19,18 +35,198 @@ import java.util.Arrays;
  * d'arrêts intermédiaires), puis met à jour les frontières des courses et des gares
  * atteignables à pied.
  * </p>
+ * <p>
+ * C'est l'implémentation de {@link RoutingEngine} utilisée par défaut ; {@link RaptorRouter}
+ * en est une autre, fondée sur l'algorithme RAPTOR.
+ * </p>
  *
  * @author Sarra Zghal, Elyes Ben Abid
  */
-public record Router(TimeTable timeTable) {
+public final class Router implements RoutingEngine {
+
+    /**
+     * Durée maximale, en minutes, des voyages pris en compte lors d'un calcul limité à une
+     * plage d'heures de départ.
+     */
+    public static final int MAX_WINDOW_JOURNEY_MINUTES = 8 * 60;
 
     /** Implémentation vide utilisée lorsqu'aucun écouteur de progression n'est fourni. */
     private static final ProgressListener NO_OP = f -> { };
 
+    /**
+     * Intervalle par défaut, en minutes d'heure de départ, entre deux sauvegardes de l'état
+     * du calcul d'un profil réparable.
+     */
+    public static final int CHECKPOINT_MINUTES = 60;
+
+    /** Heure d'arrivée la plus tardive utilisée lorsque le calcul n'est pas limité. */
+    private static final int NO_ARRIVAL_LIMIT = Integer.MAX_VALUE;
+
+    private final TimeTable timeTable;
+    /** Arènes libres, réutilisées par les calculs successifs des profils, sur tout fil. */
+    private final FrontArena.Pool arenas = new FrontArena.Pool();
+
+    /**
+     * Construit un routeur pour l'horaire donné.
+     *
+     * @param timeTable l'horaire
+     */
+    public Router(TimeTable timeTable) {
+        this.timeTable = timeTable;
+    }
+
+    /**
+     * Retourne l'horaire utilisé.
+     *
+     * @return l'horaire
+     */
+    public TimeTable timeTable() {
+        return timeTable;
+    }
+
+    /**
+     * Retourne la réserve des arènes de ce routeur.
+     */
+    FrontArena.Pool arenas() {
+        return arenas;
+    }
+
+    @Override
     public Profile profile(LocalDate date, int destinationId) {
         return profile(date, destinationId, NO_OP);
     }
 
+    /**
+     * Calcule en parallèle les profils de toutes les gares d'arrivée données, en utilisant
+     * un fil de calcul par cœur disponible.
+     *
+     * @param date           la date pour laquelle les voyages sont calculés
+     * @param destinationIds les identifiants des gares d'arrivée
+     * @return les profils calculés, dans l'ordre des identifiants donnés
+     */
+    public List<Profile> profiles(LocalDate date, int[] destinationIds) {
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+            return profiles(date, destinationIds, pool);
+        }
+    }
+
+    /**
+     * Calcule les profils de toutes les gares d'arrivée données en utilisant l'exécuteur
+     * donné.
+     *
+     * @param date           la date pour laquelle les voyages sont calculés
+     * @param destinationIds les identifiants des gares d'arrivée
+     * @param executor       l'exécuteur sur lequel les calculs sont lancés
+     * @return les profils calculés, dans l'ordre des identifiants donnés
+     */
+    public List<Profile> profiles(LocalDate date, int[] destinationIds, Executor executor) {
+        Profile[] profiles = new Profile[destinationIds.length];
+        computeAll(date, destinationIds, executor, NO_OP, (p, i) -> profiles[i] = p);
+        return List.of(profiles);
+    }
+
+    /**
+     * Calcule les profils de toutes les gares d'arrivée données en utilisant l'exécuteur
+     * donné, et les transmet au consommateur au fur et à mesure qu'ils sont terminés.
+     * <p>
+     * Les liaisons et les courses du jour ne sont obtenues qu'une seule fois et sont
+     * partagées par tous les calculs, et les destinations sont traitées par groupes
+     * (voir {@link #profileGroup(LocalDate, int[])}). Le consommateur et l'écouteur de
+     * progression sont appelés depuis les fils de l'exécuteur et doivent donc pouvoir l'être
+     * de manière concurrente ; la progression transmise est la fraction des profils terminés.
+     * </p>
+     * <p>
+     * La méthode bloque jusqu'à ce que tous les profils aient été calculés.
+     * </p>
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param destinationIds   les identifiants des gares d'arrivée
+     * @param executor         l'exécuteur sur lequel les calculs sont lancés
+     * @param progressListener l'écouteur informé de la progression globale
+     * @param consumer         le consommateur recevant chaque profil dès qu'il est calculé
+     */
+    public void profiles(LocalDate date, int[] destinationIds, Executor executor,
+                         ProgressListener progressListener, Consumer<Profile> consumer) {
+        computeAll(date, destinationIds, executor, progressListener,
+                (p, i) -> consumer.accept(p));
+    }
+
+    /**
+     * Calcule les profils des gares d'arrivée données sur l'exécuteur donné, et transmet
+     * chacun d'eux au consommateur avec sa position dans le tableau des identifiants.
+     */
+    private void computeAll(LocalDate date, int[] destinationIds, Executor executor,
+                            ProgressListener progressListener,
+                            ObjIntConsumer<Profile> consumer) {
+        progressListener.progress(0d);
+
+        // Les données du jour sont chargées une seule fois, avant de lancer les calculs ; les
+        // liaisons ne sont décodées que si l'horaire les garde déjà décodées en cache
+        Connections connections = timeTable.connectionsFor(date);
+        int tripCount = timeTable.tripsFor(date).size();
+
+        List<int[]> groups = groups(destinationIds);
+        AtomicInteger done = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(groups.size());
+        int offset = 0;
+        for (int[] group : groups) {
+            int groupOffset = offset;
+            tasks.add(CompletableFuture.runAsync(() -> {
+                List<Profile> profiles =
+                        MultiTargetScan.profiles(timeTable, date, connections, tripCount, group);
+                for (int k = 0; k < group.length; ++k) {
+                    consumer.accept(profiles.get(k), groupOffset + k);
+                }
+                progressListener.progress(
+                        done.addAndGet(group.length) / (double) destinationIds.length);
+            }, executor));
+            offset += group.length;
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        progressListener.progress(1d);
+    }
+
+    /**
+     * Retourne les groupes dans lesquels les destinations données sont réparties par
+     * {@link #profiles(LocalDate, int[], Executor, ProgressListener, Consumer)}, les liaisons
+     * du jour étant parcourues une fois par groupe.
+     * <p>
+     * Les destinations sont regroupées afin que chaque parcours des liaisons serve à
+     * plusieurs d'entre elles, tout en gardant assez de groupes pour occuper chaque cœur.
+     * </p>
+     *
+     * @param destinationIds les identifiants des gares d'arrivée
+     * @return les groupes de destinations
+     */
+    static List<int[]> groups(int[] destinationIds) {
+        return MultiTargetScan.groups(destinationIds, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Calcule en un seul parcours des liaisons les profils d'un groupe d'au plus 64 gares
+     * d'arrivée.
+     * <p>
+     * Le résultat est identique à celui d'un appel à {@link #profile(LocalDate, int)} pour
+     * chacune des gares, mais chaque liaison n'est décodée qu'une seule fois pour tout le
+     * groupe.
+     * </p>
+     *
+     * @param date           la date pour laquelle les voyages sont calculés
+     * @param destinationIds les identifiants des gares d'arrivée
+     * @return les profils calculés, dans l'ordre des identifiants donnés
+     * @throws IllegalArgumentException s'il y a plus de 64 gares d'arrivée
+     */
+    public List<Profile> profileGroup(LocalDate date, int[] destinationIds) {
+        return MultiTargetScan.profiles(timeTable, date, timeTable.connectionsFor(date),
+                timeTable.tripsFor(date).size(), destinationIds);
+    }
+
     /**
      * Calcule le profil de voyages optimaux permettant de rejoindre la gare d'arrivée spécifiée.
      * <p>
@@ -51,12 +247,315 @@ public record Router(TimeTable timeTable) {
      * @return un {@link Profile} immuable contenant les frontières de Pareto pour toutes les gares
      */
     public Profile profile(LocalDate date, int destinationId, ProgressListener progressListener) {
+        Connections connections = timeTable.connectionsFor(date);
+        return profile(date, destinationId, 0, connections.size(), NO_ARRIVAL_LIMIT, null,
+                progressListener);
+    }
+
+    /**
+     * Calcule le profil des voyages optimaux pour rejoindre la gare d'arrivée spécifiée sans
+     * emprunter les types de véhicules donnés.
+     * <p>
+     * Les liaisons des courses effectuées par un véhicule exclu sont ignorées lors du
+     * parcours, si bien que les frontières obtenues sont exactes pour ce filtre : un voyage
+     * optimal empruntant un véhicule exclu n'y masque pas les voyages qui l'évitent. Le type
+     * de véhicule de chaque course est déterminé une seule fois, avant le parcours.
+     * </p>
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param destinationId    l'identifiant de la gare d'arrivée
+     * @param excludedVehicles les types de véhicules à ne pas emprunter
+     * @param progressListener l'écouteur informé de la progression
+     * @return un {@link Profile} immuable contenant les frontières de Pareto pour toutes les gares
+     */
+    public Profile profile(LocalDate date, int destinationId, Set<Vehicle> excludedVehicles,
+                           ProgressListener progressListener) {
+        Connections connections = timeTable.connectionsFor(date);
+        return profile(date, destinationId, 0, connections.size(), NO_ARRIVAL_LIMIT,
+                excludedTrips(timeTable, date, excludedVehicles), progressListener);
+    }
+
+    /**
+     * Calcule le profil des voyages optimaux partant dans la plage horaire donnée pour
+     * rejoindre la gare d'arrivée spécifiée.
+     * <p>
+     * Seules les liaisons pouvant faire partie d'un voyage partant entre {@code from} et
+     * {@code to} et durant au plus {@link #MAX_WINDOW_JOURNEY_MINUTES} minutes sont
+     * parcourues : les liaisons partant avant {@code from} ne peuvent faire partie d'aucun
+     * tel voyage, et celles arrivant après l'heure d'arrivée la plus tardive utile sont
+     * ignorées. Les liaisons étant triées par heure de départ décroissante, les bornes du
+     * parcours sont trouvées par recherche dichotomique.
+     * </p>
+     * <p>
+     * Le profil obtenu peut également contenir des voyages partant après {@code to}, qui
+     * sont nécessaires à l'extraction des voyages partant dans la plage.
+     * </p>
+     *
+     * @param date          la date pour laquelle les voyages sont calculés
+     * @param destinationId l'identifiant de la gare d'arrivée
+     * @param from          l'heure de départ au plus tôt
+     * @param to            l'heure de départ au plus tard
+     * @return un {@link Profile} immuable contenant les frontières de Pareto pour toutes les gares
+     * @throws IllegalArgumentException si {@code to} est antérieure à {@code from}
+     */
+    public Profile profile(LocalDate date, int destinationId, LocalTime from, LocalTime to) {
+        Preconditions.checkArgument(!to.isBefore(from));
+        int fromMins = from.toSecondOfDay() / 60;
+        int toMins = to.toSecondOfDay() / 60;
+        int latestArrMins = toMins + MAX_WINDOW_JOURNEY_MINUTES;
+
+        Connections connections = timeTable.connectionsFor(date);
+        int start = firstDepartingAtOrBefore(connections, latestArrMins);
+        int end = firstDepartingAtOrBefore(connections, fromMins - 1);
+        return profile(date, destinationId, start, end, latestArrMins, null, NO_OP);
+    }
+
+    /**
+     * Calcule le profil des voyages optimaux arrivant à la gare d'arrivée spécifiée au plus
+     * tard à l'heure donnée.
+     * <p>
+     * Seules les liaisons partant avant cette heure sont parcourues, et celles arrivant
+     * après elle sont ignorées.
+     * </p>
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param destinationId    l'identifiant de la gare d'arrivée
+     * @param arrTime          l'heure d'arrivée au plus tard
+     * @param excludedVehicles les types de véhicules à ne pas emprunter
+     * @param progressListener l'écouteur informé de la progression
+     * @return un {@link Profile} immuable contenant les frontières de Pareto pour toutes les gares
+     */
+    public Profile profileArrivingBy(LocalDate date, int destinationId, LocalTime arrTime,
+                                     Set<Vehicle> excludedVehicles,
+                                     ProgressListener progressListener) {
+        int arrMins = arrTime.toSecondOfDay() / 60;
+        Connections connections = timeTable.connectionsFor(date);
+        int start = firstDepartingAtOrBefore(connections, arrMins - 1);
+        return profile(date, destinationId, start, connections.size(), arrMins,
+                excludedTrips(timeTable, date, excludedVehicles), progressListener);
+    }
+
+    /**
+     * Retourne le nombre de liaisons du jour donné partant avant l'heure donnée, c.-à-d. le
+     * nombre de liaisons parcourues par {@link #profileArrivingBy}, le reste étant parcouru
+     * par {@link ReverseRouter#profile(LocalDate, int, LocalTime, ProgressListener)}.
+     *
+     * @param date la date
+     * @param time l'heure
+     * @return le nombre de liaisons partant avant l'heure donnée
+     */
+    public int connectionsDepartingBefore(LocalDate date, LocalTime time) {
+        Connections connections = timeTable.connectionsFor(date);
+        int mins = time.toSecondOfDay() / 60;
+        return connections.size() - firstDepartingAtOrBefore(connections, mins - 1);
+    }
+
+    /**
+     * Retourne l'index de la première liaison partant au plus tard à l'heure donnée, ou le
+     * nombre de liaisons s'il n'y en a aucune. Les liaisons étant triées par heure de départ
+     * décroissante, cet index est trouvé par recherche dichotomique.
+     *
+     * @param connections les liaisons du jour
+     * @param mins        l'heure, en minutes après minuit
+     * @return l'index de la première liaison partant au plus tard à l'heure donnée
+     */
+    static int firstDepartingAtOrBefore(Connections connections, int mins) {
+        int low = 0;
+        int high = connections.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (connections.depMins(mid) > mins) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Calcule le profil en ne parcourant que les liaisons dont l'index est compris entre les
+     * bornes données et qui arrivent au plus tard à l'heure donnée.
+     *
+     * @param date             la date pour laquelle les voyages sont calculés
+     * @param destinationId    l'identifiant de la gare d'arrivée
+     * @param start            l'index de la première liaison parcourue (inclus)
+     * @param end              l'index de la dernière liaison parcourue (exclus)
+     * @param latestArrMins    l'heure d'arrivée la plus tardive utile
+     * @param excludedTrips    l'ensemble des courses à ignorer, ou {@code null}
+     * @param progressListener l'écouteur informé de la progression
+     * @return le profil calculé
+     */
+    private Profile profile(LocalDate date, int destinationId, int start, int end,
+                            int latestArrMins, long[] excludedTrips,
+                            ProgressListener progressListener) {
+        // Les frontières sont stockées dans une arène réutilisée d'un calcul à l'autre
+        FrontArena arena = arenas.acquire();
+        try {
+            Profile.Builder profile = new Profile.Builder(timeTable, date, destinationId, arena);
+            scan(profile, start, end, latestArrMins, excludedTrips, progressListener, null, 0);
+            return profile.build();
+        } finally {
+            arenas.release(arena);
+        }
+    }
+
+    /**
+     * Calcule un profil réparable des voyages optimaux pour rejoindre la gare d'arrivée
+     * spécifiée, en sauvegardant l'état du calcul toutes les {@link #CHECKPOINT_MINUTES}
+     * minutes d'heure de départ.
+     *
+     * @param date          la date pour laquelle les voyages sont calculés
+     * @param destinationId l'identifiant de la gare d'arrivée
+     * @return le profil réparable calculé
+     * @see #repairableProfile(LocalDate, int, int)
+     */
+    public RepairableProfile repairableProfile(LocalDate date, int destinationId) {
+        return repairableProfile(date, destinationId, CHECKPOINT_MINUTES);
+    }
+
+    /**
+     * Calcule un profil réparable des voyages optimaux pour rejoindre la gare d'arrivée
+     * spécifiée.
+     * <p>
+     * En plus du profil, l'état du calcul est sauvegardé chaque fois que l'heure de départ
+     * des liaisons parcourues passe sous un multiple de l'intervalle donné, ce qui permet à
+     * {@link #repair(RepairableProfile)} de reprendre le calcul à partir du dernier état non
+     * affecté par une modification des liaisons. Chaque état coûte en mémoire à peu près
+     * autant que les frontières des gares et des courses en cours à cet instant (voir
+     * {@link RepairableProfile}) ; un intervalle plus long réduit le nombre d'états, mais
+     * oblige la réparation à reprendre le calcul de plus loin.
+     * </p>
+     *
+     * @param date              la date pour laquelle les voyages sont calculés
+     * @param destinationId     l'identifiant de la gare d'arrivée
+     * @param checkpointMinutes l'intervalle, en minutes d'heure de départ, entre deux
+     *                          sauvegardes de l'état du calcul
+     * @return le profil réparable calculé
+     * @throws IllegalArgumentException si l'intervalle n'est pas strictement positif
+     */
+    public RepairableProfile repairableProfile(LocalDate date, int destinationId,
+                                               int checkpointMinutes) {
+        Preconditions.checkArgument(checkpointMinutes > 0);
+        List<RepairableProfile.Checkpoint> checkpoints = new ArrayList<>();
+        Connections connections = timeTable.connectionsFor(date);
+        FrontArena arena = arenas.acquire();
+        try {
+            Profile.Builder profile = new Profile.Builder(timeTable, date, destinationId, arena);
+            scan(profile, 0, connections.size(), NO_ARRIVAL_LIMIT, null, NO_OP, checkpoints,
+                    checkpointMinutes);
+            return new RepairableProfile(profile.build(), checkpointMinutes, checkpoints);
+        } finally {
+            arenas.release(arena);
+        }
+    }
+
+    /**
+     * Met à jour le profil réparable donné, calculé avec un autre horaire (typiquement avant
+     * l'application de retards), pour qu'il corresponde à l'horaire de ce routeur.
+     * <p>
+     * Les liaisons des deux horaires sont comparées pour trouver la première qui diffère.
+     * Toutes celles qui la précèdent dans l'ordre de parcours étant identiques, l'état sauvegardé
+     * juste avant elle est encore valable : le calcul est repris depuis cet état, et seules
+     * les liaisons partant avant la plus tardive des liaisons modifiées sont parcourues à
+     * nouveau. Le profil obtenu est identique à celui que calculerait
+     * {@link #repairableProfile(LocalDate, int, int)} avec le même intervalle entre les
+     * sauvegardes, pourvu que les deux horaires ne diffèrent que par l'ordre et les heures
+     * des liaisons de chaque course (retards) ou par leur suppression.
+     * </p>
+     *
+     * @param previous le profil réparable à mettre à jour
+     * @return le profil réparable mis à jour
+     * @throws IllegalArgumentException si l'horaire du profil donné n'a pas le même nombre de
+     *                                  gares ou de courses que celui de ce routeur
+     */
+    public RepairableProfile repair(RepairableProfile previous) {
+        Profile old = previous.profile();
+        LocalDate date = old.date();
+        int stationCount = timeTable.stations().size();
+        int tripCount = timeTable.tripsFor(date).size();
+        Preconditions.checkArgument(old.timeTable().stations().size() == stationCount
+                && old.timeTable().tripsFor(date).size() == tripCount);
+
+        Connections oldConnections = old.connections();
+        Connections connections = timeTable.connectionsFor(date);
+        int firstChange = firstDifference(oldConnections, connections);
+
+        List<RepairableProfile.Checkpoint> checkpoints = new ArrayList<>();
+        RepairableProfile.Checkpoint resumeFrom = null;
+        for (RepairableProfile.Checkpoint checkpoint : previous.checkpoints()) {
+            if (checkpoint.connectionId() > firstChange) break;
+            checkpoints.add(checkpoint);
+            resumeFrom = checkpoint;
+        }
+
+        FrontArena arena = arenas.acquire();
+        try {
+            Profile.Builder profile =
+                    new Profile.Builder(timeTable, date, old.arrStationId(), arena);
+            int start = 0;
+            if (resumeFrom != null) {
+                resumeFrom.restore(profile);
+                // L'état repris est sauvegardé à nouveau au début du parcours
+                checkpoints.removeLast();
+                start = resumeFrom.connectionId();
+            }
+            int checkpointMinutes = previous.checkpointMinutes();
+            scan(profile, start, connections.size(), NO_ARRIVAL_LIMIT, null, NO_OP, checkpoints,
+                    checkpointMinutes);
+            return new RepairableProfile(profile.build(), checkpointMinutes, checkpoints);
+        } finally {
+            arenas.release(arena);
+        }
+    }
+
+    /**
+     * Retourne l'index de la première liaison différant entre les deux ensembles de liaisons
+     * donnés, ou la taille du plus petit d'entre eux s'il n'y en a aucune.
+     */
+    private static int firstDifference(Connections c1, Connections c2) {
+        int size = Math.min(c1.size(), c2.size());
+        for (int i = 0; i < size; ++i) {
+            if (c1.depMins(i) != c2.depMins(i)
+                    || c1.arrMins(i) != c2.arrMins(i)
+                    || c1.depStopId(i) != c2.depStopId(i)
+                    || c1.arrStopId(i) != c2.arrStopId(i)
+                    || c1.tripId(i) != c2.tripId(i)
+                    || c1.tripPos(i) != c2.tripPos(i)
+                    || c1.isCancelled(i) != c2.isCancelled(i)) {
+                return i;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parcourt les liaisons dont l'index est compris entre les bornes données et qui
+     * arrivent au plus tard à l'heure donnée, en complétant le profil en construction donné.
+     *
+     * @param profile          le profil en construction
+     * @param start            l'index de la première liaison parcourue (inclus)
+     * @param end              l'index de la dernière liaison parcourue (exclus)
+     * @param latestArrMins    l'heure d'arrivée la plus tardive utile
+     * @param excludedTrips    l'ensemble des courses à ignorer, ou {@code null}
+     * @param progressListener l'écouteur informé de la progression
+     * @param checkpoints       la liste à laquelle ajouter les états sauvegardés, ou
+     *                          {@code null} si aucun état ne doit être sauvegardé
+     * @param checkpointMinutes l'intervalle, en minutes d'heure de départ, entre deux
+     *                          sauvegardes (ignoré si aucun état n'est sauvegardé)
+     */
+    private void scan(Profile.Builder profile, int start, int end, int latestArrMins,
+                      long[] excludedTrips, ProgressListener progressListener,
+                      List<RepairableProfile.Checkpoint> checkpoints, int checkpointMinutes) {
 
         progressListener.progress(0d);
 
+        LocalDate date = profile.date;
+        int destinationId = profile.arrStationId;
         Stations stations = timeTable.stations();
         Transfers transfers = timeTable.transfers();
         Connections connections = timeTable.connectionsFor(date);
+        int count = end - start;
 
         int[] walkTab = new int[stations.size()];
         Arrays.fill(walkTab, -1);
@@ -67,25 +566,52 @@ public record Router(TimeTable timeTable) {
             walkTab[transfers.depStationId(i)] = transfers.minutes(i);
         }
 
-        Profile.Builder profile = new Profile.Builder(timeTable, date, destinationId);
+        // L'état initial est toujours sauvegardé
+        int lastCheckpointSlot = Integer.MAX_VALUE;
+        // Nombre de liaisons restant à parcourir de chaque course ; les frontières des
+        // courses terminées ne sont plus lues et ne sont donc pas sauvegardées
+        int[] remainingConnections = null;
+        if (checkpoints != null) {
+            remainingConnections = new int[profile.tripCount()];
+            for (int i = start; i < end; ++i) remainingConnections[connections.tripId(i)] += 1;
+        }
 
-        // Pré‑alloue des builders vides pour toutes les gares et toutes les courses
-        preallocateBuilders(profile, timeTable.stations().size(), timeTable.tripsFor(date).size());
+        // Frontière de la liaison courante, réutilisée pour toutes les liaisons
+        ParetoFront.Builder f = new ParetoFront.Builder();
 
-        for (int i = 0; i < connections.size(); ++i) {
+        for (int i = start; i < end; ++i) {
+            progressListener.progress((i - start) / (double) count);
+            if (checkpoints != null) {
+                int slot = connections.depMins(i) / checkpointMinutes;
+                if (slot < lastCheckpointSlot) {
+                    checkpoints.add(
+                            RepairableProfile.Checkpoint.of(profile, i, remainingConnections));
+                    lastCheckpointSlot = slot;
+                }
+                remainingConnections[connections.tripId(i)] -= 1;
+            }
+            if (connections.isCancelled(i)) {
+                // La course ne peut pas être poursuivie au-delà d'une liaison supprimée
+                profile.forTrip(connections.tripId(i)).clear();
+                continue;
+            }
+            if (connections.arrMins(i) > latestArrMins) continue;
+            if (excludedTrips != null && isExcluded(excludedTrips, connections.tripId(i))) {
+                continue;
+            }
 
-            ParetoFront.Builder f = new ParetoFront.Builder();
+            f.clear();
 
             int liaisonId = i;
-            int arrStationId = timeTable().stationId(connections.arrStopId(liaisonId));
-            int depStationId = timeTable().stationId(connections.depStopId(liaisonId));
+            int arrStationId = arrStationId(timeTable, connections, liaisonId);
+            int depStationId = depStationId(timeTable, connections, liaisonId);
             int tripId = connections.tripId(liaisonId);
             int arrMins = connections.arrMins(liaisonId);
             int depMins = connections.depMins(liaisonId);
 
             // option 1 : marcher à pied
             int walkMin = walkTab[arrStationId];
-            if (walkMin != -1) {
+            if (walkMin != -1 && arrMins + walkMin <= latestArrMins) {
                 f.add((arrMins + walkMin), 0, liaisonId);
             }
 
@@ -93,21 +619,19 @@ public record Router(TimeTable timeTable) {
             f.addAll(profile.forTrip(tripId));
 
             // option 3 : changer de véhicule à l’arrivée de la liaison
-            profile.forStation(arrStationId).forEach((long t) -> {
-                if (PackedCriteria.depMins(t) >= arrMins) {
+            profile.forStation(arrStationId).forEachDepartingAtOrAfter(arrMins, (long t) ->
                     f.add(PackedCriteria.withAdditionalChange(
                             PackedCriteria.withoutDepMins(
-                                    PackedCriteria.withPayload(t, liaisonId))));
-                }
-            });
+                                    PackedCriteria.withPayload(t, liaisonId)))));
 
             if (!f.isEmpty()) {
                 profile.forTrip(tripId).addAll(f);
 
-                int start = PackedRange.startInclusive(transfers.arrivingAt(depStationId));
-                int end = PackedRange.endExclusive(transfers.arrivingAt(depStationId));
+                int transfersStart =
+                        PackedRange.startInclusive(transfers.arrivingAt(depStationId));
+                int transfersEnd = PackedRange.endExclusive(transfers.arrivingAt(depStationId));
 
-                for (int j = start; j < end; ++j) {
+                for (int j = transfersStart; j < transfersEnd; ++j) {
                     int newDepMins = depMins - transfers.minutes(j);
                     int depTransferStationId = transfers.depStationId(j);
 
@@ -127,30 +651,59 @@ public record Router(TimeTable timeTable) {
                     }
                 }
             }
-            progressListener.progress((i + 1) / (double) connections.size());
         }
         progressListener.progress(1d);
-        return profile.build();
     }
 
     /**
-     * Pré‑alloue un {@link ParetoFront.Builder} vide pour chaque station et
-     * chaque course.  Cela simplifie la boucle principale : on n’a plus à
-     * tester la présence d’un builder ni à l’instancier à chaud, ce qui
-     * économise quelques allocations et branches conditionnelles.
+     * Retourne l'identifiant de la gare de départ de la liaison donnée, lu dans les colonnes
+     * des liaisons si elles sont décodées (voir {@link CachedTimeTable}), ou obtenu à partir
+     * de l'identifiant de son arrêt sinon.
+     */
+    static int depStationId(TimeTable timeTable, Connections connections, int id) {
+        return connections instanceof DecodedConnections decoded
+                ? decoded.depStationId(id)
+                : timeTable.stationId(connections.depStopId(id));
+    }
+
+    /**
+     * Retourne l'identifiant de la gare d'arrivée de la liaison donnée, lu dans les colonnes
+     * des liaisons si elles sont décodées (voir {@link CachedTimeTable}), ou obtenu à partir
+     * de l'identifiant de son arrêt sinon.
+     */
+    static int arrStationId(TimeTable timeTable, Connections connections, int id) {
+        return connections instanceof DecodedConnections decoded
+                ? decoded.arrStationId(id)
+                : timeTable.stationId(connections.arrStopId(id));
+    }
+
+    /**
+     * Retourne l'ensemble, sous forme de bits, des courses du jour donné effectuées par l'un
+     * des types de véhicules donnés, ou {@code null} si aucun type n'est donné.
      *
-     * @param p            le builder de profil à initialiser
-     * @param stationCount nombre total de gares
-     * @param tripCount    nombre total de courses actives pour la date
+     * @param timeTable        l'horaire
+     * @param date             la date
+     * @param excludedVehicles les types de véhicules exclus
+     * @return l'ensemble des courses exclues, ou {@code null} s'il est vide
      */
-    private static void preallocateBuilders(Profile.Builder p,
-                                            int stationCount,
-                                            int tripCount) {
-        for (int s = 0; s < stationCount; ++s) {
-            p.setForStation(s, new ParetoFront.Builder());
-        }
-        for (int t = 0; t < tripCount; ++t) {
-            p.setForTrip(t, new ParetoFront.Builder());
+    static long[] excludedTrips(TimeTable timeTable, LocalDate date,
+                                Set<Vehicle> excludedVehicles) {
+        if (excludedVehicles.isEmpty()) return null;
+        Trips trips = timeTable.tripsFor(date);
+        Routes routes = timeTable.routes();
+        long[] excluded = new long[(trips.size() + Long.SIZE - 1) / Long.SIZE];
+        for (int t = 0; t < trips.size(); ++t) {
+            if (excludedVehicles.contains(routes.vehicle(trips.routeId(t)))) {
+                excluded[t >>> 6] |= 1L << t;
+            }
         }
+        return excluded;
+    }
+
+    /**
+     * Retourne vrai si et seulement si la course donnée appartient à l'ensemble donné.
+     */
+    static boolean isExcluded(long[] excludedTrips, int tripId) {
+        return (excludedTrips[tripId >>> 6] & (1L << tripId)) != 0;
     }
 }
\ No newline at end of file
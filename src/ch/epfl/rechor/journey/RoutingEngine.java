@@ -0,0 +1,43 @@
+package ch.epfl.rechor.journey;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moteur de recherche d'itinéraires, calculant les profils des voyages optimaux menant à une
+ * gare d'arrivée.
+ * <p>
+ * Toutes les implémentations produisent des profils de même nature, dont les voyages peuvent
+ * être extraits au moyen de {@link JourneyExtractor} ; elles ne diffèrent que par l'algorithme
+ * utilisé, et donc par leurs performances selon le type de requête.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ * @see Router
+ * @see RaptorRouter
+ */
+public interface RoutingEngine {
+
+    /**
+     * Calcule le profil des voyages optimaux permettant de rejoindre la gare d'arrivée donnée
+     * le jour donné.
+     *
+     * @param date          la date pour laquelle les voyages sont calculés
+     * @param destinationId l'identifiant de la gare d'arrivée
+     * @return le profil des voyages optimaux
+     */
+    Profile profile(LocalDate date, int destinationId);
+
+    /**
+     * Retourne les voyages optimaux de la gare de départ à la gare d'arrivée données, le jour
+     * donné, triés par heure de départ puis d'arrivée.
+     *
+     * @param date         la date pour laquelle les voyages sont calculés
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return les voyages optimaux
+     */
+    default List<Journey> journeys(LocalDate date, int depStationId, int arrStationId) {
+        return JourneyExtractor.journeys(profile(date, arrStationId), depStationId);
+    }
+}
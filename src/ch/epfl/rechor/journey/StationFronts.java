@@ -0,0 +1,173 @@
+package ch.epfl.rechor.journey;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Liste immuable des frontières de Pareto des gares d'un profil, stockées sous forme de
+ * lignes creuses compressées (CSR).
+ * <p>
+ * Les tuples de toutes les frontières sont placés les uns à la suite des autres, gare après
+ * gare, et la position du premier tuple de chaque gare est donnée par un tableau d'index ;
+ * les tuples de la gare {@code s} occupent donc les positions comprises entre
+ * {@code offsets[s]} (inclus) et {@code offsets[s + 1]} (exclus). Un profil n'occupe ainsi
+ * que deux tableaux, quel que soit son nombre de gares.
+ * </p>
+ * <p>
+ * Deux variantes existent : {@link InMemory}, dont les tableaux sont en mémoire et dont les
+ * frontières sont des vues sur le tableau des tuples, et {@link Mapped}, dont les tableaux
+ * sont typiquement projetés en mémoire depuis un fichier (voir {@link ProfileStore}) et dont
+ * les tuples sont encodés par différence.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+abstract sealed class StationFronts extends AbstractList<ParetoFront> implements RandomAccess {
+
+    /**
+     * Construit la liste compacte des frontières données.
+     *
+     * @param fronts les frontières des gares
+     * @return la liste des frontières, stockées en mémoire
+     */
+    static StationFronts of(List<ParetoFront> fronts) {
+        int[] offsets = new int[fronts.size() + 1];
+        for (int s = 0; s < fronts.size(); ++s) {
+            offsets[s + 1] = offsets[s] + fronts.get(s).size();
+        }
+        long[] tuples = new long[offsets[fronts.size()]];
+        int[] position = {0};
+        for (ParetoFront front : fronts) {
+            front.forEach(t -> tuples[position[0]++] = t);
+        }
+        return new InMemory(offsets, tuples);
+    }
+
+    /**
+     * Retourne la position du premier tuple de chaque gare, suivie du nombre total de tuples.
+     *
+     * @return les positions des frontières
+     */
+    abstract IntBuffer offsets();
+
+    /**
+     * Retourne les tuples de toutes les gares, chaque frontière étant encodée par différence :
+     * son premier tuple est stocké tel quel et chacun des suivants sous la forme de sa
+     * différence avec le précédent.
+     *
+     * @return les tuples encodés par différence
+     */
+    abstract LongBuffer deltaEncodedTuples();
+
+    /**
+     * Frontières dont les tableaux sont en mémoire. Les frontières retournées par
+     * {@link #get(int)} sont de nouvelles vues, non conservées, sur le tableau des tuples, qui
+     * n'est pas encodé.
+     */
+    static final class InMemory extends StationFronts {
+        private final int[] offsets;
+        private final long[] tuples;
+
+        /**
+         * Construit la liste des frontières à partir des tableaux donnés, qui ne sont pas
+         * copiés et ne doivent plus être modifiés.
+         *
+         * @param offsets la position du premier tuple de chaque gare, suivie du nombre total
+         *                de tuples
+         * @param tuples  les tuples de toutes les gares
+         */
+        InMemory(int[] offsets, long[] tuples) {
+            this.offsets = offsets;
+            this.tuples = tuples;
+        }
+
+        @Override
+        public ParetoFront get(int stationId) {
+            Objects.checkIndex(stationId, size());
+            int from = offsets[stationId];
+            int to = offsets[stationId + 1];
+            return from == to ? ParetoFront.EMPTY : new ParetoFront(tuples, from, to);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length - 1;
+        }
+
+        @Override
+        IntBuffer offsets() {
+            return IntBuffer.wrap(offsets).asReadOnlyBuffer();
+        }
+
+        @Override
+        LongBuffer deltaEncodedTuples() {
+            long[] deltas = new long[tuples.length];
+            for (int s = 0; s < size(); ++s) {
+                long previous = 0;
+                for (int i = offsets[s]; i < offsets[s + 1]; ++i) {
+                    deltas[i] = tuples[i] - previous;
+                    previous = tuples[i];
+                }
+            }
+            return LongBuffer.wrap(deltas);
+        }
+    }
+
+    /**
+     * Frontières dont les tableaux sont accédés au travers de tampons, qui peuvent être
+     * projetés en mémoire. Les tuples sont encodés par différence, et une frontière n'est
+     * décodée qu'au moment où elle est obtenue au moyen de {@link #get(int)}.
+     */
+    static final class Mapped extends StationFronts {
+        private final IntBuffer offsets;
+        private final LongBuffer tuples;
+
+        /**
+         * Construit la liste des frontières à partir des tampons donnés, qui ne sont pas
+         * copiés.
+         *
+         * @param offsets la position du premier tuple de chaque gare, suivie du nombre total
+         *                de tuples
+         * @param tuples  les tuples de toutes les gares, encodés par différence
+         */
+        Mapped(IntBuffer offsets, LongBuffer tuples) {
+            this.offsets = offsets;
+            this.tuples = tuples;
+        }
+
+        @Override
+        public ParetoFront get(int stationId) {
+            Objects.checkIndex(stationId, size());
+            int from = offsets.get(stationId);
+            int to = offsets.get(stationId + 1);
+            if (from == to) return ParetoFront.EMPTY;
+
+            long[] front = new long[to - from];
+            long tuple = 0;
+            for (int i = from; i < to; ++i) {
+                tuple += tuples.get(i);
+                front[i - from] = tuple;
+            }
+            return new ParetoFront(front);
+        }
+
+        @Override
+        public int size() {
+            return offsets.limit() - 1;
+        }
+
+        @Override
+        IntBuffer offsets() {
+            return offsets.duplicate();
+        }
+
+        @Override
+        LongBuffer deltaEncodedTuples() {
+            return tuples.duplicate();
+        }
+    }
+}
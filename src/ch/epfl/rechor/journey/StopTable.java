@@ -0,0 +1,89 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.TimeTable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table des arrêts ({@link Stop}) d'un horaire, indexée par identifiant d'arrêt.
+ * <p>
+ * Chaque arrêt n'est construit qu'une seule fois, lors de sa première utilisation, puis
+ * partagé par tous les voyages qui le traversent ; le nom, les coordonnées et le nom de la
+ * voie ou du quai ne sont donc lus qu'une seule fois dans les données de l'horaire. Les
+ * arrêts correspondant à une voie ou un quai partagent en outre le nom de leur gare avec
+ * l'arrêt de celle-ci. Seuls les arrêts déjà utilisés occupent de la mémoire.
+ * </p>
+ * <p>
+ * Un horaire {@link CachedTimeTable} possède sa propre table, créée lors de sa première
+ * utilisation et partagée par toutes les extractions de voyages ; pour les autres horaires,
+ * une table est créée pour chaque extraction (voir {@link #of(TimeTable)}). La table peut
+ * être utilisée par plusieurs fils d'exécution à la fois.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class StopTable {
+    private final TimeTable timeTable;
+    private final Stations stations;
+    private final int stopCount;
+    private final Map<Integer, Stop> stops = new ConcurrentHashMap<>();
+
+    /**
+     * Construit une table, initialement vide, des arrêts de l'horaire donné.
+     *
+     * @param timeTable l'horaire
+     */
+    public StopTable(TimeTable timeTable) {
+        this.timeTable = timeTable;
+        this.stations = timeTable.stations();
+        this.stopCount = stations.size() + timeTable.platforms().size();
+    }
+
+    /**
+     * Retourne la table des arrêts à utiliser pour une extraction de voyages de l'horaire
+     * donné : celle de l'horaire s'il s'agit d'un {@link CachedTimeTable}, une nouvelle
+     * table sinon.
+     *
+     * @param timeTable l'horaire
+     * @return la table des arrêts de l'horaire
+     */
+    static StopTable of(TimeTable timeTable) {
+        return timeTable instanceof CachedTimeTable cached
+                ? cached.stops()
+                : new StopTable(timeTable);
+    }
+
+    /**
+     * Retourne l'arrêt d'identifiant donné, en le construisant s'il ne l'a pas encore été.
+     *
+     * @param stopId l'identifiant de l'arrêt (gare ou voie/quai)
+     * @return l'arrêt
+     * @throws IndexOutOfBoundsException si l'identifiant est invalide
+     */
+    public Stop stop(int stopId) {
+        Objects.checkIndex(stopId, stopCount);
+        Stop stop = stops.get(stopId);
+        if (stop != null) return stop;
+
+        int stationId = timeTable.stationId(stopId);
+        if (stationId == stopId) {
+            stop = new Stop(
+                    stations.name(stationId),
+                    null,
+                    stations.longitude(stationId),
+                    stations.latitude(stationId)
+            );
+        } else {
+            Stop station = stop(stationId);
+            stop = new Stop(station.name(), timeTable.platformName(stopId),
+                    station.longitude(), station.latitude());
+        }
+        // Deux fils peuvent construire le même arrêt, seul le premier est conservé
+        Stop witness = stops.putIfAbsent(stopId, stop);
+        return witness == null ? stop : witness;
+    }
+}
@@ -0,0 +1,417 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.DecodedConnections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static ch.epfl.rechor.Bits32_24_8.unpack24;
+import static ch.epfl.rechor.Bits32_24_8.unpack8;
+import static ch.epfl.rechor.journey.PackedCriteria.*;
+
+/**
+ * Motifs de changement (<i>transfer patterns</i>) d'un jour, permettant de répondre très
+ * rapidement aux requêtes d'une gare à une autre.
+ * <p>
+ * Le motif d'un voyage est la suite des gares où il monte dans un véhicule et en descend.
+ * Lors du précalcul, le profil de chaque gare d'arrivée est calculé au moyen de
+ * {@link Router}, et le motif de chacun des voyages optimaux qu'il contient est extrait,
+ * de la même manière que le fait {@link JourneyExtractor}. Les motifs ayant la même gare de
+ * départ sont stockés dans un arbre dont chaque nœud correspond à une étape en transport
+ * public (gare de montée et de descente), les motifs ayant un même début partageant les mêmes
+ * nœuds ; chaque nœud peut terminer les motifs d'une ou plusieurs gares d'arrivée.
+ * </p>
+ * <p>
+ * Pour répondre à une requête, seuls les nœuds menant aux motifs de la gare d'arrivée sont
+ * évalués, de la racine vers les feuilles. Chacun d'eux nécessite une seule recherche de
+ * liaison directe, c.-à-d. de l'arrivée la plus précoce à la gare de descente au moyen d'une
+ * seule course partant de la gare de montée, faite grâce à un index des départs de chaque
+ * gare. Les voyages trouvés respectent les mêmes règles que ceux du profil (temps de
+ * changement, liaisons supprimées) et leur arrivée est au moins aussi précoce que celle des
+ * voyages correspondants du profil.
+ * </p>
+ * <p>
+ * Les instances sont immuables et peuvent donc être partagées par plusieurs fils de calcul.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class TransferPatterns {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int NOT_EVALUATED = Integer.MIN_VALUE;
+
+    private final TimeTable timeTable;
+    private final LocalDate date;
+    private final DecodedConnections connections;
+
+    // Nœuds des arbres de toutes les gares de départ, ceux de la gare s occupant les
+    // positions comprises entre nodeStart[s] (inclus) et nodeStart[s + 1] (exclus)
+    private final int[] nodeStart;
+    private final int[] parents;
+    private final int[] boardStations;
+    private final int[] alightStations;
+
+    // Nœuds terminant les motifs de chaque gare d'arrivée, triés par gare d'arrivée
+    private final int[] targetStart;
+    private final int[] targetStations;
+    private final int[] targetNodes;
+
+    // Index des départs : liaisons partant de chaque gare, par heure de départ croissante
+    private final int[] departureStart;
+    private final int[] departures;
+
+    private TransferPatterns(TimeTable timeTable, LocalDate date,
+                             DecodedConnections connections, PatternTree[] trees) {
+        this.timeTable = timeTable;
+        this.date = date;
+        this.connections = connections;
+
+        int stationCount = trees.length;
+        nodeStart = new int[stationCount + 1];
+        targetStart = new int[stationCount + 1];
+        for (int s = 0; s < stationCount; ++s) {
+            trees[s].sortTargets();
+            nodeStart[s + 1] = nodeStart[s] + trees[s].size;
+            targetStart[s + 1] = targetStart[s] + trees[s].targetCount;
+        }
+        parents = new int[nodeStart[stationCount]];
+        boardStations = new int[parents.length];
+        alightStations = new int[parents.length];
+        targetStations = new int[targetStart[stationCount]];
+        targetNodes = new int[targetStations.length];
+        for (int s = 0; s < stationCount; ++s) {
+            PatternTree tree = trees[s];
+            int base = nodeStart[s];
+            for (int n = 0; n < tree.size; ++n) {
+                parents[base + n] = tree.parents[n] < 0 ? -1 : base + tree.parents[n];
+                boardStations[base + n] = tree.boardStations[n];
+                alightStations[base + n] = tree.alightStations[n];
+            }
+            for (int t = 0; t < tree.targetCount; ++t) {
+                targetStations[targetStart[s] + t] = (int) (tree.targets[t] >>> Integer.SIZE);
+                targetNodes[targetStart[s] + t] = base + (int) tree.targets[t];
+            }
+        }
+
+        departureStart = new int[stationCount + 1];
+        for (int c = 0; c < connections.size(); ++c) {
+            departureStart[connections.depStationId(c) + 1] += 1;
+        }
+        for (int s = 0; s < stationCount; ++s) departureStart[s + 1] += departureStart[s];
+        departures = new int[connections.size()];
+        int[] next = Arrays.copyOf(departureStart, stationCount);
+        // Les liaisons sont triées par heure de départ décroissante
+        for (int c = connections.size() - 1; c >= 0; --c) {
+            departures[next[connections.depStationId(c)]++] = c;
+        }
+    }
+
+    /**
+     * Précalcule les motifs de changement de toutes les paires de gares pour le jour donné,
+     * en utilisant un fil de calcul par cœur disponible.
+     *
+     * @param timeTable l'horaire
+     * @param date      le jour
+     * @return les motifs de changement du jour
+     */
+    public static TransferPatterns compute(TimeTable timeTable, LocalDate date) {
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+            return compute(timeTable, date, pool);
+        }
+    }
+
+    /**
+     * Précalcule les motifs de changement de toutes les paires de gares pour le jour donné,
+     * en utilisant l'exécuteur donné pour calculer les profils.
+     *
+     * @param timeTable l'horaire
+     * @param date      le jour
+     * @param executor  l'exécuteur sur lequel les calculs sont lancés
+     * @return les motifs de changement du jour
+     */
+    public static TransferPatterns compute(TimeTable timeTable, LocalDate date,
+                                           Executor executor) {
+        DecodedConnections connections = DecodedConnections.of(timeTable, date);
+        int stationCount = timeTable.stations().size();
+        PatternTree[] trees = new PatternTree[stationCount];
+        for (int s = 0; s < stationCount; ++s) trees[s] = new PatternTree();
+
+        int[] destinations = new int[stationCount];
+        Arrays.setAll(destinations, s -> s);
+        new Router(timeTable).profiles(date, destinations, executor, p -> { }, profile -> {
+            for (int s = 0; s < stationCount; ++s) {
+                if (s != profile.arrStationId()) {
+                    addPatterns(profile, s, connections, trees[s]);
+                }
+            }
+        });
+        return new TransferPatterns(timeTable, date, connections, trees);
+    }
+
+    /**
+     * Ajoute à l'arbre donné les motifs des voyages optimaux du profil donné partant de la
+     * gare donnée, extraits de la même manière que par
+     * {@link JourneyExtractor#journeys(Profile, int)}.
+     */
+    private static void addPatterns(Profile profile, int depStationId,
+                                    DecodedConnections connections, PatternTree tree) {
+        int arrStationId = profile.arrStationId();
+        profile.forStation(depStationId).forEach((long criteria) -> {
+            int[] payloads = new int[changes(criteria) + 1];
+            int legCount = JourneyExtractor.transportLegs(profile.timeTable(), arrStationId,
+                    connections, profile::forStation, criteria, payloads);
+            int[] legs = new int[2 * legCount];
+            for (int i = 0; i < legCount; ++i) {
+                int connectionId = unpack24(payloads[i]);
+                legs[2 * i] = connections.depStationId(connectionId);
+                legs[2 * i + 1] = connections.arrStationId(
+                        connections.connectionAfter(connectionId, unpack8(payloads[i])));
+            }
+            synchronized (tree) {
+                tree.add(legs, legCount, arrStationId);
+            }
+        });
+    }
+
+    /**
+     * Retourne l'horaire dont les motifs ont été calculés.
+     *
+     * @return l'horaire
+     */
+    public TimeTable timeTable() {
+        return timeTable;
+    }
+
+    /**
+     * Retourne le jour dont les motifs ont été calculés.
+     *
+     * @return le jour
+     */
+    public LocalDate date() {
+        return date;
+    }
+
+    /**
+     * Retourne le nombre total de nœuds des arbres de motifs de toutes les gares de départ.
+     *
+     * @return le nombre de nœuds
+     */
+    public int nodeCount() {
+        return parents.length;
+    }
+
+    /**
+     * Retourne la frontière de Pareto des voyages de la gare de départ à la gare d'arrivée
+     * données, partant au plus tôt à l'heure donnée.
+     * <p>
+     * Les tuples de la frontière ne contiennent que l'heure d'arrivée et le nombre de
+     * changements de chaque voyage ; leur charge utile est nulle.
+     * </p>
+     *
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @param depMins      l'heure de départ, en minutes après minuit
+     * @return la frontière des voyages optimaux, vide s'il n'y en a aucun
+     * @throws IndexOutOfBoundsException si l'une des gares n'existe pas
+     */
+    public ParetoFront query(int depStationId, int arrStationId, int depMins) {
+        Objects.checkIndex(depStationId, nodeStart.length - 1);
+        Objects.checkIndex(arrStationId, nodeStart.length - 1);
+
+        int from = targetStart[depStationId];
+        int to = targetStart[depStationId + 1];
+        int t = Arrays.binarySearch(targetStations, from, to, arrStationId);
+        if (t < 0) return ParetoFront.EMPTY;
+        while (t > from && targetStations[t - 1] == arrStationId) t -= 1;
+
+        int base = nodeStart[depStationId];
+        int[] arrivals = new int[nodeStart[depStationId + 1] - base];
+        Arrays.fill(arrivals, NOT_EVALUATED);
+        Transfers transfers = timeTable.transfers();
+        ParetoFront.Builder front = new ParetoFront.Builder();
+        for (; t < to && targetStations[t] == arrStationId; ++t) {
+            int node = targetNodes[t];
+            int arrMins = evaluate(node, base, depStationId, depMins, arrivals);
+            if (arrMins == UNREACHABLE) continue;
+
+            int alightStationId = alightStations[node];
+            int walkMins = walkMinutes(transfers, alightStationId, arrStationId);
+            if (walkMins < 0) {
+                if (alightStationId != arrStationId) continue;
+                walkMins = 0;
+            }
+            front.add(arrMins + walkMins, depth(node) - 1, 0);
+        }
+        return front.build();
+    }
+
+    /**
+     * Retourne l'heure d'arrivée la plus précoce à la gare de descente du nœud donné, en
+     * évaluant au besoin ses ancêtres, ou {@link #UNREACHABLE} si elle ne peut être atteinte.
+     */
+    private int evaluate(int node, int base, int depStationId, int depMins, int[] arrivals) {
+        if (arrivals[node - base] != NOT_EVALUATED) return arrivals[node - base];
+
+        int parent = parents[node];
+        int fromStationId;
+        int readyMins;
+        if (parent < 0) {
+            fromStationId = depStationId;
+            readyMins = depMins;
+        } else {
+            fromStationId = alightStations[parent];
+            readyMins = evaluate(parent, base, depStationId, depMins, arrivals);
+        }
+
+        int arrMins = UNREACHABLE;
+        if (readyMins != UNREACHABLE) {
+            int walkMins = walkMinutes(timeTable.transfers(), fromStationId, boardStations[node]);
+            if (walkMins >= 0) {
+                arrMins = earliestDirectArrival(boardStations[node], alightStations[node],
+                        readyMins + walkMins);
+            }
+        }
+        arrivals[node - base] = arrMins;
+        return arrMins;
+    }
+
+    /**
+     * Retourne l'heure d'arrivée la plus précoce à la seconde gare donnée au moyen d'une
+     * seule course partant de la première au plus tôt à l'heure donnée, ou
+     * {@link #UNREACHABLE} s'il n'y en a aucune.
+     */
+    private int earliestDirectArrival(int boardStationId, int alightStationId, int depMins) {
+        int from = departureStart[boardStationId];
+        int to = departureStart[boardStationId + 1];
+        // Première liaison partant au plus tôt à l'heure donnée
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (connections.depMins(departures[mid]) < depMins) from = mid + 1;
+            else to = mid;
+        }
+
+        int best = UNREACHABLE;
+        for (int d = from; d < departureStart[boardStationId + 1]; ++d) {
+            int c = departures[d];
+            if (connections.depMins(c) >= best) break;
+            while (!connections.isCancelled(c)) {
+                if (connections.arrStationId(c) == alightStationId) {
+                    best = Math.min(best, connections.arrMins(c));
+                    break;
+                }
+                c = connections.nextConnectionId(c);
+                if (connections.tripPos(c) == 0) break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Retourne la durée du changement de la première gare donnée à la seconde, ou -1 s'il
+     * n'y en a aucun.
+     */
+    private static int walkMinutes(Transfers transfers, int fromStationId, int toStationId) {
+        int range = transfers.arrivingAt(toStationId);
+        for (int j = PackedRange.startInclusive(range); j < PackedRange.endExclusive(range); ++j) {
+            if (transfers.depStationId(j) == fromStationId) return transfers.minutes(j);
+        }
+        return -1;
+    }
+
+    /**
+     * Retourne la profondeur du nœud donné, c.-à-d. le nombre d'étapes en transport public
+     * du motif qu'il termine.
+     */
+    private int depth(int node) {
+        int depth = 0;
+        for (int n = node; n >= 0; n = parents[n]) depth += 1;
+        return depth;
+    }
+
+    /**
+     * Arbre des motifs ayant une même gare de départ, en construction. Les nœuds sont
+     * numérotés dans l'ordre de leur création, si bien que le parent d'un nœud le précède
+     * toujours.
+     */
+    private static final class PatternTree {
+        private int[] parents = new int[8];
+        private int[] boardStations = new int[8];
+        private int[] alightStations = new int[8];
+        private int[] firstChildren = new int[8];
+        private int[] nextSiblings = new int[8];
+        private int size;
+        private int firstRoot = -1;
+
+        // Gare d'arrivée (32 bits de poids fort) et nœud (32 bits de poids faible)
+        private long[] targets = new long[8];
+        private int targetCount;
+
+        /**
+         * Ajoute le motif donné, constitué de la gare de montée et de descente de chacune de
+         * ses étapes, comme motif de la gare d'arrivée donnée.
+         */
+        void add(int[] legs, int legCount, int arrStationId) {
+            int node = -1;
+            for (int l = 0; l < legCount; ++l) {
+                node = child(node, legs[2 * l], legs[2 * l + 1]);
+            }
+            if (targetCount == targets.length) targets = Arrays.copyOf(targets, 2 * targetCount);
+            targets[targetCount++] = (long) arrStationId << Integer.SIZE | node;
+        }
+
+        /**
+         * Retourne le fils du nœud donné (ou la racine si le nœud vaut -1) correspondant à
+         * l'étape donnée, en le créant s'il n'existe pas.
+         */
+        private int child(int parent, int boardStationId, int alightStationId) {
+            int c = parent < 0 ? firstRoot : firstChildren[parent];
+            for (; c >= 0; c = nextSiblings[c]) {
+                if (boardStations[c] == boardStationId && alightStations[c] == alightStationId) {
+                    return c;
+                }
+            }
+
+            if (size == parents.length) {
+                int capacity = 2 * size;
+                parents = Arrays.copyOf(parents, capacity);
+                boardStations = Arrays.copyOf(boardStations, capacity);
+                alightStations = Arrays.copyOf(alightStations, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            }
+            int node = size++;
+            parents[node] = parent;
+            boardStations[node] = boardStationId;
+            alightStations[node] = alightStationId;
+            firstChildren[node] = -1;
+            if (parent < 0) {
+                nextSiblings[node] = firstRoot;
+                firstRoot = node;
+            } else {
+                nextSiblings[node] = firstChildren[parent];
+                firstChildren[parent] = node;
+            }
+            return node;
+        }
+
+        /**
+         * Trie les motifs par gare d'arrivée, en supprimant les doublons.
+         */
+        void sortTargets() {
+            Arrays.sort(targets, 0, targetCount);
+            int distinct = 0;
+            for (int t = 0; t < targetCount; ++t) {
+                if (distinct == 0 || targets[t] != targets[distinct - 1]) {
+                    targets[distinct++] = targets[t];
+                }
+            }
+            targetCount = distinct;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.TimeTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Matrice des durées de voyage minimales et des nombres de changements minimaux entre
+ * toutes les paires de gares d'un horaire, pour un jour et une plage d'heures de départ.
+ * <p>
+ * La matrice est calculée à partir des profils de toutes les gares d'arrivée, obtenus en
+ * parallèle au moyen de {@link Router#profiles(LocalDate, int[], Executor, ProgressListener,
+ * java.util.function.Consumer)} : chaque frontière de Pareto d'un profil est directement
+ * réduite à la case correspondante de la matrice, sans construire de voyage. Seuls les
+ * voyages optimaux partant dans la plage d'heures donnée (bornes incluses) sont considérés ;
+ * la durée minimale et le nombre de changements minimal d'une case peuvent provenir de
+ * voyages différents. Les heures de départ et les durées sont celles des tuples des profils,
+ * qui comptent le temps de changement dans la gare de départ et dans celle d'arrivée ; elles
+ * peuvent donc différer de quelques minutes de celles des voyages extraits de ces profils.
+ * Comme dans les profils, seuls les voyages empruntant au moins un
+ * transport public sont considérés ; la durée d'une gare à elle-même est nulle.
+ * </p>
+ * <p>
+ * La matrice est écrite au fur et à mesure du calcul dans un fichier projeté en mémoire,
+ * remplacé de manière atomique une fois le calcul terminé, puis lue de la même manière. Ce
+ * fichier contient un en-tête de 8 entiers de 32 bits (un nombre magique, la version du
+ * format, le nombre de gares, le jour en nombre de jours depuis le 1er janvier 1970, les
+ * bornes de la plage d'heures de départ en minutes après minuit, et deux entiers
+ * inutilisés), suivi des durées en minutes (entiers non signés de 16 bits) puis des nombres
+ * de changements (entiers non signés de 8 bits). Les cases de chacune de ces deux parties
+ * sont rangées par gare d'arrivée, puis par gare de départ, de manière à ce que chaque
+ * profil remplisse une ligne contiguë.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class TravelTimeMatrix {
+    /** Valeur retournée pour une paire de gares qu'aucun voyage ne relie. */
+    public static final int UNREACHABLE = -1;
+
+    private static final int MAGIC = 0x5243544D; // "RCTM"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+    private static final int HEADER_BYTES = HEADER_INTS * Integer.BYTES;
+    private static final int NO_MINUTES = 0xFFFF;
+    private static final int NO_CHANGES = 0xFF;
+
+    private final int stationCount;
+    private final LocalDate date;
+    private final int depFromMins;
+    private final int depToMins;
+    private final Section minutes;
+    private final Section changes;
+
+    private TravelTimeMatrix(int stationCount, LocalDate date, int depFromMins, int depToMins,
+                             Section minutes, Section changes) {
+        this.stationCount = stationCount;
+        this.date = date;
+        this.depFromMins = depFromMins;
+        this.depToMins = depToMins;
+        this.minutes = minutes;
+        this.changes = changes;
+    }
+
+    /**
+     * Calcule la matrice de l'horaire donné pour le jour et la plage d'heures de départ
+     * donnés, en utilisant un fil de calcul par cœur disponible, et l'écrit dans le fichier
+     * donné.
+     *
+     * @param timeTable l'horaire
+     * @param date      le jour
+     * @param depFrom   la première heure de départ considérée
+     * @param depTo     la dernière heure de départ considérée
+     * @param file      le fichier dans lequel écrire la matrice
+     * @return la matrice, lue depuis le fichier
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si la plage d'heures est vide
+     */
+    public static TravelTimeMatrix compute(TimeTable timeTable, LocalDate date,
+                                           LocalTime depFrom, LocalTime depTo, Path file)
+            throws IOException {
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+            return compute(timeTable, date, depFrom, depTo, file, pool, f -> { });
+        }
+    }
+
+    /**
+     * Calcule la matrice de l'horaire donné pour le jour et la plage d'heures de départ
+     * donnés en utilisant l'exécuteur donné, et l'écrit dans le fichier donné, en créant si
+     * nécessaire les dossiers qui le contiennent.
+     * <p>
+     * L'écouteur de progression est appelé depuis les fils de l'exécuteur, et la progression
+     * transmise est la fraction des profils calculés.
+     * </p>
+     *
+     * @param timeTable        l'horaire
+     * @param date             le jour
+     * @param depFrom          la première heure de départ considérée
+     * @param depTo            la dernière heure de départ considérée
+     * @param file             le fichier dans lequel écrire la matrice
+     * @param executor         l'exécuteur sur lequel les profils sont calculés
+     * @param progressListener l'écouteur informé de la progression
+     * @return la matrice, lue depuis le fichier
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si la plage d'heures est vide
+     */
+    public static TravelTimeMatrix compute(TimeTable timeTable, LocalDate date,
+                                           LocalTime depFrom, LocalTime depTo, Path file,
+                                           Executor executor, ProgressListener progressListener)
+            throws IOException {
+        Preconditions.checkArgument(!depTo.isBefore(depFrom));
+        int stationCount = timeTable.stations().size();
+        int depFromMins = depFrom.toSecondOfDay() / 60;
+        int depToMins = depTo.toSecondOfDay() / 60;
+
+        AtomicFiles.write(file, channel -> {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(stationCount)
+                    .putInt((int) date.toEpochDay())
+                    .putInt(depFromMins)
+                    .putInt(depToMins)
+                    .putInt(0)
+                    .putInt(0)
+                    .rewind();
+            while (header.hasRemaining()) channel.write(header, header.position());
+
+            Section minutes = Section.map(channel, FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES, stationCount, Short.BYTES);
+            Section changes = Section.map(channel, FileChannel.MapMode.READ_WRITE,
+                    minutes.end(), stationCount, Byte.BYTES);
+
+            // Chaque profil remplit la ligne de sa gare d'arrivée, de manière concurrente
+            new Router(timeTable).profiles(date, IntStream.range(0, stationCount).toArray(),
+                    executor, progressListener,
+                    profile -> reduce(profile, depFromMins, depToMins, minutes, changes));
+            minutes.force();
+            changes.force();
+        });
+        return read(file);
+    }
+
+    /**
+     * Réduit chaque frontière du profil donné à la case de la matrice correspondante.
+     */
+    private static void reduce(Profile profile, int depFromMins, int depToMins,
+                               Section minutes, Section changes) {
+        int arrStationId = profile.arrStationId();
+        int stationCount = minutes.stationCount;
+        for (int depStationId = 0; depStationId < stationCount; ++depStationId) {
+            int bestMinutes = NO_MINUTES;
+            int bestChanges = NO_CHANGES;
+            if (depStationId == arrStationId) {
+                bestMinutes = 0;
+                bestChanges = 0;
+            } else {
+                ParetoFront front = profile.forStation(depStationId);
+                for (int i = 0; i < front.size(); ++i) {
+                    long tuple = front.tupleAt(i);
+                    int depMins = PackedCriteria.depMins(tuple);
+                    if (depMins < depFromMins || depMins > depToMins) continue;
+                    bestMinutes = Math.min(bestMinutes,
+                            Math.min(PackedCriteria.arrMins(tuple) - depMins, NO_MINUTES - 1));
+                    bestChanges = Math.min(bestChanges, PackedCriteria.changes(tuple));
+                }
+            }
+            minutes.block(arrStationId).putShort(
+                    minutes.offset(arrStationId, depStationId), (short) bestMinutes);
+            changes.block(arrStationId).put(
+                    changes.offset(arrStationId, depStationId), (byte) bestChanges);
+        }
+    }
+
+    /**
+     * Lit la matrice stockée dans le fichier donné, en projetant ce dernier en mémoire.
+     *
+     * @param file le fichier contenant la matrice
+     * @return la matrice lue
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si le fichier n'est pas un fichier de matrice valide
+     */
+    public static TravelTimeMatrix read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            Preconditions.checkArgument(channel.size() >= HEADER_BYTES);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            Preconditions.checkArgument(header.getInt(0) == MAGIC
+                    && header.getInt(4) == VERSION);
+            int stationCount = header.getInt(8);
+            Preconditions.checkArgument(stationCount >= 0 && channel.size()
+                    == HEADER_BYTES + (long) stationCount * stationCount * (Short.BYTES + 1));
+            Section minutes = Section.map(channel, FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES, stationCount, Short.BYTES);
+            Section changes = Section.map(channel, FileChannel.MapMode.READ_ONLY,
+                    minutes.end(), stationCount, Byte.BYTES);
+            return new TravelTimeMatrix(stationCount,
+                    LocalDate.ofEpochDay(header.getInt(12)),
+                    header.getInt(16),
+                    header.getInt(20),
+                    minutes,
+                    changes);
+        }
+    }
+
+    /**
+     * Retourne le nombre de gares de la matrice.
+     *
+     * @return le nombre de gares
+     */
+    public int stationCount() {
+        return stationCount;
+    }
+
+    /**
+     * Retourne le jour pour lequel la matrice a été calculée.
+     *
+     * @return le jour
+     */
+    public LocalDate date() {
+        return date;
+    }
+
+    /**
+     * Retourne la première heure de départ considérée.
+     *
+     * @return la première heure de départ
+     */
+    public LocalTime depFrom() {
+        return LocalTime.ofSecondOfDay(depFromMins * 60L);
+    }
+
+    /**
+     * Retourne la dernière heure de départ considérée.
+     *
+     * @return la dernière heure de départ
+     */
+    public LocalTime depTo() {
+        return LocalTime.ofSecondOfDay(depToMins * 60L);
+    }
+
+    /**
+     * Retourne la durée minimale, en minutes, d'un voyage entre les gares données.
+     *
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return la durée minimale, ou {@link #UNREACHABLE} si aucun voyage ne les relie
+     * @throws IndexOutOfBoundsException si l'un des identifiants est invalide
+     */
+    public int minutes(int depStationId, int arrStationId) {
+        checkStations(depStationId, arrStationId);
+        int value = Short.toUnsignedInt(minutes.block(arrStationId)
+                .getShort(minutes.offset(arrStationId, depStationId)));
+        return value == NO_MINUTES ? UNREACHABLE : value;
+    }
+
+    /**
+     * Retourne le nombre minimal de changements d'un voyage entre les gares données.
+     *
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return le nombre minimal de changements, ou {@link #UNREACHABLE} si aucun voyage ne
+     * les relie
+     * @throws IndexOutOfBoundsException si l'un des identifiants est invalide
+     */
+    public int changes(int depStationId, int arrStationId) {
+        checkStations(depStationId, arrStationId);
+        int value = Byte.toUnsignedInt(changes.block(arrStationId)
+                .get(changes.offset(arrStationId, depStationId)));
+        return value == NO_CHANGES ? UNREACHABLE : value;
+    }
+
+    private void checkStations(int depStationId, int arrStationId) {
+        Objects.checkIndex(depStationId, stationCount);
+        Objects.checkIndex(arrStationId, stationCount);
+    }
+
+    /**
+     * Partie de la matrice projetée en mémoire, découpée en blocs de lignes entières, un
+     * tampon ne pouvant dépasser 2 Go.
+     */
+    private static final class Section {
+        private final int stationCount;
+        private final int cellBytes;
+        private final int rowsPerBlock;
+        private final long end;
+        private final MappedByteBuffer[] blocks;
+
+        private Section(int stationCount, int cellBytes, int rowsPerBlock, long end,
+                        MappedByteBuffer[] blocks) {
+            this.stationCount = stationCount;
+            this.cellBytes = cellBytes;
+            this.rowsPerBlock = rowsPerBlock;
+            this.end = end;
+            this.blocks = blocks;
+        }
+
+        static Section map(FileChannel channel, FileChannel.MapMode mode, long start,
+                           int stationCount, int cellBytes) throws IOException {
+            long rowBytes = (long) stationCount * cellBytes;
+            int rowsPerBlock = (int) Math.max(1, Integer.MAX_VALUE / Math.max(1, rowBytes));
+            int blockCount = (stationCount + rowsPerBlock - 1) / rowsPerBlock;
+            MappedByteBuffer[] blocks = new MappedByteBuffer[blockCount];
+            for (int b = 0; b < blockCount; ++b) {
+                int rows = Math.min(rowsPerBlock, stationCount - b * rowsPerBlock);
+                blocks[b] = channel.map(mode, start + b * rowsPerBlock * rowBytes,
+                        rows * rowBytes);
+            }
+            return new Section(stationCount, cellBytes, rowsPerBlock,
+                    start + stationCount * rowBytes, blocks);
+        }
+
+        long end() {
+            return end;
+        }
+
+        MappedByteBuffer block(int row) {
+            return blocks[row / rowsPerBlock];
+        }
+
+        int offset(int row, int column) {
+            return ((row % rowsPerBlock) * stationCount + column) * cellBytes;
+        }
+
+        void force() {
+            for (MappedByteBuffer block : blocks) block.force();
+        }
+    }
+}
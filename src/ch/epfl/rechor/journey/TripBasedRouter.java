@@ -0,0 +1,416 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Bits32_24_8;
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.DecodedConnections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+import ch.epfl.rechor.timetable.Trips;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static ch.epfl.rechor.journey.JourneyExtractor.createFootLeg;
+import static ch.epfl.rechor.journey.JourneyExtractor.createTime;
+import static ch.epfl.rechor.journey.JourneyExtractor.createTransportLeg;
+
+/**
+ * Moteur de recherche d'itinéraires d'une gare à une autre, pour une heure de départ donnée,
+ * utilisant l'algorithme <i>Trip-Based</i> et les changements précalculés par
+ * {@link TripTransfers}.
+ * <p>
+ * Un segment de course est une partie de course, d'un arrêt de montée jusqu'au premier
+ * arrêt déjà atteint auparavant par cette course ou par une course plus précoce de la même
+ * ligne. Les segments sont parcourus en largeur, par nombre de changements croissant : ceux
+ * du niveau 0 sont les courses attrapées depuis la gare de départ, et ceux du niveau
+ * {@code n + 1} sont atteints depuis ceux du niveau {@code n} au moyen des changements
+ * précalculés. Chaque niveau améliorant l'heure d'arrivée à la destination donne un voyage
+ * optimal.
+ * </p>
+ * <p>
+ * Les voyages obtenus respectent les mêmes règles que ceux de {@link Router} (durées des
+ * changements, liaisons supprimées) et sont convertis en étapes de la même manière que par
+ * {@link JourneyExtractor}.
+ * </p>
+ * <p>
+ * Les instances sont immuables et peuvent donc être partagées par plusieurs fils de calcul.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class TripBasedRouter {
+    private final TimeTable timeTable;
+    private final LocalDate date;
+    private final TripTransfers transfers;
+    private final DecodedConnections connections;
+    private final Lines lines;
+    private final TripTransfers.Walks walks;
+    // Arrêts des voyages construits par le routeur
+    private final StopTable stops;
+    // Index de la première course de chaque ligne parmi les courses de toutes les lignes
+    private final int[] tripStart;
+    // Vrai pour les courses (toutes lignes confondues) n'ayant aucune liaison supprimée
+    private final boolean[] complete;
+
+    /**
+     * Construit un routeur pour le jour donné, en calculant les changements d'une course à
+     * une autre.
+     *
+     * @param timeTable l'horaire
+     * @param date      la date des voyages recherchés
+     */
+    public TripBasedRouter(TimeTable timeTable, LocalDate date) {
+        this(timeTable, date, TripTransfers.compute(timeTable, date));
+    }
+
+    /**
+     * Construit un routeur pour le jour donné, utilisant les changements d'une course à une
+     * autre donnés, typiquement lus au moyen de {@link TripTransfers#read}.
+     *
+     * @param timeTable l'horaire
+     * @param date      la date des voyages recherchés
+     * @param transfers les changements d'une course à une autre du jour
+     * @throws IllegalArgumentException si les changements n'ont pas été calculés pour un
+     *                                  horaire ayant le même nombre de liaisons
+     */
+    public TripBasedRouter(TimeTable timeTable, LocalDate date, TripTransfers transfers) {
+        this.connections = DecodedConnections.of(timeTable, date);
+        Preconditions.checkArgument(transfers.connectionCount() == connections.size());
+        this.timeTable = timeTable;
+        this.date = date;
+        this.transfers = transfers;
+        int stationCount = timeTable.stations().size();
+        this.lines = Lines.of(timeTable, connections, timeTable.tripsFor(date));
+        this.walks = TripTransfers.Walks.of(timeTable.transfers(), stationCount);
+        this.stops = StopTable.of(timeTable);
+
+        int lineCount = lines.stations().length;
+        tripStart = new int[lineCount + 1];
+        for (int l = 0; l < lineCount; ++l) tripStart[l + 1] = tripStart[l] + tripCount(l);
+        complete = new boolean[tripStart[lineCount]];
+        Arrays.fill(complete, true);
+        for (int c = 0; c < connections.size(); ++c) {
+            if (connections.isCancelled(c)) {
+                complete[tripStart[lines.connectionLines()[c]] + lines.connectionTrips()[c]] =
+                        false;
+            }
+        }
+    }
+
+    /**
+     * Retourne l'horaire utilisé.
+     *
+     * @return l'horaire
+     */
+    public TimeTable timeTable() {
+        return timeTable;
+    }
+
+    /**
+     * Retourne la date des voyages recherchés.
+     *
+     * @return la date
+     */
+    public LocalDate date() {
+        return date;
+    }
+
+    /**
+     * Retourne les changements d'une course à une autre utilisés.
+     *
+     * @return les changements
+     */
+    public TripTransfers transfers() {
+        return transfers;
+    }
+
+    /**
+     * Retourne la frontière de Pareto des voyages de la gare de départ à la gare d'arrivée
+     * données, partant au plus tôt à l'heure donnée.
+     * <p>
+     * Comme dans un profil, l'heure d'arrivée de chaque tuple inclut la durée du changement
+     * à la gare d'arrivée, et sa charge utile contient la première liaison du voyage et le
+     * nombre d'arrêts intermédiaires de sa première étape ; son heure de départ est l'heure
+     * la plus tardive à laquelle il est possible de partir de la gare de départ.
+     * </p>
+     *
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @param depMins      l'heure de départ, en minutes après minuit
+     * @return la frontière des voyages optimaux, vide s'il n'y en a aucun
+     * @throws IndexOutOfBoundsException si l'une des gares n'existe pas
+     */
+    public ParetoFront query(int depStationId, int arrStationId, int depMins) {
+        Search search = search(depStationId, arrStationId, depMins);
+        if (search == null) return ParetoFront.EMPTY;
+        ParetoFront.Builder front = new ParetoFront.Builder();
+        for (int r = 0; r < search.resultCount; ++r) {
+            List<int[]> legs = search.legs(r);
+            int first = legs.getFirst()[0];
+            int payload = Bits32_24_8.pack(first,
+                    connections.tripPos(legs.getFirst()[1]) - connections.tripPos(first));
+            front.add(PackedCriteria.withDepMins(
+                    PackedCriteria.pack(search.resultArrivals[r], legs.size() - 1, payload),
+                    connections.depMins(first)
+                            - walks.minutes(depStationId, connections.depStationId(first))));
+        }
+        return front.build();
+    }
+
+    /**
+     * Retourne les voyages optimaux de la gare de départ à la gare d'arrivée données,
+     * partant au plus tôt à l'heure donnée, triés par heure de départ puis d'arrivée.
+     *
+     * @param depStationId l'identifiant de la gare de départ
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @param depMins      l'heure de départ, en minutes après minuit
+     * @return les voyages optimaux, dont les étapes sont construites comme celles des voyages
+     * extraits par {@link JourneyExtractor}
+     * @throws IndexOutOfBoundsException si l'une des gares n'existe pas
+     */
+    public List<Journey> journeys(int depStationId, int arrStationId, int depMins) {
+        Search search = search(depStationId, arrStationId, depMins);
+        if (search == null) return List.of();
+        Trips trips = timeTable.tripsFor(date);
+        Transfers footTransfers = timeTable.transfers();
+
+        List<Journey> journeys = new ArrayList<>();
+        for (int r = 0; r < search.resultCount; ++r) {
+            List<Journey.Leg> legs = new ArrayList<>();
+            List<int[]> rides = search.legs(r);
+            int first = rides.getFirst()[0];
+            int stationId = depStationId;
+            int firstStationId = connections.depStationId(first);
+            if (stationId != firstStationId) {
+                int depTime = connections.depMins(first) - walks.minutes(stationId, firstStationId);
+                legs.add(createFootLeg(stops, stationId, firstStationId,
+                        createTime(depTime, date), footTransfers));
+            }
+            for (int i = 0; i < rides.size(); ++i) {
+                int board = rides.get(i)[0];
+                int alight = rides.get(i)[1];
+                Journey.Leg.Transport leg = createTransportLeg(timeTable, stops, date,
+                        connections, trips, board, connections.tripPos(alight) - connections.tripPos(board));
+                legs.add(leg);
+                stationId = connections.arrStationId(alight);
+                LocalDateTime arrTime = leg.arrTime();
+                if (i + 1 < rides.size()) {
+                    legs.add(createFootLeg(stops, stationId,
+                            connections.depStationId(rides.get(i + 1)[0]), arrTime,
+                            footTransfers));
+                } else if (stationId != arrStationId) {
+                    legs.add(createFootLeg(stops, stationId, arrStationId, arrTime,
+                            footTransfers));
+                }
+            }
+            journeys.add(new Journey(legs));
+        }
+        journeys.sort(Comparator.comparing(Journey::depTime).thenComparing(Journey::arrTime));
+        return journeys;
+    }
+
+    /**
+     * Effectue la recherche des voyages optimaux, et retourne son état final, ou
+     * {@code null} si les gares de départ et d'arrivée sont identiques.
+     */
+    private Search search(int depStationId, int arrStationId, int depMins) {
+        int stationCount = walks.start().length - 1;
+        Objects.checkIndex(depStationId, stationCount);
+        Objects.checkIndex(arrStationId, stationCount);
+        if (depStationId == arrStationId) return null;
+        Search search = new Search(arrStationId);
+        search.run(depStationId, depMins);
+        return search;
+    }
+
+    private int tripCount(int line) {
+        int connectionCount = lines.stations()[line].length - 1;
+        return connectionCount == 0 ? 0 : lines.tripConnections()[line].length / connectionCount;
+    }
+
+    /**
+     * État d'une recherche.
+     * <p>
+     * Chaque segment est décrit par sa liaison de montée, la position dans sa ligne de
+     * l'arrêt auquel il se termine, le segment dont il provient et la liaison de descente de
+     * ce dernier ; {@code reached[t]} est la plus petite position de montée dans la course
+     * {@code t} (toutes lignes confondues) ou dans une course plus précoce de sa ligne.
+     * </p>
+     */
+    private final class Search {
+        private final int[] walkTab;
+        private final int[] reached;
+
+        private int[] segmentBoards = new int[256];
+        private int[] segmentEnds = new int[256];
+        private int[] segmentParents = new int[256];
+        private int[] segmentAlights = new int[256];
+        private int segmentCount;
+
+        // Segment et liaison de descente du meilleur voyage de chaque niveau l'améliorant
+        private int[] resultSegments = new int[8];
+        private int[] resultAlights = new int[8];
+        private int[] resultArrivals = new int[8];
+        private int resultCount;
+
+        Search(int arrStationId) {
+            walkTab = new int[walks.start().length - 1];
+            Arrays.fill(walkTab, -1);
+            Transfers footTransfers = timeTable.transfers();
+            int range = footTransfers.arrivingAt(arrStationId);
+            for (int j = PackedRange.startInclusive(range);
+                 j < PackedRange.endExclusive(range); ++j) {
+                walkTab[footTransfers.depStationId(j)] = footTransfers.minutes(j);
+            }
+            reached = new int[complete.length];
+            for (int l = 0; l < lines.stations().length; ++l) {
+                Arrays.fill(reached, tripStart[l], tripStart[l + 1],
+                        lines.stations()[l].length - 1);
+            }
+        }
+
+        void run(int depStationId, int depMins) {
+            // Niveau 0 : courses attrapées depuis la gare de départ
+            for (int w = walks.start()[depStationId]; w < walks.start()[depStationId + 1]; ++w) {
+                int stationId = walks.stations()[w];
+                int readyMins = depMins + walks.minutes()[w];
+                for (int s = lines.stopStart()[stationId];
+                     s < lines.stopStart()[stationId + 1]; ++s) {
+                    boardFirstTrips(lines.stopLines()[s], lines.stopPositions()[s], readyMins);
+                }
+            }
+
+            int best = Integer.MAX_VALUE;
+            int levelStart = 0;
+            for (int n = 0; n <= RaptorRouter.MAX_CHANGES && levelStart < segmentCount; ++n) {
+                int levelEnd = segmentCount;
+
+                // Arrivées à la destination
+                int bestSegment = -1;
+                int bestAlight = -1;
+                for (int s = levelStart; s < levelEnd; ++s) {
+                    int c = segmentBoards[s];
+                    for (int k = connections.tripPos(c); k < segmentEnds[s]; ++k) {
+                        if (connections.isCancelled(c) || connections.arrMins(c) >= best) break;
+                        int walk = walkTab[connections.arrStationId(c)];
+                        if (walk >= 0 && connections.arrMins(c) + walk < best) {
+                            best = connections.arrMins(c) + walk;
+                            bestSegment = s;
+                            bestAlight = c;
+                        }
+                        c = connections.nextConnectionId(c);
+                    }
+                }
+                if (bestSegment >= 0) addResult(bestSegment, bestAlight, best);
+
+                // Segments du niveau suivant
+                for (int s = levelStart; s < levelEnd; ++s) {
+                    int c = segmentBoards[s];
+                    for (int k = connections.tripPos(c); k < segmentEnds[s]; ++k) {
+                        if (connections.isCancelled(c) || connections.arrMins(c) >= best) break;
+                        for (int i = transfers.start(c); i < transfers.end(c); ++i) {
+                            enqueue(transfers.target(i), s, c);
+                        }
+                        c = connections.nextConnectionId(c);
+                    }
+                }
+                levelStart = levelEnd;
+            }
+        }
+
+        /**
+         * Monte dans la première course de la ligne donnée partant de l'arrêt donné au plus
+         * tôt à l'heure donnée, ainsi que dans les suivantes tant que la précédente comporte
+         * une liaison supprimée.
+         */
+        private void boardFirstTrips(int line, int position, int readyMins) {
+            int connectionCount = lines.stations()[line].length - 1;
+            if (position == connectionCount) return;
+            int[] tripConnections = lines.tripConnections()[line];
+            int tripCount = tripStart[line + 1] - tripStart[line];
+            int low = 0;
+            int high = tripCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (connections.depMins(tripConnections[mid * connectionCount + position])
+                        < readyMins) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int t = low; t < tripCount; ++t) {
+                enqueue(tripConnections[t * connectionCount + position], -1, -1);
+                if (complete[tripStart[line] + t]) break;
+            }
+        }
+
+        /**
+         * Ajoute le segment commençant par la liaison donnée, s'il n'a pas déjà été atteint.
+         */
+        private void enqueue(int boardConnectionId, int parent, int alightConnectionId) {
+            int line = lines.connectionLines()[boardConnectionId];
+            int trip = tripStart[line] + lines.connectionTrips()[boardConnectionId];
+            int position = connections.tripPos(boardConnectionId);
+            if (position >= reached[trip]) return;
+
+            if (segmentCount == segmentBoards.length) {
+                int length = segmentCount * 2;
+                segmentBoards = Arrays.copyOf(segmentBoards, length);
+                segmentEnds = Arrays.copyOf(segmentEnds, length);
+                segmentParents = Arrays.copyOf(segmentParents, length);
+                segmentAlights = Arrays.copyOf(segmentAlights, length);
+            }
+            segmentBoards[segmentCount] = boardConnectionId;
+            segmentEnds[segmentCount] = reached[trip];
+            segmentParents[segmentCount] = parent;
+            segmentAlights[segmentCount] = alightConnectionId;
+            segmentCount += 1;
+
+            // Les courses suivantes de la ligne ne peuvent faire mieux que celle-ci, à moins
+            // qu'elle ne comporte une liaison supprimée
+            if (!complete[trip]) {
+                reached[trip] = position;
+                return;
+            }
+            for (int t = trip; t < tripStart[line + 1] && reached[t] > position; ++t) {
+                reached[t] = position;
+            }
+        }
+
+        private void addResult(int segment, int alightConnectionId, int arrMins) {
+            if (resultCount == resultSegments.length) {
+                int length = resultCount * 2;
+                resultSegments = Arrays.copyOf(resultSegments, length);
+                resultAlights = Arrays.copyOf(resultAlights, length);
+                resultArrivals = Arrays.copyOf(resultArrivals, length);
+            }
+            resultSegments[resultCount] = segment;
+            resultAlights[resultCount] = alightConnectionId;
+            resultArrivals[resultCount] = arrMins;
+            resultCount += 1;
+        }
+
+        /**
+         * Retourne les étapes en transport public du voyage donné, sous la forme de paires
+         * (liaison de montée, liaison de descente), dans l'ordre du voyage.
+         */
+        List<int[]> legs(int result) {
+            List<int[]> legs = new ArrayList<>();
+            int segment = resultSegments[result];
+            int alight = resultAlights[result];
+            while (segment >= 0) {
+                legs.addFirst(new int[]{segmentBoards[segment], alight});
+                alight = segmentAlights[segment];
+                segment = segmentParents[segment];
+            }
+            return legs;
+        }
+    }
+}
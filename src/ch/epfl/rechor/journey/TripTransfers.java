@@ -0,0 +1,425 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.DecodedConnections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Changements d'une course à une autre d'un jour, précalculés pour {@link TripBasedRouter}.
+ * <p>
+ * Un changement relie la liaison après laquelle on descend d'une course à celle par laquelle
+ * on monte dans une autre. Lors du précalcul, pour chaque liaison et chaque changement à pied
+ * partant de sa gare d'arrivée (y compris le changement dans cette gare), seule la première
+ * course de chaque ligne qu'il est possible d'attraper est retenue ; les lignes sont celles
+ * calculées par {@link RaptorRouter}. Les changements inutiles sont ensuite éliminés :
+ * <ul>
+ *   <li>ceux vers une course plus tardive de la même ligne, à un arrêt suivant, rester
+ *   dans la course étant au moins aussi bon ;</li>
+ *   <li>ceux ne permettant d'arriver plus tôt à aucune gare que ce ne serait possible en
+ *   restant dans la course ou au moyen d'un changement à un arrêt suivant.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Les changements sont stockés dans le fichier {@code trip-transfers.bin} du dossier du jour,
+ * à côté des fichiers des courses et des liaisons lus par {@code FileTimeTable}. Ce fichier
+ * contient un en-tête de 8 entiers de 32 bits (un nombre magique, la version du format, le
+ * nombre de liaisons, de courses et de changements, et trois entiers inutilisés), suivi de la
+ * position du premier changement de chaque liaison, du nombre total de changements et enfin
+ * de la liaison de montée de chaque changement, ces changements étant triés par liaison de
+ * descente. Comme ceux de {@link ProfileStore}, ce fichier est projeté en mémoire lors de sa
+ * lecture.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class TripTransfers {
+    private static final int MAGIC = 0x52435454; // "RCTT"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+
+    private final int tripCount;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+
+    private TripTransfers(int tripCount, IntBuffer offsets, IntBuffer targets) {
+        this.tripCount = tripCount;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Changements à pied partant de chaque gare : ceux partant de la gare {@code s} occupent
+     * les positions comprises entre {@code start[s]} (inclus) et {@code start[s + 1]}
+     * (exclus) des deux autres tableaux.
+     *
+     * @param start    la position des changements de chaque gare
+     * @param stations la gare d'arrivée de chaque changement
+     * @param minutes  la durée de chaque changement
+     */
+    record Walks(int[] start, int[] stations, int[] minutes) {
+
+        /**
+         * Indexe par gare de départ les changements donnés.
+         *
+         * @param transfers    les changements de l'horaire
+         * @param stationCount le nombre de gares
+         * @return les changements indexés par gare de départ
+         */
+        static Walks of(Transfers transfers, int stationCount) {
+            int[] start = new int[stationCount + 1];
+            for (int j = 0; j < transfers.size(); ++j) start[transfers.depStationId(j) + 1] += 1;
+            for (int s = 0; s < stationCount; ++s) start[s + 1] += start[s];
+            int[] stations = new int[transfers.size()];
+            int[] minutes = new int[transfers.size()];
+            int[] next = Arrays.copyOf(start, stationCount);
+            for (int d = 0; d < stationCount; ++d) {
+                int range = transfers.arrivingAt(d);
+                for (int j = PackedRange.startInclusive(range);
+                     j < PackedRange.endExclusive(range); ++j) {
+                    int i = next[transfers.depStationId(j)]++;
+                    stations[i] = d;
+                    minutes[i] = transfers.minutes(j);
+                }
+            }
+            return new Walks(start, stations, minutes);
+        }
+
+        /**
+         * Retourne la durée du changement de la première gare donnée à la seconde, ou -1 s'il
+         * n'y en a aucun.
+         */
+        int minutes(int fromStationId, int toStationId) {
+            for (int i = start[fromStationId]; i < start[fromStationId + 1]; ++i) {
+                if (stations[i] == toStationId) return minutes[i];
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Calcule les changements d'une course à une autre du jour donné.
+     *
+     * @param timeTable l'horaire
+     * @param date      la date
+     * @return les changements du jour
+     */
+    public static TripTransfers compute(TimeTable timeTable, LocalDate date) {
+        DecodedConnections connections = DecodedConnections.of(timeTable, date);
+        int stationCount = timeTable.stations().size();
+        Lines lines = Lines.of(timeTable, connections, timeTable.tripsFor(date));
+        Walks walks = Walks.of(timeTable.transfers(), stationCount);
+        return new Computation(connections, lines, walks, stationCount)
+                .run(timeTable.tripsFor(date).size());
+    }
+
+    /**
+     * Retourne le chemin du fichier des changements du jour donné.
+     *
+     * @param directory le dossier contenant les données de l'horaire
+     * @param date      la date
+     * @return le chemin du fichier des changements
+     */
+    public static Path path(Path directory, LocalDate date) {
+        return directory.resolve(date.toString()).resolve("trip-transfers.bin");
+    }
+
+    /**
+     * Écrit les changements donnés dans le fichier donné, en créant si nécessaire les
+     * dossiers qui le contiennent. Le fichier est remplacé de manière atomique (voir
+     * {@link AtomicFiles}).
+     *
+     * @param transfers les changements à écrire
+     * @param file      le fichier dans lequel les écrire
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void write(TripTransfers transfers, Path file) throws IOException {
+        int connectionCount = transfers.connectionCount();
+        int transferCount = transfers.size();
+        ByteBuffer buffer = ByteBuffer.allocate(
+                (HEADER_INTS + connectionCount + 1 + transferCount) * Integer.BYTES);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(connectionCount)
+                .putInt(transfers.tripCount)
+                .putInt(transferCount)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0);
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.put(transfers.offsets.duplicate().rewind());
+        ints.put(transfers.targets.duplicate().rewind());
+        buffer.rewind();
+
+        AtomicFiles.write(file, channel -> {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        });
+    }
+
+    /**
+     * Lit les changements stockés dans le fichier donné, en projetant ce dernier en mémoire.
+     *
+     * @param timeTable l'horaire pour lequel les changements ont été calculés
+     * @param date      la date des changements
+     * @param file      le fichier contenant les changements
+     * @return les changements lus
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si le fichier n'est pas un fichier de changements
+     *                                  valide, ou s'il a été calculé pour un horaire ayant un
+     *                                  nombre de courses ou de liaisons différent de celui donné
+     */
+    public static TripTransfers read(TimeTable timeTable, LocalDate date, Path file)
+            throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Preconditions.checkArgument(buffer.capacity() >= HEADER_INTS * Integer.BYTES
+                && buffer.getInt(0) == MAGIC
+                && buffer.getInt(4) == VERSION);
+        int connectionCount = buffer.getInt(8);
+        int tripCount = buffer.getInt(12);
+        int transferCount = buffer.getInt(16);
+        Preconditions.checkArgument(connectionCount == timeTable.connectionsFor(date).size()
+                && tripCount == timeTable.tripsFor(date).size()
+                && buffer.capacity() == (HEADER_INTS + connectionCount + 1L + transferCount)
+                * Integer.BYTES);
+
+        IntBuffer offsets = buffer
+                .slice(HEADER_INTS * Integer.BYTES, (connectionCount + 1) * Integer.BYTES)
+                .asIntBuffer();
+        Preconditions.checkArgument(offsets.get(connectionCount) == transferCount);
+        IntBuffer targets = buffer
+                .slice((HEADER_INTS + connectionCount + 1) * Integer.BYTES,
+                        transferCount * Integer.BYTES)
+                .asIntBuffer();
+        return new TripTransfers(tripCount, offsets, targets);
+    }
+
+    /**
+     * Retourne le nombre de liaisons du jour pour lequel les changements ont été calculés.
+     *
+     * @return le nombre de liaisons
+     */
+    public int connectionCount() {
+        return offsets.capacity() - 1;
+    }
+
+    /**
+     * Retourne le nombre total de changements.
+     *
+     * @return le nombre de changements
+     */
+    public int size() {
+        return targets.capacity();
+    }
+
+    /**
+     * Retourne la position du premier changement partant de la liaison donnée.
+     *
+     * @param connectionId l'identifiant de la liaison de descente
+     * @return la position de son premier changement
+     * @throws IndexOutOfBoundsException si la liaison n'existe pas
+     */
+    int start(int connectionId) {
+        Objects.checkIndex(connectionId, connectionCount());
+        return offsets.get(connectionId);
+    }
+
+    /**
+     * Retourne la position suivant celle du dernier changement partant de la liaison donnée.
+     *
+     * @param connectionId l'identifiant de la liaison de descente
+     * @return la position suivant son dernier changement
+     * @throws IndexOutOfBoundsException si la liaison n'existe pas
+     */
+    int end(int connectionId) {
+        Objects.checkIndex(connectionId, connectionCount());
+        return offsets.get(connectionId + 1);
+    }
+
+    /**
+     * Retourne la liaison de montée du changement à la position donnée.
+     *
+     * @param index la position du changement
+     * @return l'identifiant de la liaison de montée
+     * @throws IndexOutOfBoundsException si la position est invalide
+     */
+    int target(int index) {
+        return targets.get(index);
+    }
+
+    /**
+     * État du précalcul des changements.
+     * <p>
+     * Les courses sont parcourues une à une, de leur dernier arrêt vers leur premier ;
+     * {@code arrivals[s]} est alors l'heure d'arrivée la plus précoce à la gare {@code s}
+     * depuis l'arrêt courant de la course, en restant dans celle-ci ou au moyen d'un des
+     * changements déjà retenus. Seules les arrivées en véhicule sont considérées, les
+     * changements à pied n'étant pas nécessairement transitifs : deux changements à pied
+     * consécutifs ne sont pas permis.
+     * </p>
+     */
+    private static final class Computation {
+        private final DecodedConnections connections;
+        private final Lines lines;
+        private final Walks walks;
+
+        private final int[] arrivals;
+        private final int[] touched;
+        private int touchedCount;
+
+        // Changements retenus, liaison de descente (32 bits de poids fort) et de montée
+        private long[] pairs = new long[1024];
+        private int pairCount;
+
+        Computation(DecodedConnections connections, Lines lines, Walks walks,
+                    int stationCount) {
+            this.connections = connections;
+            this.lines = lines;
+            this.walks = walks;
+            arrivals = new int[stationCount];
+            Arrays.fill(arrivals, Integer.MAX_VALUE);
+            touched = new int[stationCount];
+        }
+
+        TripTransfers run(int tripCount) {
+            for (int l = 0; l < lines.stations().length; ++l) {
+                int connectionCount = lines.stations()[l].length - 1;
+                if (connectionCount == 0) continue;
+                int trips = lines.tripConnections()[l].length / connectionCount;
+                for (int t = 0; t < trips; ++t) scanTrip(l, t);
+            }
+
+            Arrays.sort(pairs, 0, pairCount);
+            int[] offsets = new int[connections.size() + 1];
+            int[] targets = new int[pairCount];
+            for (int i = 0; i < pairCount; ++i) {
+                offsets[(int) (pairs[i] >>> Integer.SIZE) + 1] += 1;
+                targets[i] = (int) pairs[i];
+            }
+            for (int c = 0; c < connections.size(); ++c) offsets[c + 1] += offsets[c];
+            return new TripTransfers(tripCount, IntBuffer.wrap(offsets), IntBuffer.wrap(targets));
+        }
+
+        /**
+         * Détermine les changements retenus depuis chacune des liaisons de la course donnée.
+         */
+        private void scanTrip(int line, int trip) {
+            int[] stations = lines.stations()[line];
+            int[] tripConnections = lines.tripConnections()[line];
+            int connectionCount = stations.length - 1;
+            clearArrivals();
+
+            for (int i = connectionCount - 1; i >= 0; --i) {
+                int c = tripConnections[trip * connectionCount + i];
+                if (connections.isCancelled(c)) {
+                    // Les arrêts suivants ne peuvent pas être atteints en restant dans la course
+                    clearArrivals();
+                    continue;
+                }
+                int stationId = stations[i + 1];
+                int arrMins = connections.arrMins(c);
+                improve(stationId, arrMins);
+
+                for (int w = walks.start()[stationId]; w < walks.start()[stationId + 1]; ++w) {
+                    int readyMins = arrMins + walks.minutes()[w];
+                    int toStationId = walks.stations()[w];
+                    for (int s = lines.stopStart()[toStationId];
+                         s < lines.stopStart()[toStationId + 1]; ++s) {
+                        transfersTo(line, trip, i, lines.stopLines()[s],
+                                lines.stopPositions()[s], readyMins);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Retient les changements utiles depuis la liaison {@code i} de la course donnée vers
+         * les premières courses de la ligne cible partant de l'arrêt {@code j} au plus tôt à
+         * l'heure donnée.
+         */
+        private void transfersTo(int line, int trip, int i, int toLine, int j, int readyMins) {
+            int[] toStations = lines.stations()[toLine];
+            int[] toConnections = lines.tripConnections()[toLine];
+            int toConnectionCount = toStations.length - 1;
+            if (j == toConnectionCount) return;
+            int toTripCount = toConnections.length / toConnectionCount;
+
+            int[] stations = lines.stations()[line];
+            int connectionCount = stations.length - 1;
+            int fromConnection = lines.tripConnections()[line][trip * connectionCount + i];
+
+            // Les courses suivantes ne sont considérées que si la précédente est supprimée
+            // avant son dernier arrêt
+            for (int u = firstTrip(toConnections, toConnectionCount, toTripCount, j, readyMins);
+                 u < toTripCount; ++u) {
+                if (toLine == line && (u == trip || (u > trip && j > i))) return;
+                int c = toConnections[u * toConnectionCount + j];
+                if (connections.isCancelled(c)) continue;
+
+                boolean useful = false;
+                boolean cut = false;
+                for (int k = j; k < toConnectionCount; ++k) {
+                    int d = toConnections[u * toConnectionCount + k];
+                    if (connections.isCancelled(d)) {
+                        cut = true;
+                        break;
+                    }
+                    useful |= improve(toStations[k + 1], connections.arrMins(d));
+                }
+                if (useful) addPair(fromConnection, c);
+                if (!cut) return;
+            }
+        }
+
+        /**
+         * Retourne l'index de la première course de la ligne dont la liaison {@code j} part
+         * au plus tôt à l'heure donnée, ou le nombre de courses s'il n'y en a aucune.
+         */
+        private int firstTrip(int[] tripConnections, int connectionCount, int tripCount,
+                              int j, int depMins) {
+            int low = 0;
+            int high = tripCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (connections.depMins(tripConnections[mid * connectionCount + j]) < depMins) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Améliore l'heure d'arrivée à la gare donnée, et retourne vrai si elle l'a été.
+         */
+        private boolean improve(int stationId, int arrMins) {
+            if (arrMins >= arrivals[stationId]) return false;
+            if (arrivals[stationId] == Integer.MAX_VALUE) touched[touchedCount++] = stationId;
+            arrivals[stationId] = arrMins;
+            return true;
+        }
+
+        private void clearArrivals() {
+            for (int i = 0; i < touchedCount; ++i) arrivals[touched[i]] = Integer.MAX_VALUE;
+            touchedCount = 0;
+        }
+
+        private void addPair(int fromConnectionId, int toConnectionId) {
+            if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+            pairs[pairCount++] = (long) fromConnectionId << Integer.SIZE | toConnectionId;
+        }
+    }
+}
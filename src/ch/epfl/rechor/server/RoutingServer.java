@@ -0,0 +1,407 @@
+package ch.epfl.rechor.server;
+
+import ch.epfl.rechor.Json;
+import ch.epfl.rechor.StopIndex;
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneyExtractor;
+import ch.epfl.rechor.journey.JourneyGeoJsonConverter;
+import ch.epfl.rechor.journey.JourneyIcalConverter;
+import ch.epfl.rechor.journey.JourneySummary;
+import ch.epfl.rechor.journey.Profile;
+import ch.epfl.rechor.journey.ProfileCache;
+import ch.epfl.rechor.journey.ProfileStore;
+import ch.epfl.rechor.journey.Router;
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Service HTTP de recherche d'itinéraires, permettant d'utiliser ReCHor sans interface
+ * graphique.
+ * <p>
+ * Le service repose sur le serveur HTTP du JDK ({@code com.sun.net.httpserver}) et traite
+ * chaque requête dans son propre fil virtuel. Toutes les requêtes partagent le même horaire,
+ * le même index des arrêts et le même cache de profils ; les profils précalculés (voir
+ * {@code ProfilePrecomputation}) se trouvant dans le dossier de l'horaire sont lus plutôt
+ * que calculés. Le service n'accepte que des requêtes {@code GET} :
+ * <ul>
+ *   <li>{@code /stops?q=<requête>[&limit=<n>]} : les noms des arrêts correspondant à la
+ *   requête (voir {@link StopIndex#stopsMatching(String, int)}), en JSON ;</li>
+ *   <li>{@code /journeys?from=<arrêt>&to=<arrêt>&date=<jour>[&time=<heure>]} : les voyages
+ *   entre les deux arrêts partant au plus tôt à l'heure donnée (par défaut, tous ceux du
+ *   jour), en JSON ;</li>
+ *   <li>{@code /journey.geojson} et {@code /journey.ics}, avec les mêmes paramètres que
+ *   {@code /journeys} et un paramètre {@code index} facultatif (valant 0 par défaut) : le
+ *   tracé GeoJSON ou l'événement iCalendar du voyage d'index donné parmi ceux de
+ *   {@code /journeys}.</li>
+ * </ul>
+ * Les jours et les heures sont au format ISO (p. ex. {@code 2025-03-18} et {@code 08:30}).
+ * </p>
+ * <p>
+ * Utilisation en ligne de commande :
+ * <pre>
+ * RoutingServer [&lt;dossier&gt; [&lt;port&gt;]]
+ * </pre>
+ * le dossier de l'horaire valant par défaut {@code timetable} et le port 8080.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class RoutingServer implements AutoCloseable {
+    /**
+     * Taille totale maximale des profils gardés en cache par défaut (en octets).
+     */
+    public static final long DEFAULT_PROFILE_CACHE_BYTES = 512L << 20;
+    private static final Logger LOGGER = System.getLogger(RoutingServer.class.getName());
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_STOP_LIMIT = 15;
+
+    private final TimeTable timeTable;
+    private final Path directory;
+    private final ProfileCache profileCache;
+    private final Router router;
+    private final StopIndex stopIndex;
+    private final Map<String, Integer> stationIds;
+    private final Map<String, String> alternativeNames;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Erreur due à une requête invalide, transmise au client avec le code de statut donné.
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Construit un service pour l'horaire et le cache de profils donnés, sans le démarrer.
+     *
+     * @param timeTable    l'horaire
+     * @param directory    le dossier contenant les profils précalculés, ou {@code null} s'il
+     *                     n'y en a aucun
+     * @param profileCache le cache de profils
+     */
+    public RoutingServer(TimeTable timeTable, Path directory, ProfileCache profileCache) {
+        this.timeTable = timeTable;
+        this.directory = directory;
+        this.profileCache = profileCache;
+        this.router = new Router(timeTable);
+
+        List<String> stopNames = new ArrayList<>(timeTable.stations().size());
+        Map<String, Integer> stationIds = new HashMap<>();
+        for (int i = 0; i < timeTable.stations().size(); i++) {
+            String name = timeTable.stations().name(i);
+            stopNames.add(name);
+            stationIds.putIfAbsent(name, i);
+        }
+        Map<String, String> alternativeNames = new HashMap<>();
+        for (int i = 0; i < timeTable.stationAliases().size(); i++) {
+            alternativeNames.put(timeTable.stationAliases().alias(i),
+                    timeTable.stationAliases().stationName(i));
+        }
+        this.stationIds = Map.copyOf(stationIds);
+        this.alternativeNames = Map.copyOf(alternativeNames);
+        this.stopIndex = new StopIndex(stopNames, alternativeNames);
+    }
+
+    /**
+     * Démarre le service à l'adresse donnée.
+     *
+     * @param address l'adresse à laquelle le service est lié (le port 0 désignant un port
+     *                libre quelconque)
+     * @return l'adresse effective du service
+     * @throws IOException           si le service ne peut pas être lié à l'adresse
+     * @throws IllegalStateException si le service a déjà été démarré
+     */
+    public synchronized InetSocketAddress start(InetSocketAddress address) throws IOException {
+        if (server != null) throw new IllegalStateException();
+        server = HttpServer.create(address, 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/stops", exchange -> handle(exchange, this::stops));
+        server.createContext("/journeys", exchange -> handle(exchange, this::journeys));
+        server.createContext("/journey.geojson", exchange -> handle(exchange, this::geoJson));
+        server.createContext("/journey.ics", exchange -> handle(exchange, this::icalendar));
+        server.start();
+        return server.getAddress();
+    }
+
+    /**
+     * Arrête le service, en attendant au plus une seconde la fin des requêtes en cours.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) return;
+        server.stop(1);
+        executor.close();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Réponse à une requête : son type de contenu et son corps.
+     */
+    private record Response(String contentType, String body) {
+        static Response json(Json json) {
+            return new Response("application/json; charset=utf-8", json.toString());
+        }
+    }
+
+    /**
+     * Fonction calculant la réponse à une requête à partir de ses paramètres.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Map<String, String> parameters);
+    }
+
+    /**
+     * Traite une requête au moyen de la fonction donnée, et transmet sa réponse ou l'erreur
+     * qu'elle a produite.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            int status;
+            Response response;
+            if (!exchange.getRequestMethod().equals("GET")) {
+                status = 405;
+                response = new Response("text/plain; charset=utf-8", "Méthode non autorisée");
+            } else if (!exchange.getRequestURI().getPath()
+                    .equals(exchange.getHttpContext().getPath())) {
+                status = 404;
+                response = new Response("text/plain; charset=utf-8", "Ressource inconnue");
+            } else {
+                try {
+                    response = handler.handle(parameters(exchange.getRequestURI().getRawQuery()));
+                    status = 200;
+                } catch (RequestException e) {
+                    status = e.status;
+                    response = new Response("text/plain; charset=utf-8", e.getMessage());
+                } catch (RuntimeException e) {
+                    status = 500;
+                    response = new Response("text/plain; charset=utf-8", "Erreur interne");
+                }
+            }
+
+            byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", response.contentType());
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Retourne les paramètres de la requête dont la partie « requête » de l'URI est donnée.
+     */
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return parameters;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            try {
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new RequestException(400, "Paramètre mal encodé : " + name);
+            }
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new RequestException(400, "Paramètre manquant : " + name);
+        }
+        return value;
+    }
+
+    private static int integer(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) return defaultValue;
+        try {
+            int integer = Integer.parseInt(value);
+            if (integer < 0) throw new NumberFormatException();
+            return integer;
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Paramètre invalide : " + name);
+        }
+    }
+
+    private Response stops(Map<String, String> parameters) {
+        String query = required(parameters, "q");
+        int limit = integer(parameters, "limit", DEFAULT_STOP_LIMIT);
+        List<Json> names = stopIndex.stopsMatching(query, limit).stream()
+                .<Json>map(Json.JString::new)
+                .toList();
+        return Response.json(new Json.JArray(names));
+    }
+
+    private Response journeys(Map<String, String> parameters) {
+        List<Json> journeys = search(parameters).stream()
+                .<Json>map(s -> toJson(s.journey()))
+                .toList();
+        return Response.json(new Json.JArray(journeys));
+    }
+
+    private Response geoJson(Map<String, String> parameters) {
+        return new Response("application/geo+json; charset=utf-8",
+                JourneyGeoJsonConverter.toGeoJson(selected(parameters)).toString());
+    }
+
+    private Response icalendar(Map<String, String> parameters) {
+        return new Response("text/calendar; charset=utf-8",
+                JourneyIcalConverter.toIcalendar(selected(parameters)));
+    }
+
+    /**
+     * Retourne le voyage désigné par le paramètre {@code index} parmi ceux de la recherche.
+     */
+    private Journey selected(Map<String, String> parameters) {
+        List<JourneySummary> summaries = search(parameters);
+        int index = integer(parameters, "index", 0);
+        if (index >= summaries.size()) throw new RequestException(404, "Voyage inexistant");
+        return summaries.get(index).journey();
+    }
+
+    /**
+     * Recherche les résumés des voyages correspondant aux paramètres d'une requête.
+     */
+    private List<JourneySummary> search(Map<String, String> parameters) {
+        int depId = stationId(required(parameters, "from"));
+        int arrId = stationId(required(parameters, "to"));
+        LocalDate date;
+        LocalTime time;
+        try {
+            date = LocalDate.parse(required(parameters, "date"));
+            time = parameters.containsKey("time")
+                    ? LocalTime.parse(parameters.get("time"))
+                    : LocalTime.MIDNIGHT;
+        } catch (DateTimeParseException e) {
+            throw new RequestException(400, "Date ou heure invalide");
+        }
+
+        Profile profile = profileCache.get(new ProfileCache.Key(date, arrId, Set.of()),
+                key -> profileFor(key.date(), key.arrStationId()));
+        LocalDateTime depTime = date.atTime(time);
+        return JourneyExtractor.summaries(profile, depId).stream()
+                .filter(s -> !s.depTime().isBefore(depTime))
+                .toList();
+    }
+
+    /**
+     * Retourne le profil du jour et de la gare d'arrivée donnés, en le lisant dans le
+     * dossier de l'horaire s'il y a été précalculé, ou en le calculant sinon.
+     */
+    private Profile profileFor(LocalDate date, int arrStationId) {
+        if (directory != null) {
+            Path file = ProfileStore.path(directory, date, arrStationId);
+            if (Files.exists(file)) {
+                try {
+                    return ProfileStore.read(timeTable, date, file);
+                } catch (IOException | IllegalArgumentException e) {
+                    // Fichier illisible ou calculé pour un autre horaire : le profil est calculé
+                    LOGGER.log(Level.WARNING, "Profil " + file + " illisible, recalculé", e);
+                }
+            }
+        }
+        return router.profile(date, arrStationId);
+    }
+
+    /**
+     * Retourne l'identifiant de la gare de nom (principal ou alternatif) donné.
+     */
+    private int stationId(String name) {
+        Integer stationId = stationIds.get(alternativeNames.getOrDefault(name, name));
+        if (stationId == null) throw new RequestException(404, "Arrêt inconnu : " + name);
+        return stationId;
+    }
+
+    private static Json toJson(Journey journey) {
+        List<Json> legs = new ArrayList<>(journey.legs().size());
+        for (Journey.Leg leg : journey.legs()) {
+            Map<String, Json> attributes = new LinkedHashMap<>();
+            attributes.put("type", new Json.JString(
+                    leg instanceof Journey.Leg.Transport ? "transport" : "foot"));
+            attributes.put("depStop", new Json.JString(leg.depStop().name()));
+            if (leg.depStop().platformName() != null) {
+                attributes.put("depPlatform", new Json.JString(leg.depStop().platformName()));
+            }
+            attributes.put("depTime", new Json.JString(leg.depTime().toString()));
+            attributes.put("arrStop", new Json.JString(leg.arrStop().name()));
+            if (leg.arrStop().platformName() != null) {
+                attributes.put("arrPlatform", new Json.JString(leg.arrStop().platformName()));
+            }
+            attributes.put("arrTime", new Json.JString(leg.arrTime().toString()));
+            if (leg instanceof Journey.Leg.Transport transport) {
+                attributes.put("vehicle", new Json.JString(transport.vehicle().name()));
+                attributes.put("route", new Json.JString(transport.route()));
+                attributes.put("destination", new Json.JString(transport.destination()));
+                attributes.put("intermediateStops",
+                        new Json.JNumber(transport.intermediateStops().size()));
+            }
+            legs.add(new Json.JObject(attributes));
+        }
+
+        Map<String, Json> attributes = new LinkedHashMap<>();
+        attributes.put("depTime", new Json.JString(journey.depTime().toString()));
+        attributes.put("arrTime", new Json.JString(journey.arrTime().toString()));
+        attributes.put("legs", new Json.JArray(legs));
+        return new Json.JObject(attributes);
+    }
+
+    /**
+     * Démarre le service sur le dossier de l'horaire et le port donnés en arguments, et le
+     * laisse fonctionner jusqu'à l'arrêt du programme.
+     *
+     * @param args le dossier de l'horaire et le port, tous deux facultatifs
+     * @throws IOException si l'horaire ne peut pas être lu ou le service démarré
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "timetable");
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+
+        // Les liaisons du jour sont décodées une fois et partagées par toutes les requêtes
+        TimeTable timeTable = new CachedTimeTable(FileTimeTable.in(directory), true);
+        RoutingServer server = new RoutingServer(timeTable, directory,
+                new ProfileCache(DEFAULT_PROFILE_CACHE_BYTES));
+        InetSocketAddress address = server.start(new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.printf("ReCHor écoute sur le port %d%n", address.getPort());
+    }
+}
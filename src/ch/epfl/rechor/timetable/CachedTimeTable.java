@@ -1,5 +1,7 @@
 package ch.epfl.rechor.timetable;
 
+import ch.epfl.rechor.journey.StopTable;
+
 import java.time.LocalDate;
 
 /**
@@ -13,15 +15,28 @@ import java.time.LocalDate;
  * Les autres données (stations, quais, etc.) sont directement transmises au TimeTable
  * sous-jacent car elles ne dépendent pas de la date.
  * </p>
+ * <p>
+ * Les données du jour sont gardées dans un unique objet immuable, remplacé d'un bloc, de
+ * sorte qu'une même instance peut être partagée par plusieurs fils de calcul.
+ * </p>
+ * <p>
+ * Optionnellement, les liaisons du jour peuvent être décodées lors de leur chargement
+ * (voir {@link DecodedConnections}), afin que les calculs qui les parcourent n'aient plus
+ * qu'à lire des tableaux.
+ * </p>
+ * <p>
+ * L'horaire possède enfin sa propre table des arrêts ({@link StopTable}), partagée par
+ * toutes les extractions de voyages.
+ * </p>
  *
  * @author Sarra Zghal, Elyes Ben Abid
  */
 public final class CachedTimeTable implements TimeTable {
 
     private final TimeTable underlying;
-    private LocalDate cachedDate;
-    private Connections cachedConnections;
-    private Trips cachedTrips;
+    private final boolean decodeConnections;
+    private volatile DayData cachedDay;
+    private volatile StopTable stops;
 
     /**
      * Crée une nouvelle TimeTable avec cache.
@@ -29,7 +44,19 @@ public final class CachedTimeTable implements TimeTable {
      * @param underlying la TimeTable à envelopper
      */
     public CachedTimeTable(TimeTable underlying) {
+        this(underlying, false);
+    }
+
+    /**
+     * Crée une nouvelle TimeTable avec cache, dont les liaisons sont éventuellement décodées
+     * lors de leur chargement.
+     *
+     * @param underlying        la TimeTable à envelopper
+     * @param decodeConnections vrai si les liaisons doivent être décodées
+     */
+    public CachedTimeTable(TimeTable underlying, boolean decodeConnections) {
         this.underlying = underlying;
+        this.decodeConnections = decodeConnections;
     }
 
     /**
@@ -37,12 +64,7 @@ public final class CachedTimeTable implements TimeTable {
      */
     @Override
     public Connections connectionsFor(LocalDate date) {
-        if (!date.equals(cachedDate)) {
-            cachedConnections = underlying.connectionsFor(date);
-            cachedTrips = underlying.tripsFor(date);
-            cachedDate = date;
-        }
-        return cachedConnections;
+        return dayData(date).connections();
     }
 
     /**
@@ -50,12 +72,41 @@ public final class CachedTimeTable implements TimeTable {
      */
     @Override
     public Trips tripsFor(LocalDate date) {
-        if (!date.equals(cachedDate)) {
-            cachedConnections = underlying.connectionsFor(date);
-            cachedTrips = underlying.tripsFor(date);
-            cachedDate = date;
+        return dayData(date).trips();
+    }
+
+    /**
+     * Retourne les données du jour donné, en les chargeant si elles ne sont pas en cache.
+     */
+    private DayData dayData(LocalDate date) {
+        DayData day = cachedDay;
+        if (day == null || !day.date().equals(date)) {
+            Connections connections = underlying.connectionsFor(date);
+            if (decodeConnections) connections = new DecodedConnections(underlying, connections);
+            day = new DayData(date, connections, underlying.tripsFor(date));
+            cachedDay = day;
         }
-        return cachedTrips;
+        return day;
+    }
+
+    /**
+     * Retourne la table des arrêts de l'horaire, créée lors du premier appel puis partagée
+     * par toutes les extractions de voyages.
+     *
+     * @return la table des arrêts de l'horaire
+     */
+    public StopTable stops() {
+        StopTable table = stops;
+        if (table == null) {
+            synchronized (this) {
+                table = stops;
+                if (table == null) {
+                    table = new StopTable(this);
+                    stops = table;
+                }
+            }
+        }
+        return table;
     }
 
     @Override
@@ -97,4 +148,10 @@ public final class CachedTimeTable implements TimeTable {
     public boolean isPlatformId(int stopId) {
         return underlying.isPlatformId(stopId);
     }
+
+    /**
+     * Données dépendantes de la date, mises en cache ensemble.
+     */
+    private record DayData(LocalDate date, Connections connections, Trips trips) {
+    }
 }
@@ -80,5 +80,16 @@ public interface Connections extends Indexed {
      */
     int nextConnectionId(int id);
 
-
+    /**
+     * Retourne vrai si et seulement si la liaison spécifiée a été supprimée. Une liaison
+     * supprimée ne peut pas être empruntée, et sa course ne peut pas être poursuivie
+     * au-delà d'elle.
+     *
+     * @param id l'index de la liaison
+     * @return vrai si la liaison a été supprimée, faux sinon
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    default boolean isCancelled(int id) {
+        return false;
+    }
 }
@@ -0,0 +1,187 @@
+package ch.epfl.rechor.timetable;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Liaisons d'un jour entièrement décodées et stockées sous forme de colonnes, c.-à-d. d'un
+ * tableau par attribut.
+ * <p>
+ * Contrairement aux liaisons projetées en mémoire, dont chaque accès passe par le décodage
+ * d'un champ d'une structure, les accès à ces liaisons sont de simples lectures dans des
+ * tableaux. Les identifiants des gares de départ et d'arrivée, qui sinon doivent être
+ * obtenus à partir de ceux des arrêts au moyen de {@link TimeTable#stationId(int)}, sont
+ * également calculés une fois pour toutes, de même qu'un index des liaisons de chaque course
+ * permettant d'obtenir en temps constant la liaison se trouvant un nombre donné d'arrêts
+ * plus loin dans la course.
+ * </p>
+ * <p>
+ * Les instances sont immuables et peuvent donc être partagées par plusieurs fils de calcul.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class DecodedConnections implements Connections {
+    private static final int U8_MASK = 0xFF;
+
+    private final int[] depStopIds;
+    private final int[] arrStopIds;
+    private final int[] depStationIds;
+    private final int[] arrStationIds;
+    private final short[] depMins;
+    private final short[] arrMins;
+    private final int[] tripIds;
+    private final byte[] tripPos;
+    private final int[] nextIds;
+    private final BitSet cancelled;
+    // Liaisons de chaque course, dans l'ordre ; celles de la course t occupent les positions
+    // comprises entre tripStart[t] (inclus) et tripStart[t + 1] (exclus)
+    private final int[] tripStart;
+    private final int[] tripConnectionIds;
+
+    /**
+     * Décode les liaisons données.
+     *
+     * @param timeTable   l'horaire auquel appartiennent les liaisons, utilisé pour obtenir
+     *                    l'identifiant de la gare de chaque arrêt
+     * @param connections les liaisons à décoder
+     */
+    public DecodedConnections(TimeTable timeTable, Connections connections) {
+        int size = connections.size();
+        depStopIds = new int[size];
+        arrStopIds = new int[size];
+        depStationIds = new int[size];
+        arrStationIds = new int[size];
+        depMins = new short[size];
+        arrMins = new short[size];
+        tripIds = new int[size];
+        tripPos = new byte[size];
+        nextIds = new int[size];
+        cancelled = new BitSet();
+        for (int i = 0; i < size; ++i) {
+            depStopIds[i] = connections.depStopId(i);
+            arrStopIds[i] = connections.arrStopId(i);
+            depStationIds[i] = timeTable.stationId(depStopIds[i]);
+            arrStationIds[i] = timeTable.stationId(arrStopIds[i]);
+            depMins[i] = (short) connections.depMins(i);
+            arrMins[i] = (short) connections.arrMins(i);
+            tripIds[i] = connections.tripId(i);
+            tripPos[i] = (byte) connections.tripPos(i);
+            nextIds[i] = connections.nextConnectionId(i);
+            if (connections.isCancelled(i)) cancelled.set(i);
+        }
+
+        int tripCount = 0;
+        for (int i = 0; i < size; ++i) tripCount = Math.max(tripCount, tripIds[i] + 1);
+        tripStart = new int[tripCount + 1];
+        for (int i = 0; i < size; ++i) tripStart[tripIds[i] + 1] += 1;
+        for (int t = 0; t < tripCount; ++t) tripStart[t + 1] += tripStart[t];
+        tripConnectionIds = new int[size];
+        for (int i = 0; i < size; ++i) {
+            tripConnectionIds[tripStart[tripIds[i]] + tripPos(i)] = i;
+        }
+    }
+
+    /**
+     * Retourne les liaisons décodées du jour donné de l'horaire donné. Si l'horaire fournit
+     * déjà des liaisons décodées (voir {@link CachedTimeTable}), elles sont retournées telles
+     * quelles, sinon elles sont décodées.
+     *
+     * @param timeTable l'horaire
+     * @param date      la date
+     * @return les liaisons décodées du jour
+     */
+    public static DecodedConnections of(TimeTable timeTable, LocalDate date) {
+        Connections connections = timeTable.connectionsFor(date);
+        return connections instanceof DecodedConnections decoded
+                ? decoded
+                : new DecodedConnections(timeTable, connections);
+    }
+
+    /**
+     * Retourne l'identifiant de la gare de départ de la liaison spécifiée.
+     *
+     * @param id l'index de la liaison
+     * @return l'identifiant de la gare de départ
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int depStationId(int id) {
+        return depStationIds[id];
+    }
+
+    /**
+     * Retourne l'identifiant de la gare d'arrivée de la liaison spécifiée.
+     *
+     * @param id l'index de la liaison
+     * @return l'identifiant de la gare d'arrivée
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int arrStationId(int id) {
+        return arrStationIds[id];
+    }
+
+    @Override
+    public int depStopId(int id) {
+        return depStopIds[id];
+    }
+
+    @Override
+    public int depMins(int id) {
+        return depMins[id];
+    }
+
+    @Override
+    public int arrStopId(int id) {
+        return arrStopIds[id];
+    }
+
+    @Override
+    public int arrMins(int id) {
+        return arrMins[id];
+    }
+
+    @Override
+    public int tripId(int id) {
+        return tripIds[id];
+    }
+
+    @Override
+    public int tripPos(int id) {
+        return tripPos[id] & U8_MASK;
+    }
+
+    @Override
+    public int nextConnectionId(int id) {
+        return nextIds[id];
+    }
+
+    /**
+     * Retourne l'identifiant de la liaison de la même course que la liaison donnée se
+     * trouvant le nombre donné de positions plus loin dans la course, en temps constant.
+     *
+     * @param id    l'index de la liaison
+     * @param count le nombre de positions, 0 désignant la liaison donnée elle-même
+     * @return l'identifiant de la liaison {@code count} positions plus loin
+     * @throws IndexOutOfBoundsException si l'index est invalide, ou si la course ne comporte
+     *                                   pas autant de liaisons après celle donnée
+     */
+    public int connectionAfter(int id, int count) {
+        int tripId = tripIds[id];
+        int first = tripStart[tripId];
+        int position = tripPos(id) + count;
+        Objects.checkIndex(position, tripStart[tripId + 1] - first);
+        return tripConnectionIds[first + position];
+    }
+
+    @Override
+    public boolean isCancelled(int id) {
+        Objects.checkIndex(id, depStopIds.length);
+        return cancelled.get(id);
+    }
+
+    @Override
+    public int size() {
+        return depStopIds.length;
+    }
+}
@@ -0,0 +1,254 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Liaisons obtenues en appliquant des retards et des suppressions à des liaisons de base.
+ * <p>
+ * Les liaisons de base (typiquement des {@code BufferedConnections} projetées en mémoire)
+ * ne sont pas modifiées : les arrêts, les courses et les positions sont lus depuis elles,
+ * tandis que les heures de départ et d'arrivée corrigées sont stockées dans cette instance.
+ * </p>
+ * <p>
+ * Les retards pouvant changer l'ordre des liaisons, celles-ci sont triées à nouveau par heure
+ * de départ décroissante, les liaisons partant à la même heure restant dans leur ordre
+ * d'origine. Les index des liaisons de cette instance peuvent donc différer de ceux des
+ * liaisons de base, et {@link #baseId(int)} et {@link #idOf(int)} permettent de passer des
+ * uns aux autres. Toutes les liaisons partant strictement après la plus tardive des heures
+ * de départ modifiées (avant ou après correction) conservent leur index.
+ * </p>
+ *
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public final class DelayedConnections implements Connections {
+    private final Connections base;
+    private final Map<Integer, Patch> patches;
+    private final int[] baseIds;
+    private final int[] ids;
+    private final int[] depMins;
+    private final int[] arrMins;
+    private final BitSet cancelled;
+
+    private DelayedConnections(Connections base, Map<Integer, Patch> patches) {
+        this.base = base;
+        this.patches = Map.copyOf(patches);
+
+        int size = base.size();
+        int[] baseDepMins = new int[size];
+        int[] baseArrMins = new int[size];
+        for (int c = 0; c < size; ++c) {
+            Patch patch = patches.get(c);
+            int depDelay = patch == null ? 0 : patch.depDelay();
+            int arrDelay = patch == null ? 0 : patch.arrDelay();
+            baseDepMins[c] = base.depMins(c) + depDelay;
+            baseArrMins[c] = base.arrMins(c) + arrDelay;
+        }
+        checkConsistency(base, baseDepMins, baseArrMins);
+
+        // Tri par heure de départ décroissante puis par index de base croissant
+        long[] keys = new long[size];
+        for (int c = 0; c < size; ++c) {
+            keys[c] = ((long) -baseDepMins[c] << Integer.SIZE) | c;
+        }
+        Arrays.sort(keys);
+
+        baseIds = new int[size];
+        ids = new int[size];
+        depMins = new int[size];
+        arrMins = new int[size];
+        cancelled = new BitSet(size);
+        for (int id = 0; id < size; ++id) {
+            int c = (int) keys[id];
+            baseIds[id] = c;
+            ids[c] = id;
+            depMins[id] = baseDepMins[c];
+            arrMins[id] = baseArrMins[c];
+            Patch patch = patches.get(c);
+            if (patch != null && patch.cancelled()) cancelled.set(id);
+        }
+    }
+
+    /**
+     * Vérifie que les heures corrigées restent cohérentes : aucune liaison n'arrive avant
+     * de partir, et aucune ne part avant l'arrivée de la précédente de sa course.
+     */
+    private static void checkConsistency(Connections base, int[] depMins, int[] arrMins) {
+        for (int c = 0; c < depMins.length; ++c) {
+            Preconditions.checkArgument(0 <= depMins[c] && depMins[c] <= arrMins[c]);
+            int next = base.nextConnectionId(c);
+            if (base.tripPos(next) > base.tripPos(c)) {
+                Preconditions.checkArgument(arrMins[c] <= depMins[next]);
+            }
+        }
+    }
+
+    /**
+     * Retourne les liaisons de base.
+     *
+     * @return les liaisons de base
+     */
+    public Connections base() {
+        return base;
+    }
+
+    /**
+     * Retourne l'index, dans les liaisons de base, de la liaison d'index donné.
+     *
+     * @param id l'index de la liaison
+     * @return l'index de la liaison de base correspondante
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int baseId(int id) {
+        return baseIds[id];
+    }
+
+    /**
+     * Retourne l'index de la liaison correspondant à la liaison de base d'index donné.
+     *
+     * @param baseId l'index de la liaison de base
+     * @return l'index de la liaison correspondante
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int idOf(int baseId) {
+        return ids[baseId];
+    }
+
+    @Override
+    public int depStopId(int id) {
+        return base.depStopId(baseIds[id]);
+    }
+
+    @Override
+    public int depMins(int id) {
+        return depMins[id];
+    }
+
+    @Override
+    public int arrStopId(int id) {
+        return base.arrStopId(baseIds[id]);
+    }
+
+    @Override
+    public int arrMins(int id) {
+        return arrMins[id];
+    }
+
+    @Override
+    public int tripId(int id) {
+        return base.tripId(baseIds[id]);
+    }
+
+    @Override
+    public int tripPos(int id) {
+        return base.tripPos(baseIds[id]);
+    }
+
+    @Override
+    public int nextConnectionId(int id) {
+        return ids[base.nextConnectionId(baseIds[id])];
+    }
+
+    @Override
+    public boolean isCancelled(int id) {
+        Objects.checkIndex(id, baseIds.length);
+        return cancelled.get(id);
+    }
+
+    @Override
+    public int size() {
+        return baseIds.length;
+    }
+
+    /**
+     * Correction appliquée à une liaison de base.
+     *
+     * @param depDelay  le retard au départ, en minutes
+     * @param arrDelay  le retard à l'arrivée, en minutes
+     * @param cancelled vrai si la liaison est supprimée
+     */
+    private record Patch(int depDelay, int arrDelay, boolean cancelled) {
+    }
+
+    /**
+     * Bâtisseur de liaisons retardées.
+     * <p>
+     * Les liaisons sont désignées par leur index dans les liaisons de base.
+     * </p>
+     */
+    public static final class Builder {
+        private final Connections base;
+        private final Map<Integer, Patch> patches;
+
+        /**
+         * Construit un bâtisseur sans aucune correction sur les liaisons de base données.
+         *
+         * @param base les liaisons de base
+         */
+        public Builder(Connections base) {
+            this.base = base;
+            this.patches = new HashMap<>();
+        }
+
+        /**
+         * Construit un bâtisseur partant des corrections des liaisons retardées données, afin
+         * de leur ajouter de nouvelles corrections.
+         *
+         * @param previous les liaisons retardées dont les corrections sont reprises
+         */
+        public Builder(DelayedConnections previous) {
+            this.base = previous.base;
+            this.patches = new HashMap<>(previous.patches);
+        }
+
+        /**
+         * Définit les retards au départ et à l'arrivée de la liaison de base donnée, en
+         * remplaçant ceux éventuellement définis précédemment.
+         *
+         * @param baseId   l'index de la liaison de base
+         * @param depDelay le retard au départ, en minutes
+         * @param arrDelay le retard à l'arrivée, en minutes
+         * @return ce bâtisseur
+         * @throws IndexOutOfBoundsException si l'index est invalide
+         */
+        public Builder setDelay(int baseId, int depDelay, int arrDelay) {
+            Objects.checkIndex(baseId, base.size());
+            Patch patch = patches.get(baseId);
+            boolean cancelled = patch != null && patch.cancelled();
+            patches.put(baseId, new Patch(depDelay, arrDelay, cancelled));
+            return this;
+        }
+
+        /**
+         * Supprime la liaison de base donnée.
+         *
+         * @param baseId l'index de la liaison de base
+         * @return ce bâtisseur
+         * @throws IndexOutOfBoundsException si l'index est invalide
+         */
+        public Builder cancel(int baseId) {
+            Objects.checkIndex(baseId, base.size());
+            Patch patch = patches.get(baseId);
+            patches.put(baseId, patch == null
+                    ? new Patch(0, 0, true)
+                    : new Patch(patch.depDelay(), patch.arrDelay(), true));
+            return this;
+        }
+
+        /**
+         * Construit les liaisons retardées.
+         *
+         * @return les liaisons retardées
+         * @throws IllegalArgumentException si les corrections rendent les heures incohérentes,
+         *                                  p. ex. si une liaison arrive avant de partir
+         */
+        public DelayedConnections build() {
+            return new DelayedConnections(base, patches);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ch.epfl.rechor.timetable;
+
+import java.time.LocalDate;
+
+/**
+ * Horaire dont les liaisons d'un jour donné sont remplacées par des liaisons retardées,
+ * toutes les autres données étant celles de l'horaire sous-jacent.
+ *
+ * @param underlying  l'horaire sous-jacent
+ * @param date        le jour auquel les retards s'appliquent
+ * @param connections les liaisons retardées de ce jour
+ * @author Sarra Zghal, Elyes Ben Abid
+ */
+public record DelayedTimeTable(TimeTable underlying, LocalDate date,
+                               DelayedConnections connections) implements TimeTable {
+
+    @Override
+    public Connections connectionsFor(LocalDate date) {
+        return this.date.equals(date) ? connections : underlying.connectionsFor(date);
+    }
+
+    @Override
+    public Trips tripsFor(LocalDate date) {
+        return underlying.tripsFor(date);
+    }
+
+    @Override
+    public Stations stations() {
+        return underlying.stations();
+    }
+
+    @Override
+    public StationAliases stationAliases() {
+        return underlying.stationAliases();
+    }
+
+    @Override
+    public Platforms platforms() {
+        return underlying.platforms();
+    }
+
+    @Override
+    public Routes routes() {
+        return underlying.routes();
+    }
+
+    @Override
+    public Transfers transfers() {
+        return underlying.transfers();
+    }
+
+    @Override
+    public int stationId(int stopId) {
+        return underlying.stationId(stopId);
+    }
+
+    @Override
+    public String platformName(int stopId) {
+        return underlying.platformName(stopId);
+    }
+
+    @Override
+    public boolean isPlatformId(int stopId) {
+        return underlying.isPlatformId(stopId);
+    }
+}
@@ -2,6 +2,7 @@ module ReCHor {
     requires javafx.controls;
     requires java.desktop;
     requires java.net.http;
+    requires jdk.httpserver;
 
     exports ch.epfl.rechor;
     exports ch.epfl.rechor.timetable;
@@ -9,4 +10,5 @@ module ReCHor {
     exports ch.epfl.rechor.journey;
     exports ch.epfl.rechor.timetable.mapped;
     exports ch.epfl.rechor.gui.map;
+    exports ch.epfl.rechor.server;
 }
\ No newline at end of file
@@ -121,6 +121,7 @@ class FormatterFrTest {
         var h = "Rorschach";
         var l = new Journey.Leg.Transport(dS, dT, aS, aT, List.of(), Vehicle.TRAIN, r, h);
         assertEquals(r + " Direction " + h, FormatterFr.formatRouteDestination(l));
+        assertEquals(r + " Direction " + h, FormatterFr.formatRouteDestination(r, h));
     }
 
     public static class MyPackedRangeTest {
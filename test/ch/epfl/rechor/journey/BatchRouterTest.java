@@ -0,0 +1,81 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRouterTest {
+    private static List<Journey> expected(Router router, BatchRouter.Request request) {
+        return JourneyExtractor.journeys(
+                        router.profile(request.date(), request.arrStationId()),
+                        request.depStationId())
+                .stream()
+                .filter(j -> !j.depTime().isBefore(request.date().atTime(request.depTime())))
+                .toList();
+    }
+
+    @Test
+    void batchRouterReturnsJourneysInRequestOrder() {
+        var timeTable = new RandomTimeTable(100, 30, 150);
+        var router = new Router(timeTable);
+        var rng = new Random(2025);
+        List<BatchRouter.Request> requests = new ArrayList<>();
+        for (int i = 0; i < 60; i += 1) {
+            // Peu de gares d'arrivée distinctes, sur deux jours
+            requests.add(new BatchRouter.Request(rng.nextInt(30), rng.nextInt(4),
+                    DATE.plusDays(i % 2), LocalTime.of(5 + rng.nextInt(15), rng.nextInt(60))));
+        }
+
+        List<List<Journey>> journeys = new BatchRouter(timeTable).journeys(requests);
+        assertEquals(requests.size(), journeys.size());
+        int journeyCount = 0;
+        for (int i = 0; i < requests.size(); i += 1) {
+            journeyCount += journeys.get(i).size();
+            assertEquals(expected(router, requests.get(i)), journeys.get(i));
+        }
+        assertTrue(journeyCount > 0);
+    }
+
+    @Test
+    void batchRouterComputesEachProfileOnceAndReusesCache() {
+        var timeTable = new RandomTimeTable(101, 25, 120);
+        var router = new Router(timeTable);
+        var cache = new ProfileCache(64L << 20);
+        // Profil déjà en cache pour la gare 3
+        Profile cached = router.profile(DATE, 3);
+        cache.get(new ProfileCache.Key(DATE, 3, Set.of()), k -> cached);
+
+        List<BatchRouter.Request> requests = new ArrayList<>();
+        for (int dep = 0; dep < 25; dep += 1) {
+            requests.add(new BatchRouter.Request(dep, 3, DATE, LocalTime.of(8, 0)));
+            requests.add(new BatchRouter.Request(dep, 7, DATE, LocalTime.of(12, 0)));
+            requests.add(new BatchRouter.Request(dep, 7, DATE, LocalTime.of(6, 30)));
+        }
+        List<List<Journey>> journeys = new BatchRouter(timeTable, cache).journeys(requests);
+        for (int i = 0; i < requests.size(); i += 1) {
+            assertEquals(expected(router, requests.get(i)), journeys.get(i));
+        }
+        // Le profil manquant a été calculé une seule fois et ajouté au cache
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getIfPresent(new ProfileCache.Key(DATE, 7, Set.of())));
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void batchRouterHandlesEmptyAndInvalidBatches() {
+        var timeTable = new RandomTimeTable(102, 20, 60);
+        var batchRouter = new BatchRouter(timeTable);
+        assertEquals(List.of(), batchRouter.journeys(List.of()));
+        assertThrows(IndexOutOfBoundsException.class, () -> batchRouter.journeys(List.of(
+                new BatchRouter.Request(0, 20, DATE, LocalTime.NOON))));
+        assertThrows(NullPointerException.class,
+                () -> new BatchRouter.Request(0, 1, null, LocalTime.NOON));
+    }
+}
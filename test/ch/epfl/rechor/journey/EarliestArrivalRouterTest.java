@@ -0,0 +1,57 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.Optional;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarliestArrivalRouterTest {
+    @Test
+    void earliestArrivalRouterAgreesWithProfileRouter() {
+        var timeTable = new RandomTimeTable(11, 40, 250);
+        var router = new Router(timeTable);
+        var eaRouter = new EarliestArrivalRouter(timeTable);
+        for (int destination = 0; destination < 40; destination += 3) {
+            Profile profile = router.profile(DATE, destination);
+            for (int origin = 0; origin < 40; origin += 1) {
+                if (origin == destination) continue;
+                var journeys = JourneyExtractor.journeys(profile, origin);
+                for (var time = LocalTime.of(5, 0); time.isBefore(LocalTime.of(23, 0));
+                     time = time.plusMinutes(97)) {
+                    var depTime = LocalDateTime.of(DATE, time);
+                    Optional<LocalDateTime> profileArrival = journeys.stream()
+                            .filter(j -> !j.depTime().isBefore(depTime))
+                            .map(Journey::arrTime)
+                            .min(Comparator.naturalOrder());
+                    Optional<Journey> journey = eaRouter.journey(DATE, origin, destination, time);
+                    if (profileArrival.isPresent()) assertTrue(journey.isPresent());
+                    if (journey.isEmpty()) continue;
+
+                    var j = journey.get();
+                    assertFalse(j.depTime().isBefore(depTime));
+                    assertEquals(timeTable.stations().name(origin), j.depStop().name());
+                    assertEquals(timeTable.stations().name(destination), j.arrStop().name());
+                    profileArrival.ifPresent(a -> assertFalse(a.isBefore(j.arrTime())));
+                    for (int l = 1; l < j.legs().size(); l += 1) {
+                        var previous = j.legs().get(l - 1);
+                        var leg = j.legs().get(l);
+                        assertEquals(previous.arrStop().name(), leg.depStop().name());
+                        assertFalse(leg.depTime().isBefore(previous.arrTime()));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void earliestArrivalRouterReturnsEmptyWhenNothingLeavesAfterTime() {
+        var timeTable = new RandomTimeTable(12, 20, 40);
+        var eaRouter = new EarliestArrivalRouter(timeTable);
+        assertTrue(eaRouter.journey(DATE, 0, 1, LocalTime.of(23, 59)).isEmpty());
+    }
+}
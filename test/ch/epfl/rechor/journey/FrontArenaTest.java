@@ -0,0 +1,124 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrontArenaTest {
+    private static long randomTuple(RandomGenerator rng) {
+        long tuple = PackedCriteria.pack(rng.nextInt(600, 900), rng.nextInt(6), rng.nextInt());
+        return PackedCriteria.withDepMins(tuple, rng.nextInt(300, 600));
+    }
+
+    @Test
+    void arenaFrontsBehaveLikeIndependentFronts() {
+        RandomGenerator rng = RandomGeneratorFactory.getDefault().create(2025);
+        var timeTable = new RandomTimeTable(5, 50, 200);
+        var arena = new FrontArena();
+        for (int round = 0; round < 3; round += 1) {
+            var profile = new Profile.Builder(timeTable, DATE, 0, arena);
+            var expected = new ParetoFront.Builder[50];
+            for (int s = 0; s < expected.length; s += 1) expected[s] = new ParetoFront.Builder();
+            for (int k = 0; k < 20_000; k += 1) {
+                int s = rng.nextInt(expected.length);
+                long tuple = randomTuple(rng);
+                expected[s].add(tuple);
+                profile.forStation(s).add(tuple);
+            }
+            Profile built = profile.build();
+            for (int s = 0; s < expected.length; s += 1) {
+                assertArrayEquals(RandomTimeTable.tuples(expected[s].build()),
+                        RandomTimeTable.tuples(built.forStation(s)), "station " + s);
+            }
+        }
+    }
+
+    @Test
+    void arenaFrontsSurviveSlabChanges() {
+        var timeTable = new RandomTimeTable(6, 30, 20);
+        var arena = new FrontArena();
+        var profile = new Profile.Builder(timeTable, DATE, 0, arena);
+        // Frontières de tuples incomparables, qui grandissent en alternance
+        int size = 2_000;
+        int fronts = 20;
+        for (int i = 0; i < size; i += 1) {
+            for (int s = 0; s < fronts; s += 1) {
+                profile.forStation(s).add(PackedCriteria.withDepMins(
+                        PackedCriteria.pack(600 + i, 0, s), i));
+            }
+        }
+        Profile built = profile.build();
+        for (int s = 0; s < fronts; s += 1) {
+            long[] tuples = RandomTimeTable.tuples(built.forStation(s));
+            assertEquals(size, tuples.length);
+            for (long t : tuples) assertEquals(s, PackedCriteria.payload(t));
+        }
+    }
+
+    @Test
+    void arenaResetEmptiesFrontsAndReusesBuilders() {
+        var timeTable = new RandomTimeTable(7, 10, 20);
+        var arena = new FrontArena();
+        var first = new Profile.Builder(timeTable, DATE, 0, arena);
+        ParetoFront.Builder station = first.forStation(3);
+        ParetoFront.Builder trip = first.forTrip(5);
+        station.add(PackedCriteria.pack(700, 1, 2));
+        trip.add(PackedCriteria.pack(710, 0, 4));
+
+        var second = new Profile.Builder(timeTable, DATE, 1, arena);
+        assertSame(station, second.forStation(3));
+        assertSame(trip, second.forTrip(5));
+        assertTrue(second.forStation(3).isEmpty());
+        assertTrue(second.forTrip(5).isEmpty());
+        assertSame(ParetoFront.EMPTY, second.build().forStation(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> second.forStation(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> second.forTrip(-1));
+    }
+
+    @Test
+    void poolReusesReleasedArenasUpToItsCapacity() {
+        var pool = new FrontArena.Pool(1);
+        FrontArena first = pool.acquire();
+        FrontArena second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertSame(first, pool.acquire());
+        assertNotSame(second, pool.acquire());
+        assertThrows(IllegalArgumentException.class, () -> new FrontArena.Pool(0));
+    }
+
+    private static void runOnNewThread(Runnable task) throws InterruptedException {
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    void routerReusesArenaSlabsAcrossThreads() throws InterruptedException {
+        var timeTable = new RandomTimeTable(8, 40, 150);
+        var router = new Router(timeTable);
+        runOnNewThread(() -> router.profile(DATE, 3));
+        FrontArena arena = router.arenas().acquire();
+        long[] slab = arena.slab(0);
+        router.arenas().release(arena);
+
+        runOnNewThread(() -> router.profile(DATE, 5));
+        FrontArena again = router.arenas().acquire();
+        assertSame(arena, again);
+        assertSame(slab, again.slab(0));
+    }
+
+    @Test
+    void routerProfilesDoNotDependOnPreviousQueries() {
+        var timeTable = new RandomTimeTable(8, 40, 150);
+        var router = new Router(timeTable);
+        Profile first = router.profile(DATE, 3);
+        for (int d = 0; d < 40; d += 1) router.profile(DATE, d);
+        RouterTest.assertSameProfile(first, router.profile(DATE, 3), 40);
+    }
+}
@@ -0,0 +1,58 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JourneyExtractorBulkTest {
+    @Test
+    void bulkJourneysEqualSingleStationJourneys() {
+        var timeTable = new RandomTimeTable(95, 40, 200);
+        Profile profile = new Router(timeTable).profile(DATE, 5);
+        int[] depStationIds = IntStream.range(0, 40).toArray();
+
+        Map<Integer, List<Journey>> journeys = new ConcurrentHashMap<>();
+        JourneyExtractor.journeys(profile, depStationIds,
+                (js, dep) -> assertNull(journeys.put(dep, js)));
+        assertEquals(40, journeys.size());
+        for (int dep : depStationIds) {
+            assertEquals(JourneyExtractor.journeys(profile, dep), journeys.get(dep));
+        }
+    }
+
+    @Test
+    void bulkSummariesUseGivenExecutorAndHandleDuplicates() {
+        var timeTable = new RandomTimeTable(96, 30, 150);
+        Profile profile = new Router(timeTable).profile(DATE, 2);
+        // Chaque station apparaît deux fois, et le consommateur est appelé pour chacune
+        int[] depStationIds = IntStream.range(0, 60).map(i -> i % 30).toArray();
+
+        Map<Integer, Integer> calls = new ConcurrentHashMap<>();
+        try (ForkJoinPool pool = new ForkJoinPool(3)) {
+            JourneyExtractor.summaries(profile, depStationIds, pool, (summaries, dep) -> {
+                calls.merge(dep, 1, Integer::sum);
+                assertEquals(JourneyExtractor.summaries(profile, dep).stream()
+                                .map(JourneySummary::journey).toList(),
+                        summaries.stream().map(JourneySummary::journey).toList());
+            });
+        }
+        assertEquals(30, calls.size());
+        calls.values().forEach(c -> assertEquals(2, c));
+    }
+
+    @Test
+    void bulkExtractionRejectsInvalidStationsAndAcceptsNone() {
+        var timeTable = new RandomTimeTable(97, 20, 60);
+        Profile profile = new Router(timeTable).profile(DATE, 0);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> JourneyExtractor.journeys(profile, new int[]{1, 20}, (js, dep) -> { }));
+        JourneyExtractor.journeys(profile, new int[0], (js, dep) -> fail());
+    }
+}
@@ -0,0 +1,71 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JourneySummaryTest {
+    // Le résumé décrit exactement le voyage qu'il construit
+    private static void assertSummaryMatchesJourney(JourneySummary summary) {
+        Journey journey = summary.journey();
+        assertSame(journey, summary.journey());
+        assertEquals(journey.depTime(), summary.depTime());
+        assertEquals(journey.arrTime(), summary.arrTime());
+        assertEquals(journey.duration(), summary.duration());
+
+        List<Journey.Leg.Transport> rides = journey.legs().stream()
+                .filter(l -> l instanceof Journey.Leg.Transport)
+                .map(l -> (Journey.Leg.Transport) l)
+                .toList();
+        assertEquals(rides.size() - 1, summary.changes());
+        assertEquals(rides.stream().map(Journey.Leg.Transport::vehicle).toList(),
+                summary.vehicles());
+        for (int i = 0; i < rides.size(); i += 1) {
+            assertEquals(rides.get(i).route(), summary.route(i));
+            assertEquals(rides.get(i).destination(), summary.destination(i));
+            assertEquals(rides.get(i).arrTime(), summary.legArrTime(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> summary.vehicle(rides.size()));
+    }
+
+    @Test
+    void journeySummariesMatchJourneysOfProfile() {
+        var timeTable = new RandomTimeTable(91, 30, 150);
+        var router = new Router(timeTable);
+        int summaryCount = 0;
+        for (int arr = 0; arr < 30; arr += 4) {
+            Profile profile = router.profile(DATE, arr);
+            for (int dep = 0; dep < 30; dep += 1) {
+                if (dep == arr) continue;
+                List<JourneySummary> summaries = JourneyExtractor.summaries(profile, dep);
+                summaryCount += summaries.size();
+                summaries.forEach(JourneySummaryTest::assertSummaryMatchesJourney);
+                assertEquals(summaries.stream().map(JourneySummary::journey).toList(),
+                        JourneyExtractor.journeys(profile, dep));
+            }
+        }
+        assertTrue(summaryCount > 0);
+    }
+
+    @Test
+    void journeySummariesMatchJourneysOfReverseProfile() {
+        var timeTable = new RandomTimeTable(92, 30, 150);
+        var router = new ReverseRouter(timeTable);
+        int summaryCount = 0;
+        for (int dep = 0; dep < 30; dep += 4) {
+            ReverseProfile profile = router.profile(DATE, dep);
+            for (int arr = 0; arr < 30; arr += 1) {
+                if (dep == arr) continue;
+                List<JourneySummary> summaries = JourneyExtractor.summaries(profile, arr);
+                summaryCount += summaries.size();
+                summaries.forEach(JourneySummaryTest::assertSummaryMatchesJourney);
+                assertEquals(summaries.stream().map(JourneySummary::journey).toList(),
+                        JourneyExtractor.journeys(profile, arr));
+            }
+        }
+        assertTrue(summaryCount > 0);
+    }
+}
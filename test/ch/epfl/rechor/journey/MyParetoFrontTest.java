@@ -2,8 +2,12 @@ package ch.epfl.rechor.journey;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.function.LongConsumer;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 import static ch.epfl.rechor.journey.PackedCriteria.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -307,4 +311,55 @@ class MyParetoFrontTest {
         ParetoFront front = builder.build();
         assertEquals(128, front.size(), "Should handle large numbers of elements.");
     }
-}
\ No newline at end of file
+
+    // --- ORDERED FRONT ---
+
+    private static long randomTuple(RandomGenerator rng) {
+        return withDepMins(pack(rng.nextInt(600, 700), rng.nextInt(8), rng.nextInt()),
+                rng.nextInt(500, 600));
+    }
+
+    @Test
+    void testForEachDepartingAtOrAfterVisitsExactlyLaterTuples() {
+        RandomGenerator rng = RandomGeneratorFactory.getDefault().create(10);
+        for (int k = 0; k < 200; k++) {
+            ParetoFront.Builder builder = new ParetoFront.Builder();
+            for (int i = 0; i < 40; i++) builder.add(randomTuple(rng));
+            int depMins = rng.nextInt(490, 610);
+
+            List<Long> expected = new ArrayList<>();
+            builder.forEach(t -> {
+                if (depMins(t) >= depMins) expected.add(t);
+            });
+            List<Long> actual = new ArrayList<>();
+            builder.forEachDepartingAtOrAfter(depMins, actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testFullyDominatesMatchesPairwiseComparison() {
+        RandomGenerator rng = RandomGeneratorFactory.getDefault().create(11);
+        int dominated = 0;
+        for (int k = 0; k < 2_000; k++) {
+            ParetoFront.Builder station = new ParetoFront.Builder();
+            for (int i = 0; i < rng.nextInt(30); i++) station.add(randomTuple(rng));
+            ParetoFront.Builder connection = new ParetoFront.Builder();
+            for (int i = 0; i < rng.nextInt(4); i++) {
+                connection.add(pack(rng.nextInt(600, 700), rng.nextInt(8), rng.nextInt()));
+            }
+            int depMins = rng.nextInt(500, 600);
+
+            boolean[] expected = {true};
+            connection.forEach(t -> {
+                long withDep = withDepMins(t, depMins);
+                boolean[] found = {false};
+                station.forEach(s -> found[0] |= dominatesOrIsEqual(s, withDep));
+                expected[0] &= found[0];
+            });
+            assertEquals(expected[0], station.fullyDominates(connection, depMins));
+            if (expected[0] && !connection.isEmpty()) dominated++;
+        }
+        assertTrue(dominated > 0);
+    }
+}
@@ -0,0 +1,71 @@
+package ch.epfl.rechor.journey;
+
+import java.util.Random;
+
+/**
+ * Compare les temps d'exécution des différentes manières de tester si un tuple est dominé
+ * par l'un de ceux d'une frontière : comparaisons vérifiées et comparaisons non vérifiées.
+ */
+public class PackedCriteriaBenchmark {
+    private static final int FRONTS = 1 << 10;
+    private static final int ROUNDS = 200;
+    private static final int REPETITIONS = 5;
+
+    private interface Kernel {
+        boolean anyDominates(long[] tuples, long criteria);
+    }
+
+    private static long randomCriteria(Random rng) {
+        return PackedCriteria.withDepMins(
+                PackedCriteria.pack(rng.nextInt(600, 1200), rng.nextInt(10), rng.nextInt()),
+                rng.nextInt(300, 600));
+    }
+
+    private static long run(Kernel kernel, long[][] fronts, long[] candidates) {
+        long count = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int f = 0; f < fronts.length; f++) {
+                if (kernel.anyDominates(fronts[f], candidates[f])) count += 1;
+            }
+        }
+        return count;
+    }
+
+    private static void measure(String name, Kernel kernel, long[][] fronts, long[] candidates) {
+        long best = Long.MAX_VALUE;
+        long count = 0;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            count = run(kernel, fronts, candidates);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double perTuple = best / (double) ((long) ROUNDS * fronts.length * fronts[0].length);
+        System.out.printf("  %-12s %6.3f ns/comparaison (%d dominés)%n", name, perTuple, count);
+    }
+
+    public static void main(String[] args) {
+        Random rng = new Random(2025);
+        for (int size : new int[]{8, 32, 128}) {
+            long[][] fronts = new long[FRONTS][size];
+            long[] candidates = new long[FRONTS];
+            for (int f = 0; f < FRONTS; f++) {
+                for (int i = 0; i < size; i++) fronts[f][i] = randomCriteria(rng);
+                candidates[f] = randomCriteria(rng);
+            }
+
+            System.out.printf("Frontières de %d tuples :%n", size);
+            measure("vérifié", (tuples, criteria) -> {
+                for (long tuple : tuples) {
+                    if (PackedCriteria.dominatesOrIsEqual(tuple, criteria)) return true;
+                }
+                return false;
+            }, fronts, candidates);
+            measure("non vérifié", (tuples, criteria) -> {
+                for (long tuple : tuples) {
+                    if (PackedCriteria.dominatesOrIsEqualUnchecked(tuple, criteria)) return true;
+                }
+                return false;
+            }, fronts, candidates);
+        }
+    }
+}
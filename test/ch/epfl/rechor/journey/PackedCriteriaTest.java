@@ -186,4 +186,58 @@ class PackedCriteriaTest {
             assertEquals(newPayload, PackedCriteria.payload(t));
         }
     }
-}
\ No newline at end of file
+
+    private static long randomCriteria(RandomGenerator rng, boolean withDepMins) {
+        var t = PackedCriteria.pack(rng.nextInt(-4 * 60, 48 * 60), rng.nextInt(128),
+                rng.nextInt());
+        return withDepMins ? PackedCriteria.withDepMins(t, rng.nextInt(-4 * 60, 48 * 60)) : t;
+    }
+
+    private static long closeCriteria(RandomGenerator rng, long t) {
+        var arrMins = Math.clamp(PackedCriteria.arrMins(t) + rng.nextInt(-2, 3), -240, 2879);
+        var changes = Math.clamp(PackedCriteria.changes(t) + rng.nextInt(-1, 2), 0, 127);
+        var u = PackedCriteria.pack(arrMins, changes, rng.nextInt());
+        if (!PackedCriteria.hasDepMins(t)) return u;
+        var depMins = Math.clamp(PackedCriteria.depMins(t) + rng.nextInt(-2, 3), -240, 2879);
+        return PackedCriteria.withDepMins(u, depMins);
+    }
+
+    @Test
+    void packedCriteriaDominatesOrIsEqualUncheckedMatchesChecked() {
+        var rng = new Random(2025);
+        for (int i = 0; i < 100_000; i += 1) {
+            var hasDepMins1 = rng.nextBoolean();
+            var hasDepMins2 = hasDepMins1 && rng.nextBoolean();
+            var t1 = randomCriteria(rng, hasDepMins1);
+            var t2 = rng.nextBoolean()
+                    ? randomCriteria(rng, hasDepMins2)
+                    : closeCriteria(rng, t1);
+            assertEquals(PackedCriteria.dominatesOrIsEqual(t1, t2),
+                    PackedCriteria.dominatesOrIsEqualUnchecked(t1, t2));
+            if (PackedCriteria.hasDepMins(t2) || !PackedCriteria.hasDepMins(t1)) {
+                assertEquals(PackedCriteria.dominatesOrIsEqual(t2, t1),
+                        PackedCriteria.dominatesOrIsEqualUnchecked(t2, t1));
+            }
+        }
+    }
+
+    @Test
+    void packedCriteriaAnyDominatesOrIsEqualUncheckedWorks() {
+        var rng = new Random(2026);
+        for (int i = 0; i < 2_000; i += 1) {
+            var tuples = new long[rng.nextInt(40)];
+            for (int j = 0; j < tuples.length; j += 1) tuples[j] = randomCriteria(rng, true);
+            var t = tuples.length > 0 && rng.nextBoolean()
+                    ? closeCriteria(rng, tuples[rng.nextInt(tuples.length)])
+                    : randomCriteria(rng, true);
+            var from = rng.nextInt(tuples.length + 1);
+            var to = rng.nextInt(from, tuples.length + 1);
+            var expected = false;
+            for (int j = from; j < to; j += 1) {
+                expected |= PackedCriteria.dominatesOrIsEqual(tuples[j], t);
+            }
+            assertEquals(expected,
+                    PackedCriteria.anyDominatesOrIsEqualUnchecked(tuples, from, to, t));
+        }
+    }
+}
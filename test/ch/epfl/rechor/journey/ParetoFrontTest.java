@@ -67,6 +67,34 @@ class ParetoFrontTest {
         }
     }
 
+    @Test
+    void paretoFrontIndexOfWorksOnSmallAndLargeFronts() {
+        for (var size : new int[]{5, 300}) {
+            var b = new ParetoFront.Builder();
+            for (var i = 0; i < size; i += 1) {
+                b.add(PackedCriteria.withDepMins(
+                        PackedCriteria.pack(-200 + 10 * i, (size - i) % 128, i), -200 + i));
+            }
+            var f = b.build();
+            assertEquals(size, f.size());
+            for (var i = 0; i < size; i += 1) {
+                var arrMins = -200 + 10 * i;
+                var changes = (size - i) % 128;
+                var index = f.indexOf(arrMins, changes);
+                assertTrue(index >= 0);
+                assertEquals(arrMins, PackedCriteria.arrMins(f.tupleAt(index)));
+                assertEquals(changes, PackedCriteria.changes(f.tupleAt(index)));
+                assertEquals(f.get(arrMins, changes), f.tupleAt(index));
+                assertEquals(-1, f.indexOf(arrMins + 1, changes));
+            }
+            assertEquals(-1, f.indexOf(-200, 128));
+            assertEquals(-1, f.indexOf(-200, -1));
+            assertThrows(IndexOutOfBoundsException.class, () -> f.tupleAt(size));
+            assertThrows(IndexOutOfBoundsException.class, () -> f.tupleAt(-1));
+        }
+        assertEquals(-1, ParetoFront.EMPTY.indexOf(0, 0));
+    }
+
     @Test
     void paretoFrontBuilderIsEmptyIsInitiallyTrue() {
         var b = new ParetoFront.Builder();
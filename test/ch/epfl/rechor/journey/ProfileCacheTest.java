@@ -0,0 +1,176 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ch.epfl.rechor.journey.PackedCriteria.pack;
+import static ch.epfl.rechor.journey.PackedCriteria.withDepMins;
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileCacheTest {
+    private static final RandomTimeTable TIME_TABLE = new RandomTimeTable(3, 9, 5);
+
+    private static ProfileCache.Key key(int arrStationId) {
+        return new ProfileCache.Key(DATE, arrStationId, Set.of());
+    }
+
+    // Profil de 9 gares dont la première a une frontière de la taille donnée
+    private static Profile profile(int arrStationId, int tupleCount) {
+        ParetoFront.Builder builder = new ParetoFront.Builder();
+        for (int i = 0; i < tupleCount; i += 1) {
+            builder.add(withDepMins(pack(600 + i, 0, 0), i));
+        }
+        List<ParetoFront> fronts = new ArrayList<>(Collections.nCopies(9, ParetoFront.EMPTY));
+        fronts.set(0, builder.build());
+        return new Profile(TIME_TABLE, DATE, arrStationId, fronts);
+    }
+
+    @Test
+    void profileCacheConstructorThrowsOnNonPositiveBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new ProfileCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new ProfileCache(-1));
+    }
+
+    @Test
+    void profileCacheWeightCountsTuplesAndOffsets() {
+        assertEquals(10 * Integer.BYTES, ProfileCache.weight(profile(0, 0)));
+        assertEquals(3 * Long.BYTES + 10 * Integer.BYTES, ProfileCache.weight(profile(0, 3)));
+
+        var builder = new Profile.Builder(TIME_TABLE, DATE, 0);
+        ParetoFront.Builder front = new ParetoFront.Builder();
+        front.add(withDepMins(pack(600, 0, 0), 500));
+        front.add(withDepMins(pack(610, 0, 0), 505));
+        builder.setForStation(4, front);
+        assertEquals(2 * Long.BYTES + (TIME_TABLE.stations().size() + 1) * Integer.BYTES,
+                ProfileCache.weight(builder.build()));
+    }
+
+    @Test
+    void profileCacheCountsHitsAndMisses() {
+        ProfileCache cache = new ProfileCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        Profile p = profile(1, 2);
+
+        assertNull(cache.getIfPresent(key(1)));
+        assertSame(p, cache.get(key(1), k -> {
+            loads.incrementAndGet();
+            return p;
+        }));
+        assertSame(p, cache.get(key(1), k -> fail()));
+        assertSame(p, cache.getIfPresent(key(1)));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.missCount());
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.size());
+        assertEquals(ProfileCache.weight(p), cache.weightedSize());
+    }
+
+    @Test
+    void profileCacheKeyDependsOnExcludedVehicles() {
+        ProfileCache.Key k1 = new ProfileCache.Key(DATE, 1, EnumSet.of(Vehicle.BUS));
+        ProfileCache.Key k2 = new ProfileCache.Key(DATE, 1, Set.of(Vehicle.BUS));
+        assertEquals(k1, k2);
+        assertNotEquals(k1, key(1));
+        assertNotEquals(k1, new ProfileCache.Key(DATE.plusDays(1), 1, Set.of(Vehicle.BUS)));
+
+        Set<Vehicle> excluded = EnumSet.of(Vehicle.TRAM);
+        ProfileCache.Key k3 = new ProfileCache.Key(DATE, 1, excluded);
+        excluded.add(Vehicle.BUS);
+        assertEquals(Set.of(Vehicle.TRAM), k3.excludedVehicles());
+    }
+
+    @Test
+    void profileCacheEvictsLeastRecentlyUsedProfilesOverBudget() {
+        long weight = ProfileCache.weight(profile(0, 10));
+        ProfileCache cache = new ProfileCache(3 * weight);
+        for (int s = 0; s < 3; s += 1) {
+            int arr = s;
+            cache.get(key(s), k -> profile(arr, 10));
+        }
+        assertEquals(3, cache.size());
+        assertEquals(0, cache.evictionCount());
+
+        // Le profil 0 devient le plus récemment utilisé, 1 est donc évincé en premier
+        assertNotNull(cache.getIfPresent(key(0)));
+        cache.get(key(3), k -> profile(3, 10));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertNull(cache.getIfPresent(key(1)));
+        assertNotNull(cache.getIfPresent(key(0)));
+        assertEquals(3 * weight, cache.weightedSize());
+
+        // Un profil plus gros que le budget en évince d'autres, puis lui-même
+        cache.get(key(4), k -> profile(4, 50));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+        assertEquals(5, cache.evictionCount());
+    }
+
+    @Test
+    void profileCacheLoadsEachProfileOnceUnderConcurrentAccess() throws Exception {
+        ProfileCache cache = new ProfileCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Profile p = profile(2, 5);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Profile>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i += 1) {
+                results.add(executor.submit(() -> cache.get(key(2), k -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return p;
+                })));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // Pendant le chargement, les autres clés restent accessibles
+            assertNull(cache.getIfPresent(key(2)));
+            assertSame(p, cache.get(key(3), k -> p));
+            release.countDown();
+            for (Future<Profile> result : results) {
+                assertSame(p, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.missCount());
+        assertEquals(threads - 1, cache.hitCount());
+    }
+
+    @Test
+    void profileCacheDoesNotKeepFailedLoads() {
+        ProfileCache cache = new ProfileCache(1 << 20);
+        IllegalStateException failure = new IllegalStateException();
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> cache.get(key(1), k -> {
+                    throw failure;
+                })));
+        assertEquals(0, cache.size());
+        assertNull(cache.getIfPresent(key(1)));
+
+        Profile p = profile(1, 1);
+        assertSame(p, cache.get(key(1), k -> p));
+        assertEquals(2, cache.missCount());
+    }
+}
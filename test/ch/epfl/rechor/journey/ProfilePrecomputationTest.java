@@ -0,0 +1,74 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilePrecomputationTest {
+    @Test
+    void profilePrecomputationWritesEveryProfile(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(41, 30, 120);
+        var router = new Router(timeTable);
+        try (ForkJoinPool pool = new ForkJoinPool(3)) {
+            var statistics = ProfilePrecomputation.precompute(timeTable, directory, DATE, pool,
+                    p -> assertTrue(0 <= p && p <= 1));
+            assertEquals(30, statistics.computed());
+            assertEquals(0, statistics.skipped());
+            int scans = Router.groups(IntStream.range(0, 30).toArray()).size();
+            assertEquals((long) scans * timeTable.connectionsFor(DATE).size(),
+                    statistics.connections());
+        }
+        for (int s = 0; s < 30; s += 1) {
+            Profile read = ProfileStore.read(timeTable, DATE,
+                    ProfileStore.path(directory, DATE, s));
+            RouterTest.assertSameProfile(router.profile(DATE, s), read, 30);
+        }
+    }
+
+    @Test
+    void profilePrecomputationOnlyComputesMissingProfiles(@TempDir Path directory)
+            throws IOException {
+        var timeTable = new RandomTimeTable(42, 25, 100);
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            ProfilePrecomputation.precompute(timeTable, directory, DATE, pool, p -> { });
+
+            var again = ProfilePrecomputation.precompute(timeTable, directory, DATE, pool,
+                    p -> fail());
+            assertEquals(0, again.computed());
+            assertEquals(25, again.skipped());
+            assertEquals(0, again.connections());
+
+            // Un profil manquant et un profil corrompu sont recalculés
+            Files.delete(ProfileStore.path(directory, DATE, 4));
+            Files.write(ProfileStore.path(directory, DATE, 11), new byte[]{1, 2, 3});
+            var resumed = ProfilePrecomputation.precompute(timeTable, directory, DATE, pool,
+                    p -> { });
+            assertEquals(2, resumed.computed());
+            assertEquals(23, resumed.skipped());
+        }
+        var router = new Router(timeTable);
+        for (int s : new int[]{4, 11}) {
+            RouterTest.assertSameProfile(router.profile(DATE, s),
+                    ProfileStore.read(timeTable, DATE, ProfileStore.path(directory, DATE, s)), 25);
+        }
+    }
+
+    @Test
+    void profilePrecomputationStatisticsComputeThroughput() {
+        var statistics = new ProfilePrecomputation.Statistics(10, 2, 5_000,
+                Duration.ofMillis(500));
+        assertEquals(20, statistics.destinationsPerSecond(), 1e-9);
+        assertEquals(10_000, statistics.connectionsPerSecond(), 1e-9);
+        assertEquals(0, new ProfilePrecomputation.Statistics(0, 3, 0, Duration.ZERO)
+                .connectionsPerSecond());
+    }
+}
@@ -0,0 +1,125 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.DelayedConnections;
+import ch.epfl.rechor.timetable.DelayedTimeTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileStoreTest {
+    @Test
+    void profileStorePathIsInDayDirectory() {
+        assertEquals(Path.of("timetable", "2025-03-18", "profiles", "42.bin"),
+                ProfileStore.path(Path.of("timetable"), DATE, 42));
+    }
+
+    @Test
+    void profileStoreReadReturnsWrittenProfile(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(21, 40, 150);
+        var router = new Router(timeTable);
+        for (int destination : new int[]{0, 7, 39}) {
+            Profile profile = router.profile(DATE, destination);
+            Path file = ProfileStore.path(directory, DATE, destination);
+            ProfileStore.write(profile, file);
+            Profile read = ProfileStore.read(timeTable, DATE, file);
+            assertEquals(DATE, read.date());
+            assertSame(timeTable, read.timeTable());
+            RouterTest.assertSameProfile(profile, read, 40);
+
+            // Un profil lu peut être écrit à nouveau tel quel
+            ProfileStore.write(read, file);
+            RouterTest.assertSameProfile(profile, ProfileStore.read(timeTable, DATE, file), 40);
+        }
+        try (var files = Files.list(ProfileStore.path(directory, DATE, 0).getParent())) {
+            assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    void profileStoreReadJourneysMatchComputedJourneys(@TempDir Path directory)
+            throws IOException {
+        var timeTable = new RandomTimeTable(22, 30, 120);
+        Profile profile = new Router(timeTable).profile(DATE, 3);
+        Path file = ProfileStore.path(directory, DATE, 3);
+        ProfileStore.write(profile, file);
+        Profile read = ProfileStore.read(timeTable, DATE, file);
+        for (int s = 0; s < 30; s += 1) {
+            assertEquals(JourneyExtractor.journeys(profile, s),
+                    JourneyExtractor.journeys(read, s));
+        }
+    }
+
+    @Test
+    void profileStoreReadThrowsOnOtherTimeTable(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(23, 30, 120);
+        Path file = directory.resolve("profile.bin");
+        ProfileStore.write(new Router(timeTable).profile(DATE, 1), file);
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(new RandomTimeTable(23, 31, 120), DATE, file));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(new RandomTimeTable(23, 30, 121), DATE, file));
+    }
+
+    @Test
+    void profileStoreReadThrowsOnOtherConnectionsWithSameCounts(@TempDir Path directory)
+            throws IOException {
+        var timeTable = new RandomTimeTable(26, 30, 120);
+        Path file = directory.resolve("profile.bin");
+        ProfileStore.write(new Router(timeTable).profile(DATE, 1), file);
+
+        // Les mêmes liaisons, décodées, donnent la même empreinte
+        var cached = new CachedTimeTable(timeTable, true);
+        RouterTest.assertSameProfile(new Router(timeTable).profile(DATE, 1),
+                ProfileStore.read(cached, DATE, file), 30);
+
+        var base = timeTable.connectionsFor(DATE);
+        var delays = new DelayedConnections.Builder(base);
+        delays.setDelay(0, 5, 5);
+        var delayed = new DelayedTimeTable(timeTable, DATE, delays.build());
+        assertEquals(base.size(), delayed.connectionsFor(DATE).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(delayed, DATE, file));
+    }
+
+    @Test
+    void profileStoreReadThrowsOnInvalidFile(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(24, 30, 120);
+        Path file = directory.resolve("profile.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(timeTable, DATE, file));
+        Files.write(file, new byte[3]);
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(timeTable, DATE, file));
+    }
+
+    @Test
+    void profileStoreReadThrowsOnInvalidOffsets(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(25, 30, 120);
+        Path file = directory.resolve("profile.bin");
+        ProfileStore.write(new Router(timeTable).profile(DATE, 2), file);
+        byte[] valid = Files.readAllBytes(file);
+        // Les positions des gares suivent l'en-tête de 8 entiers
+        int offsetsPosition = 8 * Integer.BYTES;
+
+        byte[] decreasing = valid.clone();
+        ByteBuffer.wrap(decreasing).putInt(offsetsPosition + Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(file, decreasing);
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(timeTable, DATE, file));
+
+        byte[] notFromZero = valid.clone();
+        ByteBuffer.wrap(notFromZero).putInt(offsetsPosition, -1);
+        Files.write(file, notFromZero);
+        assertThrows(IllegalArgumentException.class,
+                () -> ProfileStore.read(timeTable, DATE, file));
+    }
+}
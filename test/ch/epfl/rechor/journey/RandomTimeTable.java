@@ -0,0 +1,480 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.timetable.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+
+/**
+ * Small, randomly generated but fully consistent timetable used to compare the
+ * different routing engines against each other.
+ * <p>
+ * Connections are sorted by decreasing departure time (and, for equal departure
+ * times, by decreasing position in the trip), every station has a self transfer
+ * and nearby stations are linked by symmetric walking transfers, exactly like the
+ * real data read by {@code FileTimeTable}.
+ * <p>
+ * By default, the walking transfers are not transitive: a station may be reachable on
+ * foot through an intermediate station without being directly linked to it. The
+ * pruning of {@link ParetoFront.Builder#fullyDominates} assumes they are, so
+ * {@link Router} may then miss journeys that other engines find; timetables built with
+ * transitive transfers link every pair of stations connected on foot by their shortest
+ * walking time instead.
+ */
+public final class RandomTimeTable implements TimeTable {
+    /** Date used by the tests; the timetable is the same every day. */
+    public static final LocalDate DATE = LocalDate.of(2025, Month.MARCH, 18);
+    /** Number of changes considered by {@link #bestArrivals(ParetoFront, int)}. */
+    static final int MAX_CHANGES = 8;
+
+    private final int stationCount;
+    private final double[] lon, lat;
+    private final int[] platformStation;
+    private final Vehicle[] routeVehicle;
+    private final int[] tripRoute;
+    private final int[] cDepStop, cDepMins, cArrStop, cArrMins, cTrip, cPos, cNext;
+    private final int[] tDep, tArr, tMins;
+    private final int[] arrivingAt;
+    private int connectionsForCalls;
+
+    public RandomTimeTable(long seed, int stationCount, int tripCount) {
+        this(seed, stationCount, tripCount, false);
+    }
+
+    public RandomTimeTable(long seed, int stationCount, int tripCount,
+                           boolean transitiveTransfers) {
+        Random rng = new Random(seed);
+        this.stationCount = stationCount;
+        lon = new double[stationCount];
+        lat = new double[stationCount];
+        for (int s = 0; s < stationCount; s += 1) {
+            lon[s] = 6 + rng.nextDouble() * 4;
+            lat[s] = 46 + rng.nextDouble() * 1.5;
+        }
+        platformStation = new int[stationCount];
+        for (int p = 0; p < stationCount; p += 1) platformStation[p] = p;
+
+        int routeCount = Math.max(1, tripCount / 4);
+        routeVehicle = new Vehicle[routeCount];
+        int[][] routeStops = new int[routeCount][];
+        for (int r = 0; r < routeCount; r += 1) {
+            routeVehicle[r] = Vehicle.ALL.get(rng.nextInt(Vehicle.ALL.size()));
+            int len = 2 + rng.nextInt(Math.min(8, stationCount - 1));
+            LinkedHashSet<Integer> stops = new LinkedHashSet<>();
+            while (stops.size() < len) stops.add(rng.nextInt(stationCount));
+            routeStops[r] = stops.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        tripRoute = new int[tripCount];
+        List<int[]> cs = new ArrayList<>();
+        for (int t = 0; t < tripCount; t += 1) {
+            int r = rng.nextInt(routeCount);
+            tripRoute[t] = r;
+            int[] stops = routeStops[r];
+            int time = 300 + rng.nextInt(1000);
+            for (int pos = 0; pos < stops.length - 1; pos += 1) {
+                int dep = time;
+                int arr = dep + 1 + rng.nextInt(20);
+                // Alternately use the station itself or its platform as stop.
+                int depStop = rng.nextBoolean() ? stops[pos] : stationCount + stops[pos];
+                int arrStop = rng.nextBoolean() ? stops[pos + 1] : stationCount + stops[pos + 1];
+                cs.add(new int[]{depStop, dep, arrStop, arr, t, pos});
+                time = arr + rng.nextInt(3);
+            }
+        }
+        cs.sort(Comparator.<int[]>comparingInt(c -> -c[1])
+                .thenComparingInt(c -> c[4])
+                .thenComparingInt(c -> -c[5]));
+        int n = cs.size();
+        cDepStop = new int[n];
+        cDepMins = new int[n];
+        cArrStop = new int[n];
+        cArrMins = new int[n];
+        cTrip = new int[n];
+        cPos = new int[n];
+        cNext = new int[n];
+        Map<Long, Integer> idOf = new HashMap<>();
+        for (int i = 0; i < n; i += 1) {
+            int[] c = cs.get(i);
+            cDepStop[i] = c[0];
+            cDepMins[i] = c[1];
+            cArrStop[i] = c[2];
+            cArrMins[i] = c[3];
+            cTrip[i] = c[4];
+            cPos[i] = c[5];
+            idOf.put(((long) c[4] << 32) | c[5], i);
+        }
+        for (int i = 0; i < n; i += 1) {
+            Integer next = idOf.get(((long) cTrip[i] << 32) | (cPos[i] + 1));
+            cNext[i] = next != null ? next : idOf.get((long) cTrip[i] << 32);
+        }
+
+        List<int[]> ts = new ArrayList<>();
+        for (int s = 0; s < stationCount; s += 1) ts.add(new int[]{s, s, 1 + rng.nextInt(4)});
+        for (int a = 0; a < stationCount; a += 1) {
+            for (int b = a + 1; b < stationCount; b += 1) {
+                double d = Math.hypot(lon[a] - lon[b], lat[a] - lat[b]);
+                if (d < 0.5 && rng.nextInt(3) == 0) {
+                    int minutes = 3 + rng.nextInt(15);
+                    ts.add(new int[]{a, b, minutes});
+                    ts.add(new int[]{b, a, minutes});
+                }
+            }
+        }
+        if (transitiveTransfers) ts = transitiveClosure(ts, stationCount);
+        ts.sort(Comparator.<int[]>comparingInt(t -> t[1]).thenComparingInt(t -> t[0]));
+        tDep = new int[ts.size()];
+        tArr = new int[ts.size()];
+        tMins = new int[ts.size()];
+        arrivingAt = new int[stationCount];
+        for (int i = 0; i < ts.size(); i += 1) {
+            tDep[i] = ts.get(i)[0];
+            tArr[i] = ts.get(i)[1];
+            tMins[i] = ts.get(i)[2];
+        }
+        int start = 0;
+        for (int s = 0; s < stationCount; s += 1) {
+            int end = start;
+            while (end < tArr.length && tArr[end] == s) end += 1;
+            arrivingAt[s] = PackedRange.pack(start, end);
+            start = end;
+        }
+    }
+
+    /**
+     * Returns the self transfers of the given ones, followed by a transfer between every
+     * pair of distinct stations linked by a path of transfers, lasting its shortest time.
+     */
+    private static List<int[]> transitiveClosure(List<int[]> transfers, int stationCount) {
+        int[][] minutes = new int[stationCount][stationCount];
+        for (int[] row : minutes) Arrays.fill(row, Integer.MAX_VALUE);
+        List<int[]> closure = new ArrayList<>();
+        for (int[] t : transfers) {
+            if (t[0] == t[1]) closure.add(t);
+            else minutes[t[0]][t[1]] = t[2];
+        }
+        for (int k = 0; k < stationCount; k += 1) {
+            for (int a = 0; a < stationCount; a += 1) {
+                if (minutes[a][k] == Integer.MAX_VALUE) continue;
+                for (int b = 0; b < stationCount; b += 1) {
+                    if (minutes[k][b] == Integer.MAX_VALUE) continue;
+                    minutes[a][b] = Math.min(minutes[a][b], minutes[a][k] + minutes[k][b]);
+                }
+            }
+        }
+        for (int a = 0; a < stationCount; a += 1) {
+            for (int b = 0; b < stationCount; b += 1) {
+                if (a != b && minutes[a][b] != Integer.MAX_VALUE) {
+                    closure.add(new int[]{a, b, minutes[a][b]});
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Returns the number of calls to {@link #connectionsFor(LocalDate)}, used to check that
+     * the data of a day is shared.
+     */
+    public int connectionsForCalls() {
+        return connectionsForCalls;
+    }
+
+    @Override
+    public Stations stations() {
+        return new Stations() {
+            @Override
+            public String name(int id) {
+                return "Station " + Objects.checkIndex(id, stationCount);
+            }
+
+            @Override
+            public double longitude(int id) {
+                return lon[id];
+            }
+
+            @Override
+            public double latitude(int id) {
+                return lat[id];
+            }
+
+            @Override
+            public int size() {
+                return stationCount;
+            }
+        };
+    }
+
+    @Override
+    public StationAliases stationAliases() {
+        return new StationAliases() {
+            @Override
+            public String alias(int id) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public String stationName(int id) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public int size() {
+                return 0;
+            }
+        };
+    }
+
+    @Override
+    public Platforms platforms() {
+        return new Platforms() {
+            @Override
+            public String name(int id) {
+                return String.valueOf(1 + Objects.checkIndex(id, platformStation.length));
+            }
+
+            @Override
+            public int stationId(int id) {
+                return platformStation[id];
+            }
+
+            @Override
+            public int size() {
+                return platformStation.length;
+            }
+        };
+    }
+
+    @Override
+    public Routes routes() {
+        return new Routes() {
+            @Override
+            public Vehicle vehicle(int id) {
+                return routeVehicle[id];
+            }
+
+            @Override
+            public String name(int id) {
+                return "L" + Objects.checkIndex(id, routeVehicle.length);
+            }
+
+            @Override
+            public int size() {
+                return routeVehicle.length;
+            }
+        };
+    }
+
+    @Override
+    public Transfers transfers() {
+        return new Transfers() {
+            @Override
+            public int depStationId(int id) {
+                return tDep[id];
+            }
+
+            @Override
+            public int minutes(int id) {
+                return tMins[id];
+            }
+
+            @Override
+            public int arrivingAt(int stationId) {
+                return arrivingAt[stationId];
+            }
+
+            @Override
+            public int minutesBetween(int depStationId, int arrStationId) {
+                int range = arrivingAt[arrStationId];
+                for (int i = PackedRange.startInclusive(range);
+                     i < PackedRange.endExclusive(range); i += 1) {
+                    if (tDep[i] == depStationId) return tMins[i];
+                }
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public int size() {
+                return tDep.length;
+            }
+        };
+    }
+
+    @Override
+    public Trips tripsFor(LocalDate date) {
+        return new Trips() {
+            @Override
+            public int routeId(int id) {
+                return tripRoute[id];
+            }
+
+            @Override
+            public String destination(int id) {
+                return "Terminus " + Objects.checkIndex(id, tripRoute.length);
+            }
+
+            @Override
+            public int size() {
+                return tripRoute.length;
+            }
+        };
+    }
+
+    @Override
+    public Connections connectionsFor(LocalDate date) {
+        connectionsForCalls += 1;
+        return new Connections() {
+            @Override
+            public int depStopId(int id) {
+                return cDepStop[id];
+            }
+
+            @Override
+            public int depMins(int id) {
+                return cDepMins[id];
+            }
+
+            @Override
+            public int arrStopId(int id) {
+                return cArrStop[id];
+            }
+
+            @Override
+            public int arrMins(int id) {
+                return cArrMins[id];
+            }
+
+            @Override
+            public int tripId(int id) {
+                return cTrip[id];
+            }
+
+            @Override
+            public int tripPos(int id) {
+                return cPos[id];
+            }
+
+            @Override
+            public int nextConnectionId(int id) {
+                return cNext[id];
+            }
+
+            @Override
+            public int size() {
+                return cDepMins.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the tuples of the given front, in order, to compare profiles.
+     */
+    static long[] tuples(ParetoFront front) {
+        long[] tuples = new long[front.size()];
+        int[] i = {0};
+        front.forEach(t -> tuples[i[0]++] = t);
+        return tuples;
+    }
+
+    /**
+     * Returns, for every maximal number of changes below {@link #MAX_CHANGES}, the earliest
+     * arrival time of the tuples of the given front that do not depart before the given
+     * time (tuples without departure time are always considered), or
+     * {@link Integer#MAX_VALUE} if there is none.
+     */
+    static int[] bestArrivals(ParetoFront front, int depMins) {
+        int[] best = new int[MAX_CHANGES];
+        Arrays.fill(best, Integer.MAX_VALUE);
+        front.forEach(t -> {
+            if (PackedCriteria.hasDepMins(t) && PackedCriteria.depMins(t) < depMins) return;
+            for (int k = PackedCriteria.changes(t); k < MAX_CHANGES; k += 1) {
+                best[k] = Math.min(best[k], PackedCriteria.arrMins(t));
+            }
+        });
+        return best;
+    }
+
+    /**
+     * Checks that the given journey can be travelled in this timetable on the given date:
+     * every transport leg rides consecutive connections of a single trip with their exact
+     * times, every foot leg follows an existing transfer and lasts at least its duration,
+     * and every leg starts at the station where the previous one ends, no earlier than it
+     * ends.
+     *
+     * @throws AssertionError if the journey is not feasible
+     */
+    void checkFeasible(LocalDate date, Journey journey) {
+        Journey.Leg previous = null;
+        for (Journey.Leg leg : journey.legs()) {
+            int depStationId = stationIdOf(leg.depStop());
+            int arrStationId = stationIdOf(leg.arrStop());
+            int depMins = minutesOf(date, leg.depTime());
+            int arrMins = minutesOf(date, leg.arrTime());
+            if (previous != null) {
+                check(stationIdOf(previous.arrStop()) == depStationId,
+                        "leg does not start where the previous one ends", journey);
+                check(minutesOf(date, previous.arrTime()) <= depMins,
+                        "leg starts before the previous one ends", journey);
+            }
+            switch (leg) {
+                case Journey.Leg.Foot f -> {
+                    int minutes = transferMinutes(depStationId, arrStationId);
+                    check(minutes >= 0, "no transfer for foot leg", journey);
+                    check(arrMins - depMins >= minutes, "foot leg too short", journey);
+                }
+                case Journey.Leg.Transport t -> check(
+                        rides(t, date, depStationId, depMins, arrStationId, arrMins),
+                        "no trip for transport leg", journey);
+            }
+            previous = leg;
+        }
+    }
+
+    private boolean rides(Journey.Leg.Transport leg, LocalDate date, int depStationId,
+                          int depMins, int arrStationId, int arrMins) {
+        candidates:
+        for (int c = 0; c < cDepMins.length; c += 1) {
+            if (cDepMins[c] != depMins || stationId(cDepStop[c]) != depStationId) continue;
+            int current = c;
+            for (Journey.Leg.IntermediateStop stop : leg.intermediateStops()) {
+                int next = cNext[current];
+                if (stationId(cArrStop[current]) != stationIdOf(stop.stop())
+                        || cArrMins[current] != minutesOf(date, stop.arrTime())
+                        || cPos[next] != cPos[current] + 1
+                        || cDepMins[next] != minutesOf(date, stop.depTime())) {
+                    continue candidates;
+                }
+                current = next;
+            }
+            if (stationId(cArrStop[current]) == arrStationId && cArrMins[current] == arrMins) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int transferMinutes(int depStationId, int arrStationId) {
+        int range = arrivingAt[arrStationId];
+        for (int i = PackedRange.startInclusive(range);
+             i < PackedRange.endExclusive(range); i += 1) {
+            if (tDep[i] == depStationId) return tMins[i];
+        }
+        return -1;
+    }
+
+    private static int stationIdOf(Stop stop) {
+        return Integer.parseInt(stop.name().substring("Station ".length()));
+    }
+
+    private static int minutesOf(LocalDate date, LocalDateTime time) {
+        return (int) Duration.between(date.atStartOfDay(), time).toMinutes();
+    }
+
+    private static void check(boolean condition, String message, Journey journey) {
+        if (!condition) throw new AssertionError(message + ": " + journey);
+    }
+}
@@ -0,0 +1,145 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.epfl.rechor.journey.PackedCriteria.*;
+import static ch.epfl.rechor.journey.RandomTimeTable.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RaptorRouterTest {
+    @Test
+    void raptorRouterConstructorThrowsOnInvalidMaxChanges() {
+        var timeTable = new RandomTimeTable(60, 5, 5);
+        assertThrows(IllegalArgumentException.class, () -> new RaptorRouter(timeTable, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RaptorRouter(timeTable, RaptorRouter.MAX_CHANGES + 1));
+        assertEquals(RaptorRouter.MAX_CHANGES, new RaptorRouter(timeTable).maxChanges());
+    }
+
+    @Test
+    void raptorRouterIsNeverWorseThanRouterAndOnlyFindsFeasibleJourneys() {
+        for (long seed = 61; seed < 64; seed += 1) {
+            var timeTable = new RandomTimeTable(seed, 30, 150);
+            RoutingEngine csa = new Router(timeTable);
+            RoutingEngine raptor = new RaptorRouter(timeTable);
+            for (int arr = 0; arr < 30; arr += 1) {
+                Profile expected = csa.profile(DATE, arr);
+                Profile actual = raptor.profile(DATE, arr);
+                assertEquals(arr, actual.arrStationId());
+                for (int dep = 0; dep < 30; dep += 1) {
+                    if (dep == arr) continue;
+                    // Sans changements transitifs, RAPTOR trouve des voyages que l'élagage
+                    // de Router ignore ; ils doivent néanmoins être réalisables
+                    for (Journey j : JourneyExtractor.journeys(actual, dep)) {
+                        timeTable.checkFeasible(DATE, j);
+                    }
+                    for (int depMins = 300; depMins < 1300; depMins += 100) {
+                        int[] e = bestArrivals(expected.forStation(dep), depMins);
+                        int[] a = bestArrivals(actual.forStation(dep), depMins);
+                        for (int k = 0; k < MAX_CHANGES; k += 1) {
+                            assertTrue(a[k] <= e[k], "from " + dep + " to " + arr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void raptorRouterMatchesRouterWithTransitiveTransfers() {
+        for (long seed = 61; seed < 64; seed += 1) {
+            var timeTable = new RandomTimeTable(seed, 30, 150, true);
+            RoutingEngine csa = new Router(timeTable);
+            RoutingEngine raptor = new RaptorRouter(timeTable);
+            for (int arr = 0; arr < 30; arr += 1) {
+                Profile expected = csa.profile(DATE, arr);
+                Profile actual = raptor.profile(DATE, arr);
+                for (int dep = 0; dep < 30; dep += 1) {
+                    if (dep == arr) continue;
+                    for (int depMins = 300; depMins < 1300; depMins += 100) {
+                        assertArrayEquals(bestArrivals(expected.forStation(dep), depMins),
+                                bestArrivals(actual.forStation(dep), depMins),
+                                "from " + dep + " to " + arr + " at " + depMins);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void checkFeasibleRejectsJourneysNotInTheTimeTable() {
+        var timeTable = new RandomTimeTable(61, 30, 150);
+        Profile profile = new RaptorRouter(timeTable).profile(DATE, 0);
+        int dep = 1;
+        while (profile.forStation(dep).size() == 0) dep += 1;
+        Journey journey = JourneyExtractor.journeys(profile, dep).getFirst();
+        timeTable.checkFeasible(DATE, journey);
+
+        // Même voyage, mais dont la première étape en transport part une minute plus tôt
+        List<Journey.Leg> legs = new ArrayList<>(journey.legs());
+        int i = legs.getFirst() instanceof Journey.Leg.Transport ? 0 : 1;
+        Journey.Leg.Transport t = (Journey.Leg.Transport) legs.get(i);
+        LocalDateTime earlier = t.depTime().minusMinutes(1);
+        legs.set(i, new Journey.Leg.Transport(t.depStop(), earlier, t.arrStop(), t.arrTime(),
+                t.intermediateStops(), t.vehicle(), t.route(), t.destination()));
+        if (i == 1) {
+            Journey.Leg.Foot f = (Journey.Leg.Foot) legs.getFirst();
+            legs.set(0, new Journey.Leg.Foot(f.depStop(), f.depTime().minusMinutes(1),
+                    f.arrStop(), earlier));
+        }
+        assertThrows(AssertionError.class,
+                () -> timeTable.checkFeasible(DATE, new Journey(legs)));
+    }
+
+    @Test
+    void raptorRouterJourneysAreWellFormed() {
+        var timeTable = new RandomTimeTable(64, 25, 120);
+        RoutingEngine raptor = new RaptorRouter(timeTable);
+        for (int arr = 0; arr < 25; arr += 3) {
+            Profile profile = raptor.profile(DATE, arr);
+            for (int dep = 0; dep < 25; dep += 1) {
+                if (dep == arr) continue;
+                List<Journey> journeys = raptor.journeys(DATE, dep, arr);
+                assertEquals(profile.forStation(dep).size(), journeys.size());
+                for (Journey j : journeys) {
+                    assertEquals(timeTable.stations().name(dep), j.depStop().name());
+                    assertEquals(timeTable.stations().name(arr), j.arrStop().name());
+                }
+            }
+        }
+    }
+
+    @Test
+    void raptorRouterRespectsMaxChanges() {
+        var timeTable = new RandomTimeTable(65, 25, 120);
+        var unbounded = new RaptorRouter(timeTable);
+        for (int maxChanges = 0; maxChanges < 3; maxChanges += 1) {
+            var bounded = new RaptorRouter(timeTable, maxChanges);
+            for (int arr = 0; arr < 25; arr += 4) {
+                Profile all = unbounded.profile(DATE, arr);
+                Profile some = bounded.profile(DATE, arr);
+                for (int dep = 0; dep < 25; dep += 1) {
+                    if (dep == arr) continue;
+                    int m = maxChanges;
+                    some.forStation(dep).forEach(t -> assertTrue(changes(t) <= m));
+                    for (int depMins = 300; depMins < 1300; depMins += 200) {
+                        assertEquals(bestArrivals(all.forStation(dep), depMins)[m],
+                                bestArrivals(some.forStation(dep), depMins)[m]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void routerIsARoutingEngine() {
+        var timeTable = new RandomTimeTable(66, 20, 60);
+        RoutingEngine engine = new Router(timeTable);
+        assertEquals(JourneyExtractor.journeys(new Router(timeTable).profile(DATE, 4), 9),
+                engine.journeys(DATE, 9, 4));
+    }
+}
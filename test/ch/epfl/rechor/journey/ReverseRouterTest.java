@@ -0,0 +1,98 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReverseRouterTest {
+    @Test
+    void reverseRouterBoundedProfileIsFilteredFullProfile() {
+        var timeTable = new RandomTimeTable(21, 40, 200);
+        var router = new ReverseRouter(timeTable);
+        for (int origin = 0; origin < 40; origin += 7) {
+            ReverseProfile full = router.profile(DATE, origin);
+            for (var time = LocalTime.of(6, 0); time.isBefore(LocalTime.of(22, 0));
+                 time = time.plusMinutes(173)) {
+                int mins = time.toSecondOfDay() / 60;
+                ReverseProfile bounded = router.profile(DATE, origin, time, Set.of(), f -> { });
+                for (int s = 0; s < 40; s += 1) {
+                    long[] expected = Arrays.stream(RandomTimeTable.tuples(full.forStation(s)))
+                            .filter(t -> PackedCriteria.depMins(t) >= mins)
+                            .toArray();
+                    assertArrayEquals(expected, RandomTimeTable.tuples(bounded.forStation(s)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void reverseRouterJourneysAreValidAndNeverBeatEarliestArrival() {
+        var timeTable = new RandomTimeTable(22, 40, 250);
+        var router = new ReverseRouter(timeTable);
+        var eaRouter = new EarliestArrivalRouter(timeTable);
+        int journeyCount = 0;
+        for (int origin = 0; origin < 40; origin += 3) {
+            ReverseProfile profile = router.profile(DATE, origin);
+            for (int destination = 0; destination < 40; destination += 1) {
+                if (destination == origin) continue;
+                var journeys = JourneyExtractor.journeys(profile, destination);
+                journeyCount += journeys.size();
+                for (Journey j : journeys) {
+                    assertEquals(timeTable.stations().name(origin), j.depStop().name());
+                    assertEquals(timeTable.stations().name(destination), j.arrStop().name());
+                }
+                for (var time = LocalTime.of(5, 0); time.isBefore(LocalTime.of(23, 0));
+                     time = time.plusMinutes(131)) {
+                    var depTime = LocalDateTime.of(DATE, time);
+                    var best = journeys.stream()
+                            .filter(j -> !j.depTime().isBefore(depTime))
+                            .map(Journey::arrTime)
+                            .min(Comparator.naturalOrder());
+                    var ea = eaRouter.journey(DATE, origin, destination, time);
+                    if (best.isPresent()) {
+                        assertTrue(ea.isPresent());
+                        assertFalse(best.get().isBefore(ea.get().arrTime()));
+                    }
+                }
+            }
+        }
+        assertTrue(journeyCount > 0);
+    }
+
+    @Test
+    void routerProfileArrivingByOnlyContainsJourneysArrivingInTime() {
+        var timeTable = new RandomTimeTable(23, 40, 200);
+        var router = new Router(timeTable);
+        var arrTime = LocalTime.of(14, 30);
+        int arrMins = arrTime.toSecondOfDay() / 60;
+        for (int destination = 0; destination < 40; destination += 5) {
+            Profile profile = router.profileArrivingBy(DATE, destination, arrTime, Set.of(),
+                    f -> { });
+            for (int s = 0; s < 40; s += 1) {
+                for (long t : RandomTimeTable.tuples(profile.forStation(s))) {
+                    assertTrue(PackedCriteria.arrMins(t) <= arrMins);
+                }
+                if (s == destination) continue;
+                for (Journey j : JourneyExtractor.journeys(profile, s)) {
+                    assertFalse(j.arrTime().isAfter(LocalDateTime.of(DATE, arrTime)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void routerConnectionsDepartingBeforeSplitsTheDay() {
+        var timeTable = new RandomTimeTable(24, 20, 60);
+        var router = new Router(timeTable);
+        int size = timeTable.connectionsFor(DATE).size();
+        assertEquals(0, router.connectionsDepartingBefore(DATE, LocalTime.MIN));
+        assertEquals(size, router.connectionsDepartingBefore(DATE, LocalTime.of(23, 59)));
+    }
+}
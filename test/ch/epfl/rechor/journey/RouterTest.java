@@ -0,0 +1,276 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.DelayedConnections;
+import ch.epfl.rechor.timetable.DelayedTimeTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouterTest {
+    static void assertSameProfile(Profile expected, Profile actual, int stationCount) {
+        assertEquals(expected.arrStationId(), actual.arrStationId());
+        for (int s = 0; s < stationCount; s += 1) {
+            assertArrayEquals(RandomTimeTable.tuples(expected.forStation(s)),
+                    RandomTimeTable.tuples(actual.forStation(s)), "station " + s);
+        }
+    }
+
+    @Test
+    void routerProfilesMatchesSequentialProfiles() {
+        var timeTable = new RandomTimeTable(1, 40, 120);
+        var router = new Router(timeTable);
+        int[] destinations = IntStream.range(0, 40).toArray();
+        List<Profile> profiles = router.profiles(DATE, destinations);
+        assertEquals(destinations.length, profiles.size());
+        for (int i = 0; i < destinations.length; i += 1) {
+            assertSameProfile(router.profile(DATE, destinations[i]), profiles.get(i), 40);
+        }
+    }
+
+    @Test
+    void routerProfilesLoadsDayDataOnce() {
+        var timeTable = new RandomTimeTable(2, 30, 80);
+        var router = new Router(timeTable);
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            router.profiles(DATE, IntStream.range(0, 30).toArray(), executor);
+        }
+        assertEquals(1, timeTable.connectionsForCalls());
+    }
+
+    @Test
+    void routerProfilesUseTheRouterTimeTable() {
+        var timeTable = new CachedTimeTable(new RandomTimeTable(2, 30, 80), true);
+        Connections connections = timeTable.connectionsFor(DATE);
+        var router = new Router(timeTable);
+        for (Profile profile : router.profiles(DATE, IntStream.range(0, 30).toArray())) {
+            assertSame(timeTable, profile.timeTable());
+            assertSame(connections, profile.connections());
+        }
+    }
+
+    @Test
+    void routerProfilesReportsEveryProfileAndProgress() {
+        var timeTable = new RandomTimeTable(3, 25, 60);
+        var router = new Router(timeTable);
+        var received = ConcurrentHashMap.<Integer>newKeySet();
+        var progressCalls = new AtomicInteger();
+        double[] last = {-1};
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            router.profiles(DATE, new int[]{3, 7, 11, 19}, executor,
+                    p -> {
+                        progressCalls.incrementAndGet();
+                        synchronized (last) {
+                            last[0] = Math.max(last[0], p);
+                        }
+                    },
+                    p -> received.add(p.arrStationId()));
+        }
+        assertEquals(Set.of(3, 7, 11, 19), received);
+        assertEquals(1d, last[0]);
+        assertTrue(progressCalls.get() >= 2);
+    }
+
+    @Test
+    void routerProfileGroupMatchesSingleProfiles() {
+        var timeTable = new RandomTimeTable(4, 70, 200);
+        var router = new Router(timeTable);
+        int[] destinations = IntStream.range(0, 64).map(i -> (i * 7) % 70).toArray();
+        List<Profile> profiles = router.profileGroup(DATE, destinations);
+        for (int i = 0; i < destinations.length; i += 1) {
+            assertSameProfile(router.profile(DATE, destinations[i]), profiles.get(i), 70);
+        }
+    }
+
+    @Test
+    void routerProfileGroupThrowsOnTooManyDestinations() {
+        var router = new Router(new RandomTimeTable(5, 80, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> router.profileGroup(DATE, IntStream.range(0, 65).toArray()));
+    }
+
+    @Test
+    void routerFirstDepartingAtOrBeforeWorks() {
+        var connections = new RandomTimeTable(6, 30, 100).connectionsFor(DATE);
+        for (int mins = 250; mins < 1400; mins += 7) {
+            int index = Router.firstDepartingAtOrBefore(connections, mins);
+            for (int i = 0; i < index; i += 1) assertTrue(connections.depMins(i) > mins);
+            for (int i = index; i < connections.size(); i += 1)
+                assertTrue(connections.depMins(i) <= mins);
+        }
+    }
+
+    @Test
+    void routerWindowProfileKeepsJourneysDepartingInWindow() {
+        var timeTable = new RandomTimeTable(7, 50, 300);
+        var router = new Router(timeTable);
+        var from = LocalTime.of(9, 0);
+        var to = LocalTime.of(11, 0);
+        for (int destination = 0; destination < 50; destination += 5) {
+            Profile full = router.profile(DATE, destination);
+            Profile window = router.profile(DATE, destination, from, to);
+            for (int s = 0; s < 50; s += 1) {
+                if (s == destination) continue;
+                List<String> expected = JourneyExtractor.journeys(full, s).stream()
+                        .filter(j -> !j.depTime().toLocalTime().isBefore(from)
+                                && !j.depTime().toLocalTime().isAfter(to)
+                                && j.duration().toMinutes() < Router.MAX_WINDOW_JOURNEY_MINUTES)
+                        .map(Journey::toString)
+                        .toList();
+                List<String> actual = JourneyExtractor.journeys(window, s).stream()
+                        .filter(j -> !j.depTime().toLocalTime().isBefore(from)
+                                && !j.depTime().toLocalTime().isAfter(to))
+                        .map(Journey::toString)
+                        .toList();
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    void routerRepairMatchesFullRecomputation() {
+        var timeTable = new RandomTimeTable(8, 50, 300);
+        var base = timeTable.connectionsFor(DATE);
+        var router = new Router(timeTable);
+
+        var builder = new DelayedConnections.Builder(base);
+        for (int c = 0; c < base.size(); c += 1) {
+            if (base.tripPos(c) == 0 && base.depMins(c) % 23 == 0) {
+                int d = c;
+                do {
+                    builder.setDelay(d, 12, 12);
+                    d = base.nextConnectionId(d);
+                } while (base.tripPos(d) != 0);
+            }
+        }
+        builder.cancel(base.size() / 3);
+        var delayed = new DelayedTimeTable(timeTable, DATE, builder.build());
+        var delayedRouter = new Router(delayed);
+
+        for (int destination = 0; destination < 50; destination += 7) {
+            RepairableProfile previous = router.repairableProfile(DATE, destination);
+            assertSameProfile(router.profile(DATE, destination), previous.profile(), 50);
+
+            RepairableProfile repaired = delayedRouter.repair(previous);
+            assertSameProfile(delayedRouter.profile(DATE, destination), repaired.profile(), 50);
+            assertSame(delayed, repaired.profile().timeTable());
+
+            // A second repair with no change keeps the profile
+            assertSameProfile(repaired.profile(),
+                    delayedRouter.repair(repaired).profile(), 50);
+        }
+    }
+
+    @Test
+    void routerRepairableProfileCheckpointIntervalIsConfigurable() {
+        var timeTable = new RandomTimeTable(10, 40, 200);
+        var base = timeTable.connectionsFor(DATE);
+        var router = new Router(timeTable);
+        var builder = new DelayedConnections.Builder(base);
+        builder.cancel(base.size() / 2);
+        var delayedRouter = new Router(new DelayedTimeTable(timeTable, DATE, builder.build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> router.repairableProfile(DATE, 0, 0));
+
+        for (int minutes : new int[]{15, 60, 240}) {
+            RepairableProfile previous = router.repairableProfile(DATE, 3, minutes);
+            assertEquals(minutes, previous.checkpointMinutes());
+            assertSameProfile(router.profile(DATE, 3), previous.profile(), 40);
+
+            // Seules les frontières des courses dont une liaison reste à parcourir sont
+            // sauvegardées
+            for (RepairableProfile.Checkpoint checkpoint : previous.checkpoints()) {
+                for (int tripId : checkpoint.tripIds()) {
+                    boolean remaining = false;
+                    for (int c = checkpoint.connectionId(); c < base.size(); c += 1) {
+                        remaining |= base.tripId(c) == tripId;
+                    }
+                    assertTrue(remaining);
+                }
+            }
+
+            RepairableProfile repaired = delayedRouter.repair(previous);
+            assertEquals(minutes, repaired.checkpointMinutes());
+            assertSameProfile(delayedRouter.profile(DATE, 3), repaired.profile(), 40);
+        }
+        assertTrue(router.repairableProfile(DATE, 3, 240).checkpoints().size()
+                < router.repairableProfile(DATE, 3, 15).checkpoints().size());
+    }
+
+    @Test
+    void routerNeverUsesCancelledConnections() {
+        var timeTable = new RandomTimeTable(9, 30, 150);
+        var base = timeTable.connectionsFor(DATE);
+        var builder = new DelayedConnections.Builder(base);
+        for (int c = 0; c < base.size(); c += 4) builder.cancel(c);
+        var delayed = new DelayedTimeTable(timeTable, DATE, builder.build());
+        var connections = delayed.connectionsFor(DATE);
+        var router = new Router(delayed);
+        for (int destination = 0; destination < 30; destination += 3) {
+            Profile profile = router.profile(DATE, destination);
+            for (int s = 0; s < 30; s += 1) {
+                if (s == destination) continue;
+                for (Journey journey : JourneyExtractor.journeys(profile, s)) {
+                    for (Journey.Leg leg : journey.legs()) {
+                        if (!(leg instanceof Journey.Leg.Transport)) continue;
+                        int depMins = leg.depTime().toLocalTime().toSecondOfDay() / 60;
+                        for (int c = 0; c < connections.size(); c += 1) {
+                            if (connections.isCancelled(c) && connections.depMins(c) == depMins
+                                    && ("Station " + delayed.stationId(connections.depStopId(c)))
+                                    .equals(leg.depStop().name())) {
+                                var trips = delayed.tripsFor(DATE);
+                                assertNotEquals(trips.destination(connections.tripId(c)),
+                                        ((Journey.Leg.Transport) leg).destination());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void routerProfileWithExcludedVehiclesIgnoresTheirTrips() {
+        var timeTable = new RandomTimeTable(10, 40, 250);
+        var router = new Router(timeTable);
+        var excluded = EnumSet.of(Vehicle.BUS, Vehicle.TRAM);
+
+        // Same timetable, with every connection of an excluded trip cancelled
+        var connections = timeTable.connectionsFor(DATE);
+        var trips = timeTable.tripsFor(DATE);
+        var builder = new DelayedConnections.Builder(connections);
+        for (int c = 0; c < connections.size(); c += 1) {
+            int routeId = trips.routeId(connections.tripId(c));
+            if (excluded.contains(timeTable.routes().vehicle(routeId))) builder.cancel(c);
+        }
+        var withoutExcluded = new Router(new DelayedTimeTable(timeTable, DATE, builder.build()));
+
+        for (int destination = 0; destination < 40; destination += 3) {
+            Profile profile = router.profile(DATE, destination, excluded, p -> { });
+            assertSameProfile(withoutExcluded.profile(DATE, destination), profile, 40);
+            assertSameProfile(router.profile(DATE, destination),
+                    router.profile(DATE, destination, Set.of(), p -> { }), 40);
+            for (int s = 0; s < 40; s += 1) {
+                if (s == destination) continue;
+                for (Journey journey : JourneyExtractor.journeys(profile, s)) {
+                    for (Journey.Leg leg : journey.legs()) {
+                        if (leg instanceof Journey.Leg.Transport t) {
+                            assertFalse(excluded.contains(t.vehicle()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
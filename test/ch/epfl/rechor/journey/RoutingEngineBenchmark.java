@@ -0,0 +1,40 @@
+package ch.epfl.rechor.journey;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+
+/**
+ * Compare les temps de calcul des profils des différents moteurs de recherche d'itinéraires,
+ * sur un horaire aléatoire, avec et sans limite du nombre de changements.
+ */
+public class RoutingEngineBenchmark {
+    private static final int STATIONS = 400;
+    private static final int TRIPS = 4_000;
+    private static final int DESTINATIONS = 50;
+    private static final int REPETITIONS = 5;
+
+    private static void measure(String name, RoutingEngine engine) {
+        long best = Long.MAX_VALUE;
+        long tuples = 0;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            tuples = 0;
+            for (int d = 0; d < DESTINATIONS; d++) {
+                Profile profile = engine.profile(DATE, d);
+                for (ParetoFront front : profile.stationFront()) tuples += front.size();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("  %-20s %8.3f ms/profil (%d tuples)%n",
+                name, best / 1e6 / DESTINATIONS, tuples);
+    }
+
+    public static void main(String[] args) {
+        var timeTable = new RandomTimeTable(2025, STATIONS, TRIPS);
+        System.out.printf("%d gares, %d courses :%n", STATIONS, TRIPS);
+        measure("CSA", new Router(timeTable));
+        measure("RAPTOR", new RaptorRouter(timeTable));
+        for (int maxChanges : new int[]{0, 1, 3}) {
+            measure("RAPTOR (" + maxChanges + " chgt max)", new RaptorRouter(timeTable, maxChanges));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.epfl.rechor.journey.PackedCriteria.*;
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationFrontsTest {
+    private static List<ParetoFront> sampleFronts() {
+        List<ParetoFront> fronts = new ArrayList<>();
+        for (int s = 0; s < 6; s += 1) {
+            ParetoFront.Builder builder = new ParetoFront.Builder();
+            for (int i = 0; i < s % 3; i += 1) {
+                builder.add(withDepMins(pack(600 + 10 * i, 3 - i, s), 500 + s));
+            }
+            fronts.add(builder.build());
+        }
+        return fronts;
+    }
+
+    @Test
+    void stationFrontsOfKeepsEveryFront() {
+        List<ParetoFront> fronts = sampleFronts();
+        StationFronts compact = StationFronts.of(fronts);
+        assertEquals(fronts.size(), compact.size());
+        for (int s = 0; s < fronts.size(); s += 1) {
+            assertArrayEquals(RandomTimeTable.tuples(fronts.get(s)),
+                    RandomTimeTable.tuples(compact.get(s)));
+        }
+        assertSame(ParetoFront.EMPTY, compact.get(0));
+        assertEquals(610, arrMins(compact.get(5).get(610, 2)));
+        assertEquals(505, depMins(compact.get(5).getByDepMins(505, 3)));
+        assertThrows(IndexOutOfBoundsException.class, () -> compact.get(6));
+        assertThrows(UnsupportedOperationException.class, () -> compact.add(ParetoFront.EMPTY));
+    }
+
+    @Test
+    void stationFrontsMappedDecodesDeltaEncodedTuples() {
+        List<ParetoFront> fronts = sampleFronts();
+        StationFronts compact = StationFronts.of(fronts);
+        StationFronts mapped = new StationFronts.Mapped(compact.offsets(),
+                compact.deltaEncodedTuples());
+        assertEquals(compact.size(), mapped.size());
+        for (int s = 0; s < fronts.size(); s += 1) {
+            assertArrayEquals(RandomTimeTable.tuples(compact.get(s)),
+                    RandomTimeTable.tuples(mapped.get(s)));
+        }
+    }
+
+    @Test
+    void profileBuilderBuildsCompactProfile() {
+        var timeTable = new RandomTimeTable(31, 40, 150);
+        var builder = new Profile.Builder(timeTable, DATE, 2);
+        List<ParetoFront> expected = new ArrayList<>();
+        for (int s = 0; s < 40; s += 1) {
+            if (s % 4 == 0) {
+                expected.add(ParetoFront.EMPTY);
+                continue;
+            }
+            ParetoFront.Builder front = new ParetoFront.Builder();
+            for (int i = 0; i < s % 5; i += 1) {
+                front.add(withDepMins(pack(700 + i, 5 - i, s), 600));
+            }
+            builder.setForStation(s, front);
+            expected.add(front.build());
+        }
+        Profile profile = builder.build();
+        assertInstanceOf(StationFronts.InMemory.class, profile.stationFront());
+        for (int s = 0; s < 40; s += 1) {
+            assertArrayEquals(RandomTimeTable.tuples(expected.get(s)),
+                    RandomTimeTable.tuples(profile.forStation(s)));
+        }
+    }
+}
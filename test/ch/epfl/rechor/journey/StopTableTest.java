@@ -0,0 +1,86 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopTableTest {
+    @Test
+    void stopTableBuildsEachStopOnce() {
+        var timeTable = new RandomTimeTable(93, 20, 60);
+        StopTable table = new StopTable(timeTable);
+
+        int stopCount = timeTable.stations().size() + timeTable.platforms().size();
+        for (int stopId = 0; stopId < stopCount; stopId += 1) {
+            int stationId = timeTable.stationId(stopId);
+            Stop expected = new Stop(timeTable.stations().name(stationId),
+                    timeTable.platformName(stopId),
+                    timeTable.stations().longitude(stationId),
+                    timeTable.stations().latitude(stationId));
+            Stop stop = table.stop(stopId);
+            assertEquals(expected, stop);
+            assertSame(stop, table.stop(stopId));
+            // Les voies/quais partagent le nom de leur gare
+            assertSame(table.stop(stationId).name(), stop.name());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> table.stop(stopCount));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.stop(-1));
+    }
+
+    @Test
+    void stopsAreSharedByJourneysOfOneExtraction() {
+        var timeTable = new RandomTimeTable(94, 20, 120);
+        Profile profile = new Router(timeTable).profile(DATE, 0);
+        int[] depStationIds = new int[19];
+        for (int i = 0; i < depStationIds.length; i += 1) depStationIds[i] = i + 1;
+
+        // Les arrêts égaux des voyages d'une même extraction sont identiques
+        Map<Stop, Stop> canonical = new ConcurrentHashMap<>();
+        AtomicInteger legCount = new AtomicInteger();
+        Consumer<Stop> check = stop -> assertSame(canonical.computeIfAbsent(stop, s -> s), stop);
+        JourneyExtractor.journeys(profile, depStationIds, (journeys, dep) -> {
+            for (Journey j : journeys) {
+                for (Journey.Leg leg : j.legs()) {
+                    legCount.incrementAndGet();
+                    check.accept(leg.depStop());
+                    check.accept(leg.arrStop());
+                    for (Journey.Leg.IntermediateStop s : leg.intermediateStops()) {
+                        check.accept(s.stop());
+                    }
+                }
+            }
+        });
+        assertTrue(legCount.get() > 0);
+    }
+
+    @Test
+    void stopTableIsSharedByExtractionsOfCachedTimeTable() {
+        var underlying = new RandomTimeTable(95, 20, 120);
+        var timeTable = new CachedTimeTable(underlying);
+        assertSame(timeTable.stops(), StopTable.of(timeTable));
+        assertNotSame(StopTable.of(underlying), StopTable.of(underlying));
+
+        // Les arrêts de deux extractions distinctes sont identiques
+        Profile profile = new Router(timeTable).profile(DATE, 0);
+        Map<Stop, Stop> canonical = new HashMap<>();
+        int stopCount = 0;
+        for (int extraction = 0; extraction < 2; extraction += 1) {
+            for (Journey j : JourneyExtractor.journeys(profile, 1 + extraction)) {
+                for (Journey.Leg leg : j.legs()) {
+                    stopCount += 1;
+                    assertSame(canonical.computeIfAbsent(leg.depStop(), s -> s), leg.depStop());
+                    assertSame(canonical.computeIfAbsent(leg.arrStop(), s -> s), leg.arrStop());
+                }
+            }
+        }
+        assertTrue(stopCount > 0);
+    }
+}
@@ -0,0 +1,90 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+
+import static ch.epfl.rechor.journey.PackedCriteria.*;
+import static ch.epfl.rechor.journey.RandomTimeTable.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferPatternsTest {
+    @Test
+    void transferPatternsQueryIsBetweenRaptorAndProfiles() {
+        var timeTable = new RandomTimeTable(51, 25, 120);
+        var router = new Router(timeTable);
+        var raptor = new RaptorRouter(timeTable);
+        var patterns = TransferPatterns.compute(timeTable, DATE);
+        assertTrue(patterns.nodeCount() > 0);
+
+        for (int arr = 0; arr < 25; arr += 1) {
+            Profile profile = router.profile(DATE, arr);
+            Profile exact = raptor.profile(DATE, arr);
+            for (int dep = 0; dep < 25; dep += 1) {
+                if (dep == arr) continue;
+                // Les voyages de RAPTOR sont réalisables : aucun motif ne peut faire mieux
+                for (Journey j : JourneyExtractor.journeys(exact, dep)) {
+                    timeTable.checkFeasible(DATE, j);
+                }
+                for (int depMins = 300; depMins <= 1200; depMins += 150) {
+                    int[] expected = bestArrivals(profile.forStation(dep), depMins);
+                    int[] lowest = bestArrivals(exact.forStation(dep), depMins);
+                    int[] actual = bestArrivals(patterns.query(dep, arr, depMins), depMins);
+                    for (int k = 0; k < MAX_CHANGES; k += 1) {
+                        // Les motifs évalués peuvent prendre des courses plus rapides que
+                        // celles du profil, jamais plus lentes
+                        assertTrue(lowest[k] <= actual[k] && actual[k] <= expected[k],
+                                "from " + dep + " to " + arr + " at " + depMins);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void transferPatternsQueryMatchesProfilesWithTransitiveTransfers() {
+        var timeTable = new RandomTimeTable(51, 25, 120, true);
+        var router = new Router(timeTable);
+        var patterns = TransferPatterns.compute(timeTable, DATE);
+        for (int arr = 0; arr < 25; arr += 1) {
+            Profile profile = router.profile(DATE, arr);
+            for (int dep = 0; dep < 25; dep += 1) {
+                if (dep == arr) continue;
+                for (int depMins = 300; depMins <= 1200; depMins += 150) {
+                    assertArrayEquals(bestArrivals(profile.forStation(dep), depMins),
+                            bestArrivals(patterns.query(dep, arr, depMins), depMins),
+                            "from " + dep + " to " + arr + " at " + depMins);
+                }
+            }
+        }
+    }
+
+    @Test
+    void transferPatternsQueryReturnsEmptyFrontWithoutJourney() {
+        var timeTable = new RandomTimeTable(52, 20, 60);
+        var patterns = TransferPatterns.compute(timeTable, DATE);
+        assertSame(ParetoFront.EMPTY, patterns.query(3, 3, 600));
+        // Aucun voyage ne part après minuit
+        assertEquals(0, patterns.query(0, 1, 24 * 60 + 200).size());
+        assertThrows(IndexOutOfBoundsException.class, () -> patterns.query(20, 0, 600));
+        assertThrows(IndexOutOfBoundsException.class, () -> patterns.query(0, -1, 600));
+    }
+
+    @Test
+    void transferPatternsQueryFindsEveryProfileJourneyAtItsDepartureTime() {
+        var timeTable = new RandomTimeTable(53, 20, 100);
+        var router = new Router(timeTable);
+        var patterns = TransferPatterns.compute(timeTable, DATE);
+        for (int arr = 0; arr < 20; arr += 5) {
+            Profile profile = router.profile(DATE, arr);
+            for (int dep = 0; dep < 20; dep += 1) {
+                if (dep == arr) continue;
+                int d = dep;
+                int a = arr;
+                profile.forStation(dep).forEach(t -> {
+                    ParetoFront front = patterns.query(d, a, depMins(t));
+                    int[] best = bestArrivals(front, depMins(t));
+                    assertTrue(best[changes(t)] <= arrMins(t));
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TravelTimeMatrixTest {
+    @Test
+    void travelTimeMatrixMatchesProfileTuples(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(98, 25, 150);
+        LocalTime from = LocalTime.of(7, 0);
+        LocalTime to = LocalTime.of(9, 30);
+        TravelTimeMatrix matrix = TravelTimeMatrix.compute(timeTable, DATE, from, to,
+                directory.resolve("matrix.bin"));
+        assertEquals(25, matrix.stationCount());
+        assertEquals(DATE, matrix.date());
+        assertEquals(from, matrix.depFrom());
+        assertEquals(to, matrix.depTo());
+
+        var router = new Router(timeTable);
+        int reachable = 0;
+        for (int arr = 0; arr < 25; arr += 1) {
+            Profile profile = router.profile(DATE, arr);
+            for (int dep = 0; dep < 25; dep += 1) {
+                if (dep == arr) {
+                    assertEquals(0, matrix.minutes(dep, arr));
+                    assertEquals(0, matrix.changes(dep, arr));
+                    continue;
+                }
+                // Réduction des tuples partant dans la plage d'heures
+                int minutes = Integer.MAX_VALUE;
+                int changes = Integer.MAX_VALUE;
+                for (long t : RandomTimeTable.tuples(profile.forStation(dep))) {
+                    int depMins = PackedCriteria.depMins(t);
+                    if (depMins < 7 * 60 || depMins > 9 * 60 + 30) continue;
+                    minutes = Math.min(minutes, PackedCriteria.arrMins(t) - depMins);
+                    changes = Math.min(changes, PackedCriteria.changes(t));
+                }
+                if (minutes == Integer.MAX_VALUE) {
+                    assertEquals(TravelTimeMatrix.UNREACHABLE, matrix.minutes(dep, arr));
+                    assertEquals(TravelTimeMatrix.UNREACHABLE, matrix.changes(dep, arr));
+                } else {
+                    reachable += 1;
+                    assertEquals(minutes, matrix.minutes(dep, arr));
+                    assertEquals(changes, matrix.changes(dep, arr));
+                }
+            }
+        }
+        assertTrue(reachable > 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.minutes(25, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.changes(0, -1));
+    }
+
+    @Test
+    void travelTimeMatrixFileCanBeReadAgain(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(99, 20, 80);
+        Path file = directory.resolve("2025-03-18").resolve("matrix.bin");
+        AtomicReference<Double> lastProgress = new AtomicReference<>();
+        TravelTimeMatrix computed;
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            computed = TravelTimeMatrix.compute(timeTable, DATE, LocalTime.of(6, 0),
+                    LocalTime.of(20, 0), file, pool, lastProgress::set);
+        }
+        assertEquals(1d, lastProgress.get());
+        TravelTimeMatrix read = TravelTimeMatrix.read(file);
+        for (int dep = 0; dep < 20; dep += 1) {
+            for (int arr = 0; arr < 20; arr += 1) {
+                assertEquals(computed.minutes(dep, arr), read.minutes(dep, arr));
+                assertEquals(computed.changes(dep, arr), read.changes(dep, arr));
+            }
+        }
+        // Aucun fichier temporaire ne subsiste
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+
+        Files.write(file, new byte[]{1, 2, 3, 4});
+        assertThrows(IllegalArgumentException.class, () -> TravelTimeMatrix.read(file));
+        assertThrows(IllegalArgumentException.class, () -> TravelTimeMatrix.compute(timeTable,
+                DATE, LocalTime.NOON, LocalTime.MIDNIGHT, file));
+    }
+}
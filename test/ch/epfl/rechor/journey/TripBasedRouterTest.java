@@ -0,0 +1,135 @@
+package ch.epfl.rechor.journey;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.epfl.rechor.journey.PackedCriteria.*;
+import static ch.epfl.rechor.journey.RandomTimeTable.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripBasedRouterTest {
+    @Test
+    void tripBasedRouterMatchesRaptorRouter() {
+        for (long seed = 81; seed < 84; seed += 1) {
+            var timeTable = new RandomTimeTable(seed, 30, 150);
+            var raptor = new RaptorRouter(timeTable);
+            var router = new TripBasedRouter(timeTable, DATE);
+            for (int arr = 0; arr < 30; arr += 1) {
+                Profile profile = raptor.profile(DATE, arr);
+                for (int dep = 0; dep < 30; dep += 1) {
+                    if (dep == arr) continue;
+                    for (int depMins = 300; depMins < 1300; depMins += 100) {
+                        ParetoFront front = router.query(dep, arr, depMins);
+                        // Les voyages partent au plus tôt à l'heure demandée
+                        int m = depMins;
+                        front.forEach(t -> assertTrue(depMins(t) >= m));
+                        assertArrayEquals(bestArrivals(profile.forStation(dep), depMins),
+                                bestArrivals(front, depMins),
+                                "from " + dep + " to " + arr + " at " + depMins);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void tripBasedRouterJourneysAreWellFormed() {
+        var timeTable = new RandomTimeTable(84, 25, 120);
+        var router = new TripBasedRouter(timeTable, DATE);
+        for (int arr = 0; arr < 25; arr += 3) {
+            for (int dep = 0; dep < 25; dep += 1) {
+                if (dep == arr) continue;
+                ParetoFront front = router.query(dep, arr, 480);
+                List<Journey> journeys = router.journeys(dep, arr, 480);
+                assertEquals(front.size(), journeys.size());
+                for (Journey j : journeys) {
+                    assertEquals(timeTable.stations().name(dep), j.depStop().name());
+                    assertEquals(timeTable.stations().name(arr), j.arrStop().name());
+                    assertFalse(j.depTime().isBefore(DATE.atTime(8, 0)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void tripBasedRouterJourneysFollowQueryFront() {
+        var timeTable = new RandomTimeTable(85, 20, 80);
+        var router = new TripBasedRouter(timeTable, DATE);
+        for (int arr = 0; arr < 20; arr += 4) {
+            for (int dep = 0; dep < 20; dep += 1) {
+                if (dep == arr) continue;
+                for (int depMins = 360; depMins < 1200; depMins += 120) {
+                    // Chaque tuple de la frontière donne un voyage ayant autant de changements
+                    List<Integer> expected = new ArrayList<>();
+                    router.query(dep, arr, depMins).forEach(t -> expected.add(changes(t)));
+                    List<Integer> actual = new ArrayList<>();
+                    for (Journey j : router.journeys(dep, arr, depMins)) {
+                        long rides = j.legs().stream()
+                                .filter(l -> l instanceof Journey.Leg.Transport)
+                                .count();
+                        actual.add((int) rides - 1);
+                        assertFalse(j.depTime()
+                                .isBefore(JourneyExtractor.createTime(depMins, DATE)));
+                    }
+                    expected.sort(null);
+                    actual.sort(null);
+                    assertEquals(expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    void tripBasedRouterQueryReturnsEmptyFrontWithoutJourney() {
+        var timeTable = new RandomTimeTable(86, 20, 60);
+        var router = new TripBasedRouter(timeTable, DATE);
+        assertSame(ParetoFront.EMPTY, router.query(3, 3, 600));
+        assertEquals(List.of(), router.journeys(3, 3, 600));
+        // Aucun voyage ne part après minuit
+        assertEquals(0, router.query(0, 1, 24 * 60 + 200).size());
+        assertThrows(IndexOutOfBoundsException.class, () -> router.query(20, 0, 600));
+        assertThrows(IndexOutOfBoundsException.class, () -> router.journeys(0, -1, 600));
+    }
+
+    @Test
+    void tripTransfersRoundTripThroughFile(@TempDir Path directory) throws IOException {
+        var timeTable = new RandomTimeTable(87, 25, 120);
+        TripTransfers computed = TripTransfers.compute(timeTable, DATE);
+        assertTrue(computed.size() > 0);
+
+        Path file = TripTransfers.path(directory, DATE);
+        assertEquals(directory.resolve("2025-03-18").resolve("trip-transfers.bin"), file);
+        TripTransfers.write(computed, file);
+        TripTransfers read = TripTransfers.read(timeTable, DATE, file);
+        assertEquals(computed.connectionCount(), read.connectionCount());
+        assertEquals(computed.size(), read.size());
+        for (int c = 0; c < computed.connectionCount(); c += 1) {
+            assertEquals(computed.start(c), read.start(c));
+            assertEquals(computed.end(c), read.end(c));
+        }
+        for (int i = 0; i < computed.size(); i += 1) {
+            assertEquals(computed.target(i), read.target(i));
+        }
+
+        var fromFile = new TripBasedRouter(timeTable, DATE, read);
+        var fromComputed = new TripBasedRouter(timeTable, DATE, computed);
+        for (int dep = 0; dep < 25; dep += 3) {
+            int arr = (dep + 7) % 25;
+            assertEquals(fromComputed.journeys(dep, arr, 420), fromFile.journeys(dep, arr, 420));
+        }
+
+        // Un fichier calculé pour un autre horaire est refusé
+        var other = new RandomTimeTable(88, 25, 60);
+        assertThrows(IllegalArgumentException.class,
+                () -> TripTransfers.read(other, DATE, file));
+        Files.write(file, new byte[]{1, 2, 3, 4});
+        assertThrows(IllegalArgumentException.class,
+                () -> TripTransfers.read(timeTable, DATE, file));
+    }
+}
@@ -0,0 +1,71 @@
+package ch.epfl.rechor.server;
+
+import ch.epfl.rechor.journey.ProfileCache;
+import ch.epfl.rechor.journey.RandomTimeTable;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Mesure le débit et la latence du service HTTP sur un horaire aléatoire, en local, en
+ * envoyant des recherches de voyages depuis de nombreux clients concurrents.
+ */
+public class RoutingServerBenchmark {
+    private static final int STATIONS = 400;
+    private static final int TRIPS = 4_000;
+    private static final int DESTINATIONS = 20;
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        var timeTable = new RandomTimeTable(2025, STATIONS, TRIPS);
+        try (var server = new RoutingServer(timeTable, null, new ProfileCache(256L << 20));
+             var client = HttpClient.newHttpClient();
+             ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            InetSocketAddress address =
+                    server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            URI base = URI.create("http://localhost:" + address.getPort());
+            Random rng = new Random(1);
+            URI[] uris = new URI[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                uris[i] = base.resolve("/journeys?from=Station%20" + rng.nextInt(STATIONS)
+                        + "&to=Station%20" + rng.nextInt(DESTINATIONS)
+                        + "&date=2025-03-18&time="
+                        + String.format("%02d:00", 6 + rng.nextInt(14)));
+            }
+
+            long[] latencies = new long[REQUESTS];
+            long start = System.nanoTime();
+            Future<?>[] futures = new Future<?>[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                futures[i] = clients.submit(() -> {
+                    long t0 = System.nanoTime();
+                    HttpResponse<Void> response = client.send(
+                            HttpRequest.newBuilder(uris[request]).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) throw new IllegalStateException();
+                    latencies[request] = System.nanoTime() - t0;
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) future.get();
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%d requêtes, %d clients : %.0f requêtes/s%n",
+                    REQUESTS, CLIENTS, REQUESTS * 1e9 / elapsed);
+            System.out.printf("  latence médiane %.2f ms, 99e centile %.2f ms%n",
+                    latencies[REQUESTS / 2] / 1e6, latencies[REQUESTS * 99 / 100] / 1e6);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ch.epfl.rechor.server;
+
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneyExtractor;
+import ch.epfl.rechor.journey.JourneyGeoJsonConverter;
+import ch.epfl.rechor.journey.ProfileCache;
+import ch.epfl.rechor.journey.RandomTimeTable;
+import ch.epfl.rechor.journey.Router;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingServerTest {
+    private RandomTimeTable timeTable;
+    private ProfileCache cache;
+    private RoutingServer server;
+    private URI base;
+    private HttpClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        timeTable = new RandomTimeTable(103, 25, 150);
+        cache = new ProfileCache(64L << 20);
+        server = new RoutingServer(timeTable, null, cache);
+        InetSocketAddress address =
+                server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        base = URI.create("http://localhost:" + address.getPort());
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        client.close();
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws Exception {
+        return client.send(HttpRequest.newBuilder(base.resolve(pathAndQuery)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void routingServerFindsStops() throws Exception {
+        HttpResponse<String> response = get("/stops?q=station%2012&limit=3");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow()
+                .startsWith("application/json"));
+        assertEquals("[\"Station 12\"]", response.body());
+        assertEquals(400, get("/stops").statusCode());
+        assertEquals(400, get("/stops?q=a&limit=x").statusCode());
+    }
+
+    @Test
+    void routingServerReturnsJourneysAndExports() throws Exception {
+        List<Journey> expected = JourneyExtractor.journeys(
+                        new Router(timeTable).profile(DATE, 4), 9).stream()
+                .filter(j -> !j.depTime().isBefore(DATE.atTime(10, 0)))
+                .toList();
+        assertFalse(expected.isEmpty());
+
+        String query = "from=Station%209&to=Station%204&date=2025-03-18&time=10:00";
+        HttpResponse<String> journeys = get("/journeys?" + query);
+        assertEquals(200, journeys.statusCode());
+        String firstDep = "\"depTime\":\"" + expected.getFirst().depTime() + "\"";
+        assertTrue(journeys.body().startsWith("[{" + firstDep), journeys.body());
+        assertEquals(expected.size(), journeys.body().split("\"legs\"").length - 1);
+
+        HttpResponse<String> geoJson = get("/journey.geojson?" + query + "&index=0");
+        assertEquals(200, geoJson.statusCode());
+        assertEquals(JourneyGeoJsonConverter.toGeoJson(expected.getFirst()).toString(),
+                geoJson.body());
+
+        HttpResponse<String> ical = get("/journey.ics?" + query);
+        assertEquals(200, ical.statusCode());
+        assertTrue(ical.body().startsWith("BEGIN:VCALENDAR"));
+        assertEquals(404, get("/journey.ics?" + query + "&index=" + expected.size())
+                .statusCode());
+
+        // Le profil n'a été calculé qu'une seule fois
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void routingServerRejectsInvalidRequests() throws Exception {
+        assertEquals(404, get("/journeys?from=Nowhere&to=Station%201&date=2025-03-18")
+                .statusCode());
+        assertEquals(400, get("/journeys?from=Station%200&to=Station%201&date=18.03.2025")
+                .statusCode());
+        assertEquals(400, get("/journeys?from=Station%200&date=2025-03-18").statusCode());
+        assertEquals(404, get("/unknown").statusCode());
+        assertEquals(404, get("/stops/more?q=a").statusCode());
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(base.resolve("/stops"))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+    }
+
+    @Test
+    void routingServerHandlesConcurrentRequests() {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i += 1) {
+            String query = "/journeys?from=Station%20" + (i % 25) + "&to=Station%20" + (i % 5)
+                    + "&date=2025-03-18&time=08:00";
+            responses.add(client.sendAsync(HttpRequest.newBuilder(base.resolve(query)).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        // Une seule fois par gare d'arrivée
+        assertEquals(5, cache.missCount());
+    }
+}
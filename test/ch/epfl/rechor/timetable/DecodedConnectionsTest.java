@@ -0,0 +1,71 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.journey.RandomTimeTable;
+import org.junit.jupiter.api.Test;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodedConnectionsTest {
+    @Test
+    void decodedConnectionsMatchSourceConnections() {
+        var timeTable = new RandomTimeTable(41, 30, 120);
+        var source = new DelayedConnections.Builder(timeTable.connectionsFor(DATE))
+                .cancel(4)
+                .cancel(9)
+                .build();
+        var decoded = new DecodedConnections(timeTable, source);
+        assertEquals(source.size(), decoded.size());
+        for (int i = 0; i < source.size(); i += 1) {
+            assertEquals(source.depStopId(i), decoded.depStopId(i));
+            assertEquals(source.arrStopId(i), decoded.arrStopId(i));
+            assertEquals(timeTable.stationId(source.depStopId(i)), decoded.depStationId(i));
+            assertEquals(timeTable.stationId(source.arrStopId(i)), decoded.arrStationId(i));
+            assertEquals(source.depMins(i), decoded.depMins(i));
+            assertEquals(source.arrMins(i), decoded.arrMins(i));
+            assertEquals(source.tripId(i), decoded.tripId(i));
+            assertEquals(source.tripPos(i), decoded.tripPos(i));
+            assertEquals(source.nextConnectionId(i), decoded.nextConnectionId(i));
+            assertEquals(source.isCancelled(i), decoded.isCancelled(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> decoded.isCancelled(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> decoded.depMins(source.size()));
+    }
+
+    @Test
+    void decodedConnectionsConnectionAfterFollowsTrips() {
+        var timeTable = new RandomTimeTable(43, 30, 120);
+        var source = timeTable.connectionsFor(DATE);
+        var decoded = new DecodedConnections(timeTable, source);
+        for (int i = 0; i < source.size(); i += 1) {
+            // On suit la course jusqu'à sa dernière liaison, après laquelle elle recommence
+            int first = i;
+            int c = i;
+            int count = 0;
+            do {
+                assertEquals(c, decoded.connectionAfter(i, count));
+                c = source.nextConnectionId(c);
+                count += 1;
+            } while (source.tripPos(c) != 0);
+            int last = count;
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> decoded.connectionAfter(first, last));
+        }
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> decoded.connectionAfter(0, -1 - decoded.tripPos(0)));
+    }
+
+    @Test
+    void decodedConnectionsAreSharedByCachedTimeTable() {
+        var timeTable = new RandomTimeTable(42, 20, 50);
+        var cached = new CachedTimeTable(timeTable, true);
+        var connections = cached.connectionsFor(DATE);
+        assertInstanceOf(DecodedConnections.class, connections);
+        assertSame(connections, cached.connectionsFor(DATE));
+        assertSame(connections, DecodedConnections.of(cached, DATE));
+        assertEquals(1, timeTable.connectionsForCalls());
+
+        assertFalse(new CachedTimeTable(timeTable).connectionsFor(DATE)
+                instanceof DecodedConnections);
+    }
+}
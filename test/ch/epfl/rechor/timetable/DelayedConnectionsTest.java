@@ -0,0 +1,103 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.journey.RandomTimeTable;
+import org.junit.jupiter.api.Test;
+
+import static ch.epfl.rechor.journey.RandomTimeTable.DATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelayedConnectionsTest {
+    /**
+     * Delays the given connection and all the following ones of its trip.
+     */
+    static void delayTrip(DelayedConnections.Builder builder, Connections base, int baseId,
+                          int minutes) {
+        int c = baseId;
+        do {
+            builder.setDelay(c, minutes, minutes);
+            c = base.nextConnectionId(c);
+        } while (base.tripPos(c) != 0);
+    }
+
+    @Test
+    void delayedConnectionsWithoutPatchesAreIdentical() {
+        var base = new RandomTimeTable(31, 30, 100).connectionsFor(DATE);
+        var delayed = new DelayedConnections.Builder(base).build();
+        assertEquals(base.size(), delayed.size());
+        for (int i = 0; i < base.size(); i += 1) {
+            assertEquals(i, delayed.baseId(i));
+            assertEquals(base.depMins(i), delayed.depMins(i));
+            assertEquals(base.arrMins(i), delayed.arrMins(i));
+            assertEquals(base.nextConnectionId(i), delayed.nextConnectionId(i));
+            assertFalse(delayed.isCancelled(i));
+        }
+    }
+
+    @Test
+    void delayedConnectionsAreSortedAndConsistent() {
+        var base = new RandomTimeTable(32, 30, 100).connectionsFor(DATE);
+        var builder = new DelayedConnections.Builder(base);
+        for (int c = 0; c < base.size(); c += 17) {
+            if (base.tripPos(c) == 0) delayTrip(builder, base, c, 45);
+        }
+        builder.cancel(3);
+        var delayed = builder.build();
+
+        for (int i = 1; i < delayed.size(); i += 1) {
+            assertTrue(delayed.depMins(i - 1) >= delayed.depMins(i));
+        }
+        for (int i = 0; i < delayed.size(); i += 1) {
+            int b = delayed.baseId(i);
+            assertEquals(i, delayed.idOf(b));
+            assertEquals(base.tripId(b), delayed.tripId(i));
+            assertEquals(base.depStopId(b), delayed.depStopId(i));
+            assertEquals(delayed.baseId(delayed.nextConnectionId(i)), base.nextConnectionId(b));
+            assertEquals(b == 3, delayed.isCancelled(i));
+            int delay = delayed.depMins(i) - base.depMins(b);
+            assertTrue(delay == 0 || delay == 45);
+        }
+    }
+
+    @Test
+    void delayedConnectionsKeepIndexOfLaterConnections() {
+        var base = new RandomTimeTable(33, 30, 100).connectionsFor(DATE);
+        int c = base.size() / 2;
+        while (base.tripPos(c) != 0) c += 1;
+        var builder = new DelayedConnections.Builder(base);
+        delayTrip(builder, base, c, 10);
+        var delayed = builder.build();
+        int latest = 0;
+        for (int b = 0; b < base.size(); b += 1) {
+            if (delayed.depMins(delayed.idOf(b)) != base.depMins(b)) {
+                latest = Math.max(latest, delayed.depMins(delayed.idOf(b)));
+            }
+        }
+        for (int i = 0; i < base.size() && base.depMins(i) > latest; i += 1) {
+            assertEquals(i, delayed.baseId(i));
+        }
+    }
+
+    @Test
+    void delayedConnectionsBuilderKeepsPreviousPatches() {
+        var base = new RandomTimeTable(34, 30, 100).connectionsFor(DATE);
+        var first = new DelayedConnections.Builder(base).cancel(5).build();
+        var second = new DelayedConnections.Builder(first).cancel(6).build();
+        assertTrue(second.isCancelled(second.idOf(5)));
+        assertTrue(second.isCancelled(second.idOf(6)));
+        assertSame(base, second.base());
+    }
+
+    @Test
+    void delayedConnectionsThrowsOnInconsistentDelays() {
+        var base = new RandomTimeTable(35, 30, 100).connectionsFor(DATE);
+        int c = 0;
+        while (base.tripPos(base.nextConnectionId(c)) == 0) c += 1;
+        int delayed = c;
+        assertThrows(IllegalArgumentException.class,
+                () -> new DelayedConnections.Builder(base).setDelay(delayed, 0, 500).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> new DelayedConnections.Builder(base).setDelay(delayed, 30, 0).build());
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new DelayedConnections.Builder(base).cancel(base.size()));
+    }
+}